@@ -0,0 +1,64 @@
+package megabot;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+
+/**
+ * Measures the cost of creating one dialog box: by parsing the original DialogBox.fxml for every
+ * message, as before, against the programmatic {@link DialogBox}.
+ * Needs a display, or Monocle in headless mode, to start the JavaFX toolkit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DialogBoxBenchmark {
+    private static final String TEXT = "Alright... One more task for you in your horrible backlog.";
+
+    private Image image;
+
+    /**
+     * Starts the JavaFX toolkit and loads the display picture once.
+     */
+    @Setup
+    public void setUp() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+        image = new Image(DialogBoxBenchmark.class.getResourceAsStream("/images/megadino.png"));
+    }
+
+    /**
+     * Baseline: a new FXMLLoader parses the FXML file for every dialog box.
+     */
+    @Benchmark
+    public HBox fxmlDialogBox() throws IOException {
+        HBox dialogBox = new HBox();
+        FXMLLoader fxmlLoader = new FXMLLoader(DialogBoxBenchmark.class.getResource("/view/DialogBox.fxml"));
+        fxmlLoader.setRoot(dialogBox);
+        fxmlLoader.load();
+        ((Label) fxmlLoader.getNamespace().get("dialog")).setText(TEXT);
+        ((ImageView) fxmlLoader.getNamespace().get("displayPicture")).setImage(image);
+        return dialogBox;
+    }
+
+    @Benchmark
+    public DialogBox programmaticDialogBox() {
+        return DialogBox.getMegaBotDialog(TEXT, image);
+    }
+}
@@ -0,0 +1,101 @@
+package megabot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import megabot.exception.MegabotException;
+import megabot.task.Deadline;
+import megabot.task.Event;
+import megabot.task.Task;
+import megabot.task.ToDo;
+
+/**
+ * Measures loading and saving task files of different sizes.
+ * The file holds equal numbers of todos, deadlines and events, with every other task done.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int taskCount;
+
+    private File dataFile;
+    private Storage storage;
+    private ArrayList<Task> tasks;
+
+    /**
+     * Creates the tasks and writes them to a temporary file for the load benchmark.
+     */
+    @Setup
+    public void setUp() throws IOException, MegabotException {
+        dataFile = File.createTempFile("megabot-storage-bench", ".txt");
+        storage = new Storage(dataFile.getAbsolutePath());
+        tasks = createTasks(taskCount);
+        storage.save(tasks);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataFile.delete();
+    }
+
+    /**
+     * Creates a mix of todos, deadlines and events.
+     *
+     * @param count the number of tasks
+     * @return the tasks
+     * @throws MegabotException if a task cannot be created
+     */
+    static ArrayList<Task> createTasks(int count) throws MegabotException {
+        ArrayList<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String day = String.format("%02d", 1 + i % 28);
+            Task task;
+            switch (i % 3) {
+            case 0:
+                task = new ToDo("read book " + i);
+                break;
+            case 1:
+                task = new Deadline("submit report " + i, "2030-03-" + day + " 2359");
+                break;
+            default:
+                task = new Event("project meeting " + i, "2030-03-01 1400", "2030-03-" + day + " 1600");
+                break;
+            }
+            if (i % 2 == 0) {
+                task.markAsDone();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    @Benchmark
+    public ArrayList<Task> load() throws MegabotException {
+        return storage.load();
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        storage.save(tasks);
+    }
+}
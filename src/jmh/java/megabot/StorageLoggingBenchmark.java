@@ -0,0 +1,94 @@
+package megabot;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import megabot.exception.MegabotException;
+import megabot.log.AsyncHandler;
+import megabot.task.Task;
+
+/**
+ * Measures loading a 100k-task file with logging enabled at each level, written to a log file
+ * either on the loading thread or through an {@link AsyncHandler}.
+ * Each trial installs exactly one handler itself; benchmarks never call the launchers' async setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class StorageLoggingBenchmark {
+    private static final int TASK_COUNT = 100_000;
+
+    @Param({"OFF", "WARNING", "INFO", "FINE", "ALL"})
+    private String level;
+
+    @Param({"sync", "async"})
+    private String handler;
+
+    private File dataFile;
+    private File logFile;
+    private Storage storage;
+    private Handler logHandler;
+
+    /**
+     * Writes the task file and points the root logger at a fresh log file.
+     */
+    @Setup
+    public void setUp() throws IOException, MegabotException {
+        dataFile = File.createTempFile("megabot-logging-bench", ".txt");
+        storage = new Storage(dataFile.getAbsolutePath());
+        ArrayList<Task> tasks = StorageBenchmark.createTasks(TASK_COUNT);
+        storage.save(tasks);
+
+        logFile = File.createTempFile("megabot-logging-bench", ".log");
+        Handler fileHandler = new StreamHandler(new FileOutputStream(logFile), new SimpleFormatter());
+        fileHandler.setLevel(Level.ALL);
+        logHandler = handler.equals("async") ? new AsyncHandler(fileHandler, AsyncHandler.DEFAULT_CAPACITY)
+                : fileHandler;
+
+        Logger root = Logger.getLogger("");
+        for (Handler existing : root.getHandlers()) {
+            root.removeHandler(existing);
+        }
+        root.addHandler(logHandler);
+        root.setLevel(Level.parse(level));
+    }
+
+    /**
+     * Closes the log handler, which writes out anything still queued, and deletes the files.
+     */
+    @TearDown
+    public void tearDown() {
+        logHandler.close();
+        dataFile.delete();
+        logFile.delete();
+    }
+
+    @Benchmark
+    public ArrayList<Task> load() throws MegabotException {
+        return storage.load();
+    }
+}
@@ -0,0 +1,82 @@
+package megabot.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import megabot.MegaBot;
+import megabot.Storage;
+
+/**
+ * Compares command throughput of the single-writer {@link CommandEngine} against
+ * the synchronized baseline of locking around {@link MegaBot#getResponse(String)}.
+ * Both run "mark 1" from four threads on a list of {@code taskCount} tasks, and both
+ * save every change before answering.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class CommandEngineBenchmark {
+    @Param({"100", "10000"})
+    private int taskCount;
+
+    private MegaBot lockedMegaBot;
+    private MegaBot engineMegaBot;
+    private final Object lock = new Object();
+
+    /**
+     * Creates two MegaBots with the same number of tasks, each saving to its own file.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        lockedMegaBot = createMegaBot();
+        engineMegaBot = createMegaBot();
+        engineMegaBot.getEngine();
+    }
+
+    private MegaBot createMegaBot() throws IOException {
+        File dataFile = File.createTempFile("megabot-bench", ".txt");
+        dataFile.deleteOnExit();
+        new File(dataFile.getAbsolutePath() + Storage.IMAGE_SUFFIX).deleteOnExit();
+        MegaBot megabot = new MegaBot(dataFile.getAbsolutePath());
+        for (int i = 0; i < taskCount; i++) {
+            megabot.getResponse("todo benchmark task " + i);
+        }
+        return megabot;
+    }
+
+    @TearDown
+    public void tearDown() {
+        engineMegaBot.shutdown();
+    }
+
+    /**
+     * Baseline: every thread takes the same lock, runs the command and saves.
+     */
+    @Benchmark
+    public String synchronizedGetResponse() {
+        synchronized (lock) {
+            return lockedMegaBot.getResponse("mark 1");
+        }
+    }
+
+    /**
+     * Every thread publishes into the ring buffer and waits for its batch to be saved.
+     */
+    @Benchmark
+    public String engineSubmit() {
+        return engineMegaBot.submit("mark 1").join();
+    }
+}
@@ -0,0 +1,36 @@
+package megabot.parser;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import megabot.exception.MegabotException;
+
+/**
+ * Measures {@link DateTimeParser#parseDateTime(String)} once for every supported format.
+ * Formats are tried in order, so inputs in later formats pay for every format tried before them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateTimeParserBenchmark {
+    @Param({
+        "2024-03-15 2359", "2024-03-15 23:59", "15/03/2024 23:59", "03/15/2024 23:59", "2024-03-15 11:59 PM",
+        "15/03/2024 11:59 PM", "03/15/2024 11:59 PM", "15 Mar 2024 23:59", "Mar 15 2024 11:59 PM",
+        "2024-03-15", "15/03/2024", "03/25/2024", "15-03-2024", "03-25-2024", "2024/03/15", "15 Mar 2024",
+        "Mar 15 2024", "5/3/2024", "5-3-2024",
+    })
+    private String input;
+
+    @Benchmark
+    public LocalDateTime parseDateTime() throws MegabotException {
+        return DateTimeParser.parseDateTime(input);
+    }
+}
@@ -0,0 +1,49 @@
+package megabot.parser;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import megabot.exception.MegabotException;
+import megabot.task.Command;
+
+/**
+ * Measures the cost of working out which command a line of input is, and of splitting
+ * deadline and event arguments into their parts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParserBenchmark {
+    private static final String[] COMMANDS = {
+        "list", "todo read book", "deadline submit report /by 2024-03-15 2359",
+        "event project meeting /from 2024-03-10 1400 /to 2024-03-10 1600", "mark 3", "unmark 3",
+        "delete 1", "find book", "list 2 20", "stats", "bye", "hello there",
+    };
+
+    /**
+     * Parses one of every kind of command, plus an unknown one.
+     */
+    @Benchmark
+    public void commandFromString(Blackhole blackhole) {
+        for (String command : COMMANDS) {
+            blackhole.consume(Command.fromString(command));
+        }
+    }
+
+    @Benchmark
+    public String[] parseDeadline() throws MegabotException {
+        return Parser.parseDeadline("submit report /by 2024-03-15 2359");
+    }
+
+    @Benchmark
+    public String[] parseEvent() throws MegabotException {
+        return Parser.parseEvent("project meeting /from 2024-03-10 1400 /to 2024-03-10 1600");
+    }
+}
@@ -0,0 +1,77 @@
+package megabot.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.gui.Gui;
+
+/**
+ * Measures searching the task list and rendering it for the list command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskListBenchmark {
+    @Param({"1000", "100000"})
+    private int taskCount;
+
+    private TaskList tasks;
+    private Gui gui;
+    private String fullListCommand;
+
+    /**
+     * Creates a list of todos where one task in ten mentions "book".
+     */
+    @Setup
+    public void setUp() throws IOException {
+        ArrayList<Task> taskList = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            taskList.add(new ToDo((i % 10 == 0 ? "read book " : "water plants ") + i));
+        }
+        tasks = new TaskList(taskList);
+
+        File dataFile = File.createTempFile("megabot-list-bench", ".txt");
+        dataFile.deleteOnExit();
+        gui = new Gui(tasks, new Storage(dataFile.getAbsolutePath()));
+        fullListCommand = "list 1 " + taskCount;
+    }
+
+    @Benchmark
+    public ArrayList<Task> findTasksWithMatches() {
+        return tasks.findTasks("BOOK");
+    }
+
+    @Benchmark
+    public ArrayList<Task> findTasksWithoutMatches() {
+        return tasks.findTasks("homework");
+    }
+
+    /**
+     * Renders the first page, as shown by "list".
+     */
+    @Benchmark
+    public String renderFirstPage() throws MegabotException {
+        return gui.handleCommand("list");
+    }
+
+    /**
+     * Renders every task on one page.
+     */
+    @Benchmark
+    public String renderFullList() throws MegabotException {
+        return gui.handleCommand(fullListCommand);
+    }
+}
@@ -0,0 +1,70 @@
+package megabot.task;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import megabot.exception.MegabotException;
+
+/**
+ * Measures how fast a mixed list of tasks is rendered for display with {@link Task#toString()}
+ * and for saving with {@link Task#formatData()}. Each invocation renders the whole list once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TaskRenderBenchmark {
+    @Param({"1000"})
+    private int taskCount;
+
+    private ArrayList<Task> tasks;
+
+    /**
+     * Creates equal numbers of todos, deadlines and events, with every other task marked as done.
+     */
+    @Setup
+    public void setUp() throws MegabotException {
+        tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            Task task;
+            switch (i % 3) {
+            case 0:
+                task = new ToDo("read book " + i);
+                break;
+            case 1:
+                task = new Deadline("submit report " + i, "2030-03-" + (10 + i % 18) + " 2359");
+                break;
+            default:
+                task = new Event("project meeting " + i, "2030-03-10 1400", "2030-03-" + (10 + i % 18) + " 1600");
+                break;
+            }
+            if (i % 2 == 0) {
+                task.markAsDone();
+            }
+            tasks.add(task);
+        }
+    }
+
+    @Benchmark
+    public void renderForDisplay(Blackhole blackhole) {
+        for (Task task : tasks) {
+            blackhole.consume(task.toString());
+        }
+    }
+
+    @Benchmark
+    public void renderForSave(Blackhole blackhole) {
+        for (Task task : tasks) {
+            blackhole.consume(task.formatData());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package megabot;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import megabot.log.Log;
+
+/**
+ * Keeps the conversation shown in the main window bounded.
+ * Messages are added to a list that backs the chat view. Once it holds more than the capacity,
+ * the oldest messages are appended to a spill file on disk and removed from the list, in batches
+ * so that the cost of removing from the front is amortised.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class ChatHistory {
+    private static final Log LOG = Log.get(ChatHistory.class);
+
+    private final List<ChatMessage> messages;
+    private final int capacity;
+    private final int spillBatchSize;
+    private final Path spillFile;
+
+    /**
+     * Constructs a ChatHistory over the given list.
+     *
+     * @param messages the list of messages shown in the chat view
+     * @param capacity the number of messages kept in memory
+     * @param spillBatchSize the number of messages moved to disk at a time
+     * @param spillFile the file older messages are appended to
+     */
+    public ChatHistory(List<ChatMessage> messages, int capacity, int spillBatchSize, Path spillFile) {
+        assert capacity > 0 && spillBatchSize > 0 : "Capacity and batch size must be positive";
+        this.messages = messages;
+        this.capacity = capacity;
+        this.spillBatchSize = Math.min(spillBatchSize, capacity);
+        this.spillFile = spillFile;
+    }
+
+    /**
+     * Adds a message to the end of the conversation, moving the oldest messages to disk if needed.
+     *
+     * @param message the message to add
+     */
+    public void add(ChatMessage message) {
+        messages.add(message);
+        if (messages.size() > capacity) {
+            spillOldest();
+        }
+    }
+
+    /**
+     * Replaces a message, typically a pending reply, with another one.
+     * Searches from the newest message, where pending replies are.
+     *
+     * @param oldMessage the message to replace
+     * @param newMessage the replacement
+     * @return true if the old message was found
+     */
+    public boolean replace(ChatMessage oldMessage, ChatMessage newMessage) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) == oldMessage) {
+                messages.set(i, newMessage);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of messages kept in memory.
+     *
+     * @return the number of messages
+     */
+    public int size() {
+        return messages.size();
+    }
+
+    private void spillOldest() {
+        List<ChatMessage> oldest = messages.subList(0, spillBatchSize);
+        if (spillFile != null) {
+            try {
+                Path parentDir = spillFile.getParent();
+                if (parentDir != null) {
+                    Files.createDirectories(parentDir);
+                }
+                try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (ChatMessage message : oldest) {
+                        writer.write(message.toString());
+                        writer.write("\n\n");
+                    }
+                }
+            } catch (IOException e) {
+                LOG.atWarning().with("reason", e.getMessage()).log("chat_history_spill_failed",
+                        () -> "dropping the old messages");
+            }
+        }
+        oldest.clear();
+    }
+}
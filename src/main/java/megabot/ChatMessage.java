@@ -0,0 +1,70 @@
+package megabot;
+
+/**
+ * Represents one message in the conversation shown in the main window.
+ * Messages are immutable; a pending reply is replaced by a new message once the response arrives.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class ChatMessage {
+    private static final String PENDING_TEXT = "...";
+
+    /**
+     * The sender of a message.
+     */
+    public enum Speaker {
+        USER,
+        MEGABOT
+    }
+
+    private final Speaker speaker;
+    private final String text;
+    private final boolean isPending;
+
+    private ChatMessage(Speaker speaker, String text, boolean isPending) {
+        assert text != null : "Message text cannot be null";
+        this.speaker = speaker;
+        this.text = text;
+        this.isPending = isPending;
+    }
+
+    public static ChatMessage fromUser(String text) {
+        return new ChatMessage(Speaker.USER, text, false);
+    }
+
+    public static ChatMessage fromMegaBot(String text) {
+        return new ChatMessage(Speaker.MEGABOT, text, false);
+    }
+
+    /**
+     * Returns a placeholder for a MegaBot reply that is still being computed.
+     *
+     * @return the pending message
+     */
+    public static ChatMessage pendingReply() {
+        return new ChatMessage(Speaker.MEGABOT, PENDING_TEXT, true);
+    }
+
+    public Speaker getSpeaker() {
+        return speaker;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns whether this message is a placeholder for a reply that has not arrived yet.
+     *
+     * @return true if the message is pending
+     */
+    public boolean isPending() {
+        return isPending;
+    }
+
+    @Override
+    public String toString() {
+        return speaker + ": " + text;
+    }
+}
@@ -1,41 +1,57 @@
 package megabot;
 
-import java.io.IOException;
 import java.util.Collections;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 
 /**
  * Represents a dialog box consisting of an ImageView to represent the speaker's face
  * and a label containing text from the speaker.
+ * The layout is built in code rather than loaded from FXML, since parsing FXML for every
+ * message costs several milliseconds.
  */
 public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
+    private static final String STYLESHEET = DialogBox.class.getResource("/css/dialog-box.css").toExternalForm();
+    private static final double PREF_WIDTH = 400.0;
+    private static final double PICTURE_SIZE = 99.0;
+    private static final Insets BOX_PADDING = new Insets(15.0, 5.0, 15.0, 5.0);
+    private static final Insets DIALOG_MARGIN = new Insets(0.0, 7.0, 0.0, 7.0);
+    private static final Insets DIALOG_PADDING = new Insets(6.0);
+
+    private final Label dialog;
+    private final ImageView displayPicture;
 
     private DialogBox(String text, Image img) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        dialog = new Label(text);
+        dialog.setId("dialog");
+        dialog.setWrapText(true);
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        dialog.setPadding(DIALOG_PADDING);
+        HBox.setMargin(dialog, DIALOG_MARGIN);
 
-        dialog.setText(text);
-        displayPicture.setImage(img);
+        displayPicture = new ImageView(img);
+        displayPicture.setId("displayPicture");
+        displayPicture.setFitHeight(PICTURE_SIZE);
+        displayPicture.setFitWidth(PICTURE_SIZE);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
+
+        getChildren().setAll(dialog, displayPicture);
+        getStylesheets().add(STYLESHEET);
+        setAlignment(Pos.TOP_RIGHT);
+        setMaxHeight(Double.MAX_VALUE);
+        setMaxWidth(Double.MAX_VALUE);
+        setPrefWidth(PREF_WIDTH);
+        setPadding(BOX_PADDING);
     }
 
     /**
@@ -49,6 +65,30 @@ public class DialogBox extends HBox {
         dialog.getStyleClass().add("reply-label");
     }
 
+    /**
+     * Replaces the text shown in the dialog box.
+     *
+     * @param text the new text
+     */
+    public void setText(String text) {
+        dialog.setText(text);
+    }
+
+    /**
+     * Shows or hides the pending style, used while a reply is still being computed.
+     *
+     * @param isPending true to show the dialog box as pending
+     */
+    public void setPending(boolean isPending) {
+        if (isPending) {
+            if (!dialog.getStyleClass().contains("pending-label")) {
+                dialog.getStyleClass().add("pending-label");
+            }
+        } else {
+            dialog.getStyleClass().remove("pending-label");
+        }
+    }
+
     public static DialogBox getUserDialog(String text, Image img) {
         return new DialogBox(text, img);
     }
@@ -0,0 +1,84 @@
+package megabot;
+
+import java.util.function.Consumer;
+
+import javafx.scene.control.Button;
+import javafx.scene.control.ListCell;
+import javafx.scene.image.Image;
+import javafx.scene.layout.VBox;
+import megabot.gui.Gui;
+import megabot.jfr.GuiRenderEvent;
+import megabot.jfr.JfrEvents;
+
+/**
+ * A reusable cell of the chat view.
+ * The list view only creates enough cells to fill the window and reuses them while scrolling,
+ * so each cell builds one dialog box per speaker once and only swaps in the text of the message it shows.
+ * A reply that shows one page of a long task list also gets a button that asks for the next page.
+ */
+public class DialogCell extends ListCell<ChatMessage> {
+    private final DialogBox userDialog;
+    private final DialogBox megabotDialog;
+    private final Button showMoreButton = new Button("Show more");
+    private final VBox megabotReply;
+    private String nextPageCommand;
+
+    /**
+     * Constructs a DialogCell with the display pictures of both speakers.
+     *
+     * @param userImage the display picture of the user
+     * @param megabotImage the display picture of MegaBot
+     * @param commandSender sends a command on behalf of the user, used to fetch the next page of a list
+     */
+    public DialogCell(Image userImage, Image megabotImage, Consumer<String> commandSender) {
+        userDialog = DialogBox.getUserDialog("", userImage);
+        megabotDialog = DialogBox.getMegaBotDialog("", megabotImage);
+        showMoreButton.getStyleClass().add("show-more-button");
+        showMoreButton.setOnAction(event -> {
+            if (nextPageCommand != null) {
+                commandSender.accept(nextPageCommand);
+            }
+        });
+        megabotReply = new VBox(megabotDialog, showMoreButton);
+        // Take the width of the list instead of the text, so that long replies wrap
+        setPrefWidth(0);
+    }
+
+    @Override
+    protected void updateItem(ChatMessage message, boolean isEmpty) {
+        super.updateItem(message, isEmpty);
+
+        if (isEmpty || message == null) {
+            setGraphic(null);
+            return;
+        }
+
+        GuiRenderEvent event = null;
+        if (JfrEvents.ENABLED) {
+            event = new GuiRenderEvent();
+            event.begin();
+        }
+
+        showMessage(message);
+
+        if (event != null) {
+            event.finish(message.getSpeaker().name(), message.getText().length());
+        }
+    }
+
+    private void showMessage(ChatMessage message) {
+        if (message.getSpeaker() == ChatMessage.Speaker.USER) {
+            userDialog.setText(message.getText());
+            userDialog.setPending(false);
+            setGraphic(userDialog);
+            return;
+        }
+
+        megabotDialog.setText(message.getText());
+        megabotDialog.setPending(message.isPending());
+        nextPageCommand = message.isPending() ? null : Gui.getNextPageCommand(message.getText());
+        showMoreButton.setVisible(nextPageCommand != null);
+        showMoreButton.setManaged(nextPageCommand != null);
+        setGraphic(megabotReply);
+    }
+}
@@ -1,12 +1,22 @@
 package megabot;
 
+import java.util.Arrays;
+
 import javafx.application.Application;
+import megabot.cli.ScriptRunner;
+import megabot.log.Log;
 
 /**
  * A launcher class to workaround classpath issues.
+ * Passing {@code --script} runs the commands in batch mode without starting the GUI.
  */
 public class Launcher {
     public static void main(String[] args) {
+        Log.installAsyncHandlers();
+        if (Arrays.asList(args).contains("--script")) {
+            ScriptRunner.main(args);
+            return;
+        }
         Application.launch(Main.class, args);
     }
 }
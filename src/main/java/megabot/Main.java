@@ -3,6 +3,7 @@ package megabot;
 import java.io.IOException;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.layout.AnchorPane;
@@ -12,8 +13,10 @@ import javafx.stage.Stage;
  * A GUI for Duke using FXML.
  */
 public class Main extends Application {
+    /** When set, the application exits as soon as the window is shown, to measure cold start time. */
+    private static final String EXIT_ON_SHOW_PROPERTY = "megabot.exitOnShow";
 
-    private final MegaBot megabot = new MegaBot("./data/megabot.txt");
+    private MegaBot megabot;
 
     @Override
     public void start(Stage stage) {
@@ -25,10 +28,39 @@ public class Main extends Application {
             stage.setMinHeight(220);
             stage.setMinWidth(417);
             stage.setTitle("MegaBot");
-            fxmlLoader.<MainWindow>getController().setMegaBot(megabot); // inject the instance
+            MainWindow window = fxmlLoader.getController();
+            // Tasks load in the background, so the window is shown without waiting for them
+            megabot = new MegaBot("./data/megabot.txt", window::showLoadProgress);
+            window.setMegaBot(megabot); // inject the instance
+            watchDataFile(window);
             stage.show();
+            if (Boolean.getBoolean(EXIT_ON_SHOW_PROPERTY)) {
+                Platform.exit();
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Picks up edits made to the data file outside MegaBot while it runs, and tells the user about them.
+     * Without a watcher, saving still refuses to overwrite such edits and merges them first.
+     */
+    private void watchDataFile(MainWindow window) {
+        try {
+            megabot.watchDataFile(window::showNotice);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Waits for submitted commands to finish and be saved before the application exits.
+     */
+    @Override
+    public void stop() {
+        if (megabot != null) {
+            megabot.shutdown();
+        }
+    }
 }
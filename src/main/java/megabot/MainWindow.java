@@ -1,14 +1,15 @@
 package megabot;
 
+import java.nio.file.Path;
+
 import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
 import javafx.util.Duration;
 import megabot.gui.Gui;
 
@@ -16,16 +17,21 @@ import megabot.gui.Gui;
  * Controller for the main GUI.
  */
 public class MainWindow extends AnchorPane {
+    /** Number of messages kept in the chat view; older ones are moved to {@link #CHAT_HISTORY_FILE}. */
+    private static final int MAX_MESSAGES = 500;
+    private static final int SPILL_BATCH_SIZE = 100;
+    private static final Path CHAT_HISTORY_FILE = Path.of("./data/chat-history.txt");
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<ChatMessage> dialogList;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
 
     private MegaBot megabot;
+    private ChatHistory history;
+    private ChatMessage loadingMessage;
 
     private Image userImage = new Image(this.getClass().getResourceAsStream("/images/nezha2.png"));
     private Image megabotImage = new Image(this.getClass().getResourceAsStream("/images/megadino.png"));
@@ -36,9 +42,9 @@ public class MainWindow extends AnchorPane {
     @FXML
     public void initialize() {
         userInput.clear();
-        String welcomeMessage = Gui.showWelcome();
-        dialogContainer.getChildren().add(DialogBox.getMegaBotDialog(welcomeMessage, megabotImage));
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        history = new ChatHistory(dialogList.getItems(), MAX_MESSAGES, SPILL_BATCH_SIZE, CHAT_HISTORY_FILE);
+        dialogList.setCellFactory(list -> new DialogCell(userImage, megabotImage, this::sendCommand));
+        addMessage(ChatMessage.fromMegaBot(Gui.showWelcome()));
     }
 
     /** Injects the MegaBot instance */
@@ -47,9 +53,41 @@ public class MainWindow extends AnchorPane {
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and
-     * the other containing MegaBot's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * Shows how far loading tasks has got, updating a single message in place.
+     * Safe to call from any thread.
+     *
+     * @param progress the latest progress report
+     */
+    public void showLoadProgress(TaskLoader.Progress progress) {
+        ChatMessage message = ChatMessage.fromMegaBot(Gui.showLoadProgress(progress));
+        Platform.runLater(() -> {
+            // The old message may already have been moved out to the history file
+            if (loadingMessage == null || !history.replace(loadingMessage, message)) {
+                addMessage(message);
+            }
+            loadingMessage = message;
+        });
+    }
+
+    /**
+     * Shows a message from MegaBot that is not a reply to a command.
+     * Safe to call from any thread.
+     *
+     * @param text the message
+     */
+    public void showNotice(String text) {
+        ChatMessage message = ChatMessage.fromMegaBot(text);
+        Platform.runLater(() -> addMessage(message));
+    }
+
+    private void addMessage(ChatMessage message) {
+        history.add(message);
+        dialogList.scrollTo(history.size() - 1);
+    }
+
+    /**
+     * Adds the user input and MegaBot's reply to the conversation.
+     * Clears the user input after processing.
      */
     @FXML
     private void handleUserInput() {
@@ -57,23 +95,35 @@ public class MainWindow extends AnchorPane {
 
         if (input.equalsIgnoreCase("bye")) {
             String exitMessage = Gui.showGoodbye();
-            dialogContainer.getChildren().addAll(
-                    DialogBox.getUserDialog(input, userImage),
-                    DialogBox.getMegaBotDialog(exitMessage, megabotImage)
-            );
+            addMessage(ChatMessage.fromUser(input));
+            addMessage(ChatMessage.fromMegaBot(exitMessage));
             PauseTransition pause = new PauseTransition(Duration.seconds(1));
             pause.setOnFinished(event -> {
                 Platform.exit();
             });
             pause.play();
         } else {
-            String response = megabot.getResponse(input);
-            dialogContainer.getChildren().addAll(
-                    DialogBox.getUserDialog(input, userImage),
-                    DialogBox.getMegaBotDialog(response, megabotImage)
-            );
+            sendCommand(input);
         }
 
         userInput.clear();
     }
+
+    /**
+     * Adds the command to the conversation and runs it, filling in MegaBot's reply once it is ready.
+     *
+     * @param input the command to run
+     */
+    private void sendCommand(String input) {
+        // Commands run on MegaBot's writer thread so that the window stays responsive.
+        // Each reply fills in its own placeholder, so replies appear in the order commands were sent.
+        ChatMessage pendingReply = ChatMessage.pendingReply();
+        addMessage(ChatMessage.fromUser(input));
+        addMessage(pendingReply);
+
+        megabot.submit(input).whenComplete((response, error) -> Platform.runLater(() -> {
+            String text = error == null ? response : "OOPSIE!! " + error.getMessage();
+            history.replace(pendingReply, ChatMessage.fromMegaBot(text));
+        }));
+    }
 }
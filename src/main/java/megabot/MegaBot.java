@@ -1,9 +1,22 @@
 package megabot;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+import megabot.archive.TaskTiering;
+import megabot.engine.CommandEngine;
+import megabot.exception.ExternalChangeException;
 import megabot.exception.MegabotException;
 import megabot.gui.Gui;
+import megabot.log.Log;
+import megabot.sync.DataFileWatcher;
+import megabot.sync.ExternalEdits;
+import megabot.task.Command;
+import megabot.task.Task;
 import megabot.task.TaskList;
 
 /**
@@ -14,12 +27,26 @@ import megabot.task.TaskList;
  * @version 1.0
  */
 public class MegaBot {
+    private static final Log LOG = Log.get(MegaBot.class);
+    private static final String LOAD_FAILED_MESSAGE = "OOPSIE!! I couldn't load your tasks, so I won't save any "
+            + "changes over your data file. Please fix the file and restart me.";
+
     private final Storage storage;
     private TaskList tasks;
     private Gui gui;
+    private CommandEngine engine;
+    private TaskLoader loader;
+    private TaskTiering tiering;
+    private DataFileWatcher watcher;
+    /** Completes once loaded tasks are in the task list; already complete unless loading in the background. */
+    private CompletableFuture<Void> loading = CompletableFuture.completedFuture(null);
+    private volatile boolean isLoaded = true;
+    private volatile boolean isLoadFailed;
+    private boolean hasQueuedChanges;
 
     /**
      * Constructs a MegaBot instance with the specified file path for task storage.
+     * Once loaded, done tasks older than {@link TaskTiering#THRESHOLD_DAYS_PROPERTY} days move to cold storage.
      *
      * @param filePath the path to the file where tasks are stored
      */
@@ -27,9 +54,10 @@ public class MegaBot {
         assert filePath != null && !filePath.trim().isEmpty() : "File path cannot be null or empty";
 
         storage = new Storage(filePath);
+        tiering = TaskTiering.fromProperties(filePath);
 
         try {
-            tasks = new TaskList(storage.load());
+            tasks = new TaskList(moveColdTasks(storage.load()));
             gui = new Gui(tasks, storage);
         } catch (MegabotException e) {
             gui.showLoadingError();
@@ -37,9 +65,100 @@ public class MegaBot {
         }
     }
 
+    /**
+     * Constructs a MegaBot that loads its tasks on a background thread and returns immediately.
+     * Until loading finishes, commands that change tasks are queued and run once every task is loaded.
+     * Read-only commands are answered straight away from the tasks loaded so far, marked as partial,
+     * unless a change is already queued ahead of them.
+     * Once loaded, done tasks older than {@link TaskTiering#THRESHOLD_DAYS_PROPERTY} days move to cold storage.
+     *
+     * @param filePath the path to the file where tasks are stored
+     * @param progressListener told about loading progress on the loading thread
+     */
+    public MegaBot(String filePath, Consumer<TaskLoader.Progress> progressListener) {
+        assert filePath != null && !filePath.trim().isEmpty() : "File path cannot be null or empty";
+
+        storage = new Storage(filePath);
+        tasks = new TaskList();
+        gui = new Gui(tasks, storage);
+        isLoaded = false;
+        tiering = TaskTiering.fromProperties(filePath);
+        loader = new TaskLoader(storage, progressListener);
+        loading = loader.getResult().handle((loaded, error) -> {
+            finishLoading(loaded == null ? null : moveColdTasks(loaded));
+            return null;
+        });
+        loader.start();
+    }
+
+    /**
+     * Moves old done tasks to cold storage before any command can see the loaded tasks,
+     * and saves the rest, so that later saves only write the tasks still in the list.
+     *
+     * @param loaded the loaded tasks, changed in place
+     * @return the loaded tasks
+     */
+    private ArrayList<Task> moveColdTasks(ArrayList<Task> loaded) {
+        if (tiering == null) {
+            return loaded;
+        }
+        try {
+            if (tiering.moveColdTasks(loaded) > 0) {
+                storage.save(loaded);
+            }
+        } catch (IOException e) {
+            // The tasks stay in the list, and moving them is tried again on the next start
+            LOG.atWarning().with("reason", e.getMessage()).log("tiering_failed");
+        }
+        return loaded;
+    }
+
+    /**
+     * Moves the loaded tasks into the live task list and lets the engine run the commands queued meanwhile.
+     * If loading failed, the task list stays empty and every command that changes tasks fails from now on,
+     * so that the data file is never overwritten by the empty list.
+     *
+     * @param loaded the loaded tasks, or null if loading failed
+     */
+    private synchronized void finishLoading(ArrayList<Task> loaded) {
+        if (loaded != null) {
+            tasks.getTasks().addAll(loaded);
+        } else {
+            isLoadFailed = true;
+        }
+        isLoaded = true;
+        if (engine != null) {
+            startEngine();
+        }
+    }
+
+    private void startEngine() {
+        if (isLoadFailed) {
+            engine.rejectChanges(new MegabotException(LOAD_FAILED_MESSAGE));
+        }
+        engine.start();
+    }
+
+    /**
+     * Returns whether every task has been loaded.
+     *
+     * @return true once loading has finished, successfully or not
+     */
+    public boolean isLoaded() {
+        return isLoaded;
+    }
+
+    /**
+     * Waits until every task has been loaded, or loading has failed.
+     */
+    public void awaitLoaded() {
+        loading.join();
+    }
+
     /**
      * Generates a response for the user's input (for GUI use).
      * This method processes user commands and returns appropriate responses.
+     * Changes made to the data file outside MegaBot are merged in first, and the response says so.
      *
      * @param input the user input string
      * @return the response message from MegaBot
@@ -47,22 +166,189 @@ public class MegaBot {
     public String getResponse(String input) {
         assert input != null : "User input cannot be null";
 
+        awaitLoaded();
+        if (isLoadFailed && !Command.fromString(input).isReadOnly()) {
+            return LOAD_FAILED_MESSAGE;
+        }
+        String notice = mergeExternalChanges();
+        String response;
         try {
-            return gui.handleCommand(input);
+            response = gui.handleCommand(input);
         } catch (MegabotException e) {
-            return e.getMessage();
+            response = e.getMessage();
         } finally {
             // Save tasks after each command (for GUI)
             saveTasksToFile();
         }
+        return notice == null ? response : notice + "\n" + response;
+    }
+
+    /**
+     * Starts watching the data file for changes made outside MegaBot, e.g. in a text editor.
+     * Changes are merged into the task list on the writer thread of {@link #getEngine()} as soon as they are
+     * saved, so use together with {@link #submit(String)}.
+     *
+     * @param noticeListener told on the writer thread what was picked up, as a message for the user
+     * @throws IOException if the data file cannot be watched
+     */
+    public void watchDataFile(Consumer<String> noticeListener) throws IOException {
+        Path dataPath = Path.of(storage.getFilePath());
+        Files.createDirectories(dataPath.toAbsolutePath().getParent());
+        getEngine().addExternalChangeListener(result -> noticeListener.accept(Gui.showExternalChanges(result)));
+        watcher = new DataFileWatcher(dataPath, () -> {
+            try {
+                // MegaBot's own saves are seen by the watcher too; only the stamp is checked, since an edit
+                // that keeps it is caught before the next save
+                if (storage.hasStampChanged()) {
+                    getEngine().submitExternalMerge();
+                }
+            } catch (IOException e) {
+                LOG.atWarning().with("reason", e.getMessage()).log("external_change_check_failed");
+            }
+        });
+        watcher.start();
+    }
+
+    /**
+     * Submits a command to be executed on the single writer thread and returns immediately.
+     * Changes are saved in batches, and the future completes once the change has been saved.
+     * Do not mix with {@link #getResponse(String)}, which changes the tasks on the calling thread.
+     * While tasks are still loading, read-only commands are answered from the tasks loaded so far.
+     *
+     * @param input the user input string
+     * @return a future completed with the response message
+     */
+    public CompletableFuture<String> submit(String input) {
+        assert input != null : "User input cannot be null";
+
+        if (!isLoaded) {
+            synchronized (this) {
+                if (!isLoaded) {
+                    if (Command.fromString(input).isReadOnly() && !hasQueuedChanges) {
+                        return CompletableFuture.supplyAsync(() -> respondFromSnapshot(input));
+                    }
+                    // Later reads must see this change, so they queue behind it from now on
+                    hasQueuedChanges = true;
+                }
+            }
+        }
+        return getEngine().submit(input);
+    }
+
+    /**
+     * Answers a read-only command from a copy of the tasks loaded so far.
+     *
+     * @param input the user input string
+     * @return the response message, after a marker line if not every task was loaded
+     */
+    private String respondFromSnapshot(String input) {
+        // Loading publishes every task before it completes, so a snapshot taken after this is whole
+        boolean isComplete = loader.isDone();
+        TaskList snapshot = new TaskList(loader.getSnapshot());
+        String response;
+        try {
+            response = new Gui(snapshot, storage).handleCommand(input);
+        } catch (MegabotException e) {
+            response = e.getMessage();
+        }
+        return isComplete ? response : Gui.showPartialSnapshotNotice(snapshot.size()) + response;
+    }
+
+    /**
+     * Returns the engine that executes submitted commands, creating it on first use.
+     * The engine is started once every task is loaded; until then, submitted commands wait in its buffer.
+     *
+     * @return the command engine
+     */
+    public synchronized CommandEngine getEngine() {
+        if (engine == null) {
+            engine = new CommandEngine(tasks, storage, CommandEngine.DEFAULT_CAPACITY);
+            if (isLoaded) {
+                startEngine();
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Stops the command engine, if started, after it has finished and saved all submitted commands.
+     * If tasks are still loading, waits for them first so that queued commands are not lost.
+     * Finally writes a state image of the tasks, so that the next start can skip parsing the data file.
+     */
+    public void shutdown() {
+        awaitLoaded();
+        synchronized (this) {
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    LOG.atWarning().with("reason", e.getMessage()).log("watcher_close_failed");
+                }
+            }
+            if (engine != null) {
+                engine.close();
+            }
+            // After a failed load the task list does not match the data file
+            if (!isLoadFailed) {
+                try {
+                    storage.saveImage(tasks.getTasks());
+                } catch (IOException | RuntimeException e) {
+                    LOG.atWarning().with("reason", e.getMessage()).log("state_image_save_failed");
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the live task list managed by this MegaBot.
+     *
+     * @return the task list
+     */
+    public TaskList getTaskList() {
+        return tasks;
+    }
+
+    /**
+     * Returns the storage this MegaBot loads tasks from and saves tasks to.
+     *
+     * @return the storage
+     */
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Merges changes made to the data file outside MegaBot into the task list, on the calling thread.
+     *
+     * @return the message telling the user what was picked up, or null if nothing was
+     */
+    private String mergeExternalChanges() {
+        try {
+            ExternalEdits.Result result = ExternalEdits.merge(tasks, storage);
+            return result.hasChanges() || result.getInvalidCount() > 0 ? Gui.showExternalChanges(result) : null;
+        } catch (IOException e) {
+            // Saving refuses to overwrite the changes, so they are not lost
+            gui.showError("An error occurred when reading changes to the file: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
      * Saves all tasks to the storage file.
+     * If the file was changed outside MegaBot in the meantime, the changes are merged in first.
      */
     private void saveTasksToFile() {
+        if (isLoadFailed) {
+            // The task list does not hold the tasks in the file
+            return;
+        }
         try {
-            storage.save(tasks.getTasks());
+            try {
+                storage.save(tasks.getTasks());
+            } catch (ExternalChangeException e) {
+                mergeExternalChanges();
+                storage.save(tasks.getTasks());
+            }
         } catch (IOException e) {
             gui.showError("An error occurred when writing to file: " + e.getMessage());
         }
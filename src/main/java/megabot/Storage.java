@@ -2,15 +2,38 @@ package megabot;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
 import java.util.Scanner;
-import java.util.logging.Logger;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
 
+import megabot.exception.ExternalChangeException;
 import megabot.exception.MegabotException;
+import megabot.jfr.JfrEvents;
+import megabot.jfr.StorageLoadEvent;
+import megabot.jfr.StorageSaveEvent;
+import megabot.log.Log;
+import megabot.log.LogSampler;
+import megabot.metrics.MetricsRegistry;
+import megabot.sync.LineDiff;
 import megabot.task.Deadline;
 import megabot.task.Event;
+import megabot.task.StateImage;
 import megabot.task.Task;
 import megabot.task.ToDo;
 
@@ -19,11 +42,23 @@ import megabot.task.ToDo;
  * Handles the loading and saving of tasks to and from a file.
  * Manages file I/O operations and task serialization/deserialization.
  *
+ * <p>Storage remembers the size and last modified time of the file as it last read or wrote it, its checksum
+ * while the time alone cannot tell a later write apart, and a hash of each of its lines. It refuses to save
+ * over a file that has changed since, so that changes made outside MegaBot can be merged into the task list
+ * by {@link megabot.sync.ExternalEdits} instead of being overwritten.
+ *
  * @author Xu Yong Lin
  * @version 1.0
  */
 public class Storage {
-    private static final Logger LOGGER = Logger.getLogger(Storage.class.getName());
+    /** Number of lines between two progress reports to a {@link LoadListener}. */
+    public static final int PROGRESS_INTERVAL = 10_000;
+    /** Appended to the name of the data file to get the name of its state image. */
+    public static final String IMAGE_SUFFIX = ".img";
+
+    private static final Log LOG = Log.get(Storage.class);
+    /** Logs progress once every so many lines, instead of once per line. */
+    private static final LogSampler LOADED_LINE_SAMPLER = LogSampler.every(10_000);
     private static final int TYPE_INDEX = 0;
     private static final int MIN_TASK_PARTS = 3;
     private static final int TASK_PARTS_WITH_DATE = 4;
@@ -33,24 +68,52 @@ public class Storage {
     private static final int DATE_INDEX = 3;
 
     private final String filePath;
+    private final Path imagePath;
+    /** The data file as this Storage last read or wrote it, or null until it has. */
+    private FileStamp savedStamp;
+    /** Hashes of the non-blank lines of the file as last read or written, including lines that are not tasks. */
+    private long[] savedLineHashes = new long[0];
+    /** Index in {@link #savedLineHashes} of the line each task was read from, or null if line i holds task i. */
+    private int[] savedTaskLines;
+    /** Hashes of the lines the same tasks save as, which differ where loading normalised a line. */
+    private long[] savedTaskHashes = savedLineHashes;
 
     /**
      * Constructs a Storage object with the specified file path.
+     * The state image, if any, is kept next to the file with {@link #IMAGE_SUFFIX} appended to its name.
      *
      * @param filePath the path to the file where tasks are stored
      */
     public Storage(String filePath) {
         this.filePath = filePath;
+        this.imagePath = Path.of(filePath + IMAGE_SUFFIX);
+    }
+
+    public String getFilePath() {
+        return filePath;
     }
 
     /**
      * Loads tasks from the storage file.
      * If the file does not exist, returns an empty list.
+     * If a state image written from the file as it is now exists, the tasks are read from the image instead.
      *
      * @return an ArrayList of tasks loaded from the file
      * @throws MegabotException if there is an error parsing tasks from the file
      */
     public ArrayList<Task> load() throws MegabotException {
+        return load(null);
+    }
+
+    /**
+     * Loads tasks from the storage file, reporting progress every {@link #PROGRESS_INTERVAL} lines.
+     * If the file does not exist, returns an empty list.
+     *
+     * @param listener the listener told about progress on the loading thread, or null
+     * @return an ArrayList of tasks loaded from the file
+     * @throws MegabotException if there is an error parsing tasks from the file
+     */
+    public ArrayList<Task> load(LoadListener listener) throws MegabotException {
         /*
         ArrayList<Task> tasks = new ArrayList<>();
 
@@ -77,15 +140,24 @@ public class Storage {
 
         return tasks;
          */
+        StorageLoadEvent event = null;
+        if (JfrEvents.ENABLED) {
+            event = new StorageLoadEvent();
+            event.begin();
+        }
+        long startTime = System.nanoTime();
         ArrayList<Task> tasks = new ArrayList<>();
-        int lineNumber = 0;
         int invalidTaskCount = 0;
+        boolean isFromImage = false;
 
         try {
             File file = new File(filePath);
 
+            // Stamped before reading, so that a change made while reading is noticed afterwards
+            FileStamp stamp = FileStamp.read(file.toPath());
             if (!file.exists()) {
-                LOGGER.info("File does not exist, starting with empty task list: " + filePath);
+                LOG.atInfo().with("path", filePath).log("storage_file_missing");
+                recordSaved(stamp, new long[0], null, new long[0]);
                 return tasks;
             }
 
@@ -94,60 +166,121 @@ public class Storage {
                         + ". Please check file permissions.");
             }
 
-            Scanner scanner = new Scanner(file);
-
-            while (scanner.hasNextLine()) {
-                lineNumber++;
-                String line = scanner.nextLine();
-
-                // Skip empty lines
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-
-                try {
-                    Task task = parseTaskFromFile(line);
-                    if (task != null) {
-                        tasks.add(task);
-                        LOGGER.fine("Successfully loaded task from line " + lineNumber);
-                    }
-                } catch (MegabotException e) {
-                    invalidTaskCount++;
-                    LOGGER.warning("Invalid task on line " + lineNumber + ": " + e.getMessage());
-
-                    // Continue loading other tasks instead of failing completely
-                    if (invalidTaskCount > 10) {
-                        scanner.close();
-                        throw new MegabotException("OOPSIE!! Too many invalid tasks in file. "
-                                + "Please check your data file format.");
-                    }
-                }
+            StateImage.Contents image = readImage();
+            if (image != null) {
+                tasks = image.getTasks();
+                isFromImage = true;
+                // An image is written after a save, so the file holds the lines the tasks save as
+                recordSaved(stamp, image.getLineHashes(), null, image.getLineHashes());
+            } else {
+                LineHashes hashes = new LineHashes();
+                invalidTaskCount = readLines(file, tasks, listener, hashes);
+                long[] lineHashes = hashes.toArray();
+                // Differ from the lines where loading normalised one, e.g. a date
+                long[] taskHashes = hashTasks(tasks);
+                recordSaved(stamp, Arrays.equals(lineHashes, taskHashes) ? taskHashes : lineHashes,
+                        hashes.getTaskLines(), taskHashes);
             }
-            scanner.close();
 
-            if (invalidTaskCount > 0) {
-                LOGGER.warning("Loaded " + tasks.size() + " valid tasks, skipped "
-                        + invalidTaskCount + " invalid tasks.");
-            }
         } catch (FileNotFoundException e) {
-            LOGGER.info("File not found, starting with empty task list: " + filePath);
+            LOG.atInfo().with("path", filePath).log("storage_file_missing");
         } catch (Exception e) {
             throw new MegabotException("OOPSIE!! Unexpected error loading tasks: " + e.getMessage());
         }
 
-        LOGGER.info("Successfully loaded " + tasks.size() + " tasks from file");
+        long elapsedNanos = System.nanoTime() - startTime;
+        LOG.at(invalidTaskCount > 0 ? Level.WARNING : Level.INFO).with("tasks", tasks.size())
+                .with("invalid", invalidTaskCount).with("source", isFromImage ? "image" : "text")
+                .with("millis", elapsedNanos / 1_000_000).log("storage_loaded");
+        MetricsRegistry.getGlobal().recordLoad(elapsedNanos, tasks.size());
+        if (event != null) {
+            event.finish(filePath, tasks.size(), new File(filePath).length(), invalidTaskCount);
+        }
         return tasks;
     }
 
+    /**
+     * Parses every line of the data file into tasks.
+     *
+     * @param file the data file
+     * @param tasks the list the tasks are added to
+     * @param listener the listener told about progress, or null
+     * @param lineHashes the hash of each non-blank line, and which of them hold the tasks added
+     * @return the number of invalid lines skipped
+     * @throws FileNotFoundException if the file cannot be opened
+     * @throws MegabotException if too many lines are invalid
+     */
+    private int readLines(File file, ArrayList<Task> tasks, LoadListener listener, LineHashes lineHashes)
+            throws FileNotFoundException, MegabotException {
+        int lineNumber = 0;
+        int invalidTaskCount = 0;
+        long bytesRead = 0;
+        long totalBytes = file.length();
+        Scanner scanner = new Scanner(file);
+
+        while (scanner.hasNextLine()) {
+            // Reported before reading the next line, once the previous lines have all been parsed
+            if (listener != null && lineNumber > 0 && lineNumber % PROGRESS_INTERVAL == 0) {
+                listener.onProgress(tasks, Math.min(bytesRead, totalBytes), totalBytes);
+            }
+            lineNumber++;
+            String line = scanner.nextLine();
+            // Counts characters as bytes, which is exact for the ASCII the file is normally made of
+            bytesRead += line.length() + 1;
+
+            // Skip empty lines
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            boolean isTask = false;
+            try {
+                Task task = parseTaskFromFile(line);
+                if (task != null) {
+                    tasks.add(task);
+                    isTask = true;
+                    LOG.at(Level.FINE, LOADED_LINE_SAMPLER).with("line", lineNumber).log("storage_line_loaded");
+                }
+            } catch (MegabotException e) {
+                invalidTaskCount++;
+                LOG.atWarning().with("line", lineNumber).with("reason", e.getMessage()).log("storage_line_invalid");
+
+                // Continue loading other tasks instead of failing completely
+                if (invalidTaskCount > 10) {
+                    scanner.close();
+                    throw new MegabotException("OOPSIE!! Too many invalid tasks in file. "
+                            + "Please check your data file format.");
+                }
+            }
+            // Lines that are not tasks are part of the file too, so that a merge can tell they did not change
+            lineHashes.add(LineDiff.hash(line), isTask);
+        }
+        scanner.close();
+        return invalidTaskCount;
+    }
+
 
     /**
      * Saves the given list of tasks to the storage file.
      * Creates the directory structure if it doesn't exist.
      *
      * @param tasks the list of tasks to save
+     * @throws ExternalChangeException if the file was changed outside MegaBot since this Storage last read
+     *     or wrote it, in which case nothing is written
      * @throws IOException if there is an error writing to the file
      */
-    public void save(ArrayList<Task> tasks) throws IOException {
+    public synchronized void save(ArrayList<Task> tasks) throws IOException {
+        if (isChangedOnDisk()) {
+            throw new ExternalChangeException(filePath);
+        }
+
+        StorageSaveEvent event = null;
+        if (JfrEvents.ENABLED) {
+            event = new StorageSaveEvent();
+            event.begin();
+        }
+        long startTime = System.nanoTime();
+
         // Create directory if it doesn't exist
         File file = new File(filePath);
         File parentDir = file.getParentFile();
@@ -155,23 +288,213 @@ public class Storage {
             parentDir.mkdirs();
         }
 
-        FileWriter writer = new FileWriter(filePath);
-        for (Task task : tasks) {
-            writer.write(task.formatData());
+        long[] hashes = new long[tasks.size()];
+        // The checksum of the bytes as they are written, so that the file never has to be read back
+        CRC32C crc = new CRC32C();
+        Writer writer = new OutputStreamWriter(new CheckedOutputStream(new FileOutputStream(filePath), crc),
+                Charset.defaultCharset());
+        for (int i = 0; i < hashes.length; i++) {
+            String line = tasks.get(i).formatData();
+            writer.write(line);
             writer.write("\n");
+            hashes[i] = LineDiff.hash(line);
         }
         writer.close();
+        recordSaved(FileStamp.of(file.toPath()).withChecksum((int) crc.getValue()), hashes, null, hashes);
+
+        long byteCount = file.length();
+        MetricsRegistry.getGlobal().recordSave(System.nanoTime() - startTime, byteCount);
+        if (event != null) {
+            event.finish(filePath, tasks.size(), byteCount);
+        }
+    }
+
+    /**
+     * Returns the hash of the line each task is saved as.
+     *
+     * @param tasks the tasks
+     * @return one {@link LineDiff#hash(CharSequence)} per task, in order
+     */
+    public static long[] hashTasks(List<Task> tasks) {
+        long[] hashes = new long[tasks.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = LineDiff.hash(tasks.get(i).formatData());
+        }
+        return hashes;
+    }
+
+    /**
+     * Returns whether the data file has been changed by something other than this Storage since it last
+     * read or wrote it. The size and last modified time of the file are compared, and the file is only read
+     * to compare its checksum while its last modified time is too recent to tell a later write apart.
+     *
+     * @return true if saving now would overwrite changes made outside MegaBot
+     * @throws IOException if the file cannot be checked
+     */
+    public synchronized boolean isChangedOnDisk() throws IOException {
+        if (hasStampChanged()) {
+            return true;
+        }
+        if (savedStamp == null || !savedStamp.isRacy()) {
+            return false;
+        }
+        // Stamped before reading, so that a write made while reading moves the time on
+        Path path = Path.of(filePath);
+        FileStamp current = FileStamp.of(path);
+        if (!savedStamp.isSameAs(current) || StateImage.checksum(path) != savedStamp.checksum) {
+            return true;
+        }
+        if (!current.isRacy()) {
+            // Any later write gets a later time, so the contents need not be read again
+            savedStamp = current;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the size or last modified time of the data file differ from when this Storage last read
+     * or wrote it. Unlike {@link #isChangedOnDisk()} the file is never read, so this suits checking after every
+     * file system event; an edit that keeps both is still caught by the check before the next save.
+     *
+     * @return true if the data file was changed outside MegaBot
+     * @throws IOException if the file cannot be checked
+     */
+    public synchronized boolean hasStampChanged() throws IOException {
+        return savedStamp != null && !savedStamp.isSameAs(FileStamp.of(Path.of(filePath)));
+    }
+
+    /**
+     * Returns the hashes of the lines of the file as this Storage last read or wrote it,
+     * to find what was changed in the file since.
+     * Lines that are not tasks are included, blank lines are not.
+     *
+     * @return one hash per non-blank line, in order
+     */
+    public synchronized long[] getSavedLineHashes() {
+        return savedLineHashes;
+    }
+
+    /**
+     * Returns which of the lines of {@link #getSavedLineHashes()} the tasks read or saved at the same time
+     * came from.
+     *
+     * @return the index of the line of each task, in order, or null if every line holds a task
+     */
+    public synchronized int[] getSavedTaskLines() {
+        return savedTaskLines;
+    }
+
+    /**
+     * Returns the hashes of the lines the tasks read or saved at the same time save as,
+     * to find what was changed in the task list since.
+     * These only differ from {@link #getSavedLineHashes()} where loading rewrote a line, e.g. a date.
+     *
+     * @return one hash per task that was read or saved, in order
+     */
+    public synchronized long[] getSavedTaskHashes() {
+        return savedTaskHashes;
+    }
+
+    /**
+     * Reads the data file as it is now, so that changes made to it outside MegaBot can be merged.
+     * Blank lines are left out, like {@link #load()} leaves them out.
+     *
+     * @return the non-blank lines of the file, none if it does not exist
+     * @throws IOException if the file cannot be read
+     */
+    public DiskContent readDiskContent() throws IOException {
+        Path path = Path.of(filePath);
+        // Stamped before reading, so that a change made while reading is noticed again afterwards
+        FileStamp stamp = FileStamp.of(path);
+        List<String> lines = new ArrayList<>();
+        if (stamp.size >= 0) {
+            byte[] bytes = Files.readAllBytes(path);
+            CRC32C crc = new CRC32C();
+            crc.update(bytes);
+            stamp = stamp.withChecksum((int) crc.getValue());
+            new String(bytes, Charset.defaultCharset()).lines().filter(line -> !line.trim().isEmpty())
+                    .forEach(lines::add);
+        }
+        return new DiskContent(stamp, lines);
+    }
+
+    /**
+     * Takes the data file as read by {@link #readDiskContent()} as the version this Storage last read,
+     * once its changes are in the task list, so that the merged tasks can be saved over it.
+     *
+     * @param content the file as read
+     * @param taskLines the index of the line of each task the file holds, or null if every line holds a task
+     * @param taskHashes the hash of the line each of those tasks saves as
+     */
+    public synchronized void acceptDiskContent(DiskContent content, int[] taskLines, long[] taskHashes) {
+        recordSaved(content.stamp, content.getHashes(), taskLines, taskHashes);
+    }
+
+    private synchronized void recordSaved(FileStamp stamp, long[] lineHashes, int[] taskLines, long[] taskHashes) {
+        savedStamp = stamp;
+        savedLineHashes = lineHashes;
+        savedTaskLines = taskLines;
+        savedTaskHashes = taskHashes;
+    }
+
+    /**
+     * Writes a state image of the tasks, so that the next load can skip parsing the data file.
+     * Meant to be called on a clean shutdown, once the tasks have been saved with {@link #save(ArrayList)}.
+     * The image is stamped with the data file as this Storage last read or wrote it, not as it is now.
+     * Does nothing if the image is already up to date, the data file does not exist or was changed outside
+     * MegaBot since, or the tasks are not the ones last read or saved.
+     *
+     * @param tasks the tasks, exactly as last saved to the data file
+     * @throws IOException if the image cannot be written
+     */
+    public synchronized void saveImage(ArrayList<Task> tasks) throws IOException {
+        Path dataPath = Path.of(filePath);
+        if (savedStamp == null || savedStamp.size < 0 || StateImage.isFresh(imagePath, dataPath)) {
+            return;
+        }
+        if (isChangedOnDisk()) {
+            // The changes are not in the tasks, and the next load has to read them from the file
+            LOG.atWarning().with("path", filePath).log("storage_image_skipped_changed");
+            return;
+        }
+        long[] taskHashes = hashTasks(tasks);
+        if (!Arrays.equals(taskHashes, savedTaskHashes)) {
+            // E.g. the last save failed, so the file does not hold these tasks
+            LOG.atWarning().with("path", filePath).log("storage_image_skipped_unsaved");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        StateImage.write(imagePath, dataPath, savedStamp.size, savedStamp.modifiedTime.toMillis(), tasks,
+                taskHashes);
+        LOG.atInfo().with("tasks", tasks.size()).with("bytes", Files.size(imagePath))
+                .with("millis", (System.nanoTime() - startTime) / 1_000_000).log("storage_image_saved");
+    }
+
+    /**
+     * Reads the tasks from the state image, if it is still valid for the data file.
+     *
+     * @return the tasks and the hashes of their lines, or null if they have to be parsed from the data file
+     */
+    private StateImage.Contents readImage() {
+        try {
+            return StateImage.readContents(imagePath, Path.of(filePath));
+        } catch (IOException e) {
+            LOG.atWarning().with("reason", e.getMessage()).log("storage_image_unreadable");
+            return null;
+        }
     }
 
     /**
      * Parses a task from a line of text in the file format.
      * Expected format: "TYPE | STATUS | DESCRIPTION [| ADDITIONAL_INFO]"
+     * Also used to decode single lines of a read-only {@link megabot.archive.TaskArchive}.
      *
      * @param line the line of text to parse
      * @return the parsed Task object, or null if the line is invalid
      * @throws MegabotException if there is an error creating the task
      */
-    private Task parseTaskFromFile(String line) throws MegabotException {
+    public static Task parseTaskFromFile(String line) throws MegabotException {
         if (line == null || line.trim().isEmpty()) {
             throw new MegabotException("Empty line found in file");
         }
@@ -222,11 +545,12 @@ public class Storage {
      * @param taskType the task type to validate
      * @return true if valid, false otherwise
      */
-    private boolean isValidTaskType(String taskType) {
+    private static boolean isValidTaskType(String taskType) {
         return "T".equals(taskType) || "D".equals(taskType) || "E".equals(taskType);
     }
 
-    private Task createTaskByType(String taskType, String description, String[] parts) throws MegabotException {
+    private static Task createTaskByType(String taskType, String description, String[] parts)
+            throws MegabotException {
         switch (taskType) {
         case "T":
             return new ToDo(description);
@@ -239,8 +563,6 @@ public class Storage {
             if (parts.length >= TASK_PARTS_WITH_DATE) {
                 // parse the duration string (start-end format)
                 String[] dateParts = parts[DATE_INDEX].split(" to ");
-                LOGGER.info(dateParts[0]);
-                LOGGER.info(dateParts[1]);
                 if (dateParts.length >= 2) {
                     return new Event(description, dateParts[0], dateParts[1]);
                 }
@@ -251,4 +573,152 @@ public class Storage {
         }
         return null;
     }
+
+    /**
+     * Receives progress reports while tasks are loaded.
+     */
+    @FunctionalInterface
+    public interface LoadListener {
+        /**
+         * Called on the loading thread with the tasks loaded so far.
+         *
+         * @param loadedTasks the tasks loaded so far, which must not be changed or kept after the call
+         * @param bytesRead the approximate number of bytes of the file read so far
+         * @param totalBytes the size of the file in bytes
+         */
+        void onProgress(List<Task> loadedTasks, long bytesRead, long totalBytes);
+    }
+
+    /**
+     * The non-blank lines of the data file at one moment, with the size, last modified time and checksum
+     * it had then.
+     */
+    public static class DiskContent {
+        private final FileStamp stamp;
+        private final List<String> lines;
+        private long[] hashes;
+
+        DiskContent(FileStamp stamp, List<String> lines) {
+            this.stamp = stamp;
+            this.lines = lines;
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+
+        /**
+         * Returns the hash of each line, computed on first use.
+         *
+         * @return one {@link LineDiff#hash(CharSequence)} per line, in order
+         */
+        public long[] getHashes() {
+            if (hashes == null) {
+                hashes = new long[lines.size()];
+                for (int i = 0; i < hashes.length; i++) {
+                    hashes[i] = LineDiff.hash(lines.get(i));
+                }
+            }
+            return hashes;
+        }
+    }
+
+    /**
+     * A growable array of line hashes and of the indices of the lines that hold tasks,
+     * which unlike lists of numbers allocates nothing per line.
+     */
+    private static class LineHashes {
+        private long[] hashes = new long[1024];
+        private int[] taskLines = new int[1024];
+        private int size;
+        private int taskCount;
+
+        void add(long hash, boolean isTask) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            if (isTask) {
+                if (taskCount == taskLines.length) {
+                    taskLines = Arrays.copyOf(taskLines, taskCount * 2);
+                }
+                taskLines[taskCount++] = size;
+            }
+            hashes[size++] = hash;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(hashes, size);
+        }
+
+        int[] getTaskLines() {
+            return taskCount == size ? null : Arrays.copyOf(taskLines, taskCount);
+        }
+    }
+
+    /**
+     * The size and last modified time of a file, or the fact that it does not exist.
+     * A write made soon after a file was stamped can keep both, so a stamp taken while the last modified time
+     * was that recent is racy, and one kept to compare against later also holds the
+     * {@link StateImage#checksum(Path)} of the file.
+     */
+    private static class FileStamp {
+        /** How far apart two writes have to be to get different times on file systems that only keep seconds. */
+        private static final long COARSE_RESOLUTION_MILLIS = 2000;
+        /** The same for file systems that keep finer times, which still only move on with the system clock tick. */
+        private static final long FINE_RESOLUTION_MILLIS = 20;
+
+        private final long size;
+        private final FileTime modifiedTime;
+        private final long stampedMillis;
+        private final int checksum;
+
+        private FileStamp(long size, FileTime modifiedTime, long stampedMillis, int checksum) {
+            this.size = size;
+            this.modifiedTime = modifiedTime;
+            this.stampedMillis = stampedMillis;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Returns the size and last modified time of the file, without reading it.
+         */
+        static FileStamp of(Path path) throws IOException {
+            long now = System.currentTimeMillis();
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return new FileStamp(attributes.size(), attributes.lastModifiedTime(), now, 0);
+            } catch (NoSuchFileException e) {
+                return new FileStamp(-1, null, now, 0);
+            }
+        }
+
+        /**
+         * Returns the size and last modified time of the file, and its checksum if the stamp is racy.
+         */
+        static FileStamp read(Path path) throws IOException {
+            FileStamp stamp = of(path);
+            return stamp.isRacy() ? stamp.withChecksum(StateImage.checksum(path)) : stamp;
+        }
+
+        FileStamp withChecksum(int checksum) {
+            return new FileStamp(size, modifiedTime, stampedMillis, checksum);
+        }
+
+        /**
+         * Returns whether the file could be written again without its last modified time changing.
+         */
+        boolean isRacy() {
+            if (size < 0) {
+                return false;
+            }
+            // Times in whole seconds suggest a file system that keeps no more, e.g. FAT only keeps even ones
+            boolean isCoarse = modifiedTime.to(TimeUnit.NANOSECONDS) % 1_000_000_000L == 0;
+            long resolution = isCoarse ? COARSE_RESOLUTION_MILLIS : FINE_RESOLUTION_MILLIS;
+            return modifiedTime.toMillis() + resolution > stampedMillis;
+        }
+
+        boolean isSameAs(FileStamp other) {
+            return size == other.size && Objects.equals(modifiedTime, other.modifiedTime);
+        }
+    }
 }
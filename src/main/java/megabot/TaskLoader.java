@@ -0,0 +1,193 @@
+package megabot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import megabot.exception.MegabotException;
+import megabot.task.Task;
+
+/**
+ * Loads tasks from storage on a background thread, so the window can be shown straight away.
+ * While it runs, the tasks loaded so far can be read as a snapshot, and a listener is told about
+ * progress a few times a second.
+ *
+ * <p>The snapshot is published in chunks: every progress report from {@link Storage} copies the tasks
+ * added since the previous one into a new array, and swaps in a new list of chunks. Readers never see
+ * the list that the loading thread is still adding to, and copying each task once keeps the cost linear.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class TaskLoader {
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Storage storage;
+    private final Consumer<Progress> listener;
+    private final CompletableFuture<ArrayList<Task>> result = new CompletableFuture<>();
+    private volatile List<Task[]> chunks = List.of();
+    private int publishedCount;
+    private long startNanos;
+    private long lastReportNanos;
+
+    /**
+     * Constructs a TaskLoader for the given storage. Loading starts when {@link #start()} is called.
+     *
+     * @param storage the storage to load tasks from
+     * @param listener told about progress on the loading thread, including once when loading ends
+     */
+    public TaskLoader(Storage storage, Consumer<Progress> listener) {
+        this.storage = storage;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts loading on a new daemon thread.
+     */
+    public void start() {
+        Thread loaderThread = new Thread(this::load, "megabot-loader");
+        loaderThread.setDaemon(true);
+        loaderThread.start();
+    }
+
+    /**
+     * Returns a future completed with every loaded task, or with the reason loading failed.
+     *
+     * @return the result of loading
+     */
+    public CompletableFuture<ArrayList<Task>> getResult() {
+        return result;
+    }
+
+    /**
+     * Returns whether loading has finished, successfully or not.
+     *
+     * @return true if loading has ended
+     */
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * Returns a copy of the tasks loaded so far, in file order.
+     *
+     * @return a new list the caller may keep and change
+     */
+    public ArrayList<Task> getSnapshot() {
+        List<Task[]> current = chunks;
+        int size = 0;
+        for (Task[] chunk : current) {
+            size += chunk.length;
+        }
+
+        ArrayList<Task> snapshot = new ArrayList<>(size);
+        for (Task[] chunk : current) {
+            Collections.addAll(snapshot, chunk);
+        }
+        return snapshot;
+    }
+
+    private void load() {
+        startNanos = System.nanoTime();
+        // Lets the first report through at once, so the window shows loading has started
+        lastReportNanos = startNanos - REPORT_INTERVAL_NANOS;
+        ArrayList<Task> tasks;
+        try {
+            tasks = storage.load(this::onProgress);
+        } catch (MegabotException | RuntimeException e) {
+            result.completeExceptionally(e);
+            listener.accept(new Progress(publishedCount, 0, 0, System.nanoTime() - startNanos, true,
+                    e.getMessage()));
+            return;
+        }
+
+        publish(tasks);
+        // Callbacks on the result run first, so the tasks are in use by the time the listener hears about it
+        result.complete(tasks);
+        listener.accept(new Progress(tasks.size(), 0, 0, System.nanoTime() - startNanos, true, null));
+    }
+
+    private void onProgress(List<Task> loadedTasks, long bytesRead, long totalBytes) {
+        publish(loadedTasks);
+
+        long now = System.nanoTime();
+        if (now - lastReportNanos >= REPORT_INTERVAL_NANOS) {
+            lastReportNanos = now;
+            listener.accept(new Progress(publishedCount, bytesRead, totalBytes, now - startNanos, false, null));
+        }
+    }
+
+    private void publish(List<Task> loadedTasks) {
+        if (loadedTasks.size() == publishedCount) {
+            return;
+        }
+
+        Task[] chunk = loadedTasks.subList(publishedCount, loadedTasks.size()).toArray(new Task[0]);
+        List<Task[]> nextChunks = new ArrayList<>(chunks);
+        nextChunks.add(chunk);
+        chunks = Collections.unmodifiableList(nextChunks);
+        publishedCount = loadedTasks.size();
+    }
+
+    /**
+     * How far loading has got.
+     */
+    public static class Progress {
+        private final int taskCount;
+        private final long bytesRead;
+        private final long totalBytes;
+        private final long elapsedNanos;
+        private final boolean isDone;
+        private final String error;
+
+        Progress(int taskCount, long bytesRead, long totalBytes, long elapsedNanos, boolean isDone, String error) {
+            this.taskCount = taskCount;
+            this.bytesRead = bytesRead;
+            this.totalBytes = totalBytes;
+            this.elapsedNanos = elapsedNanos;
+            this.isDone = isDone;
+            this.error = error;
+        }
+
+        public int getTaskCount() {
+            return taskCount;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns whether loading has ended, successfully or not.
+         *
+         * @return true if this is the last report
+         */
+        public boolean isDone() {
+            return isDone;
+        }
+
+        /**
+         * Returns why loading failed.
+         *
+         * @return the error message, or null if loading has not failed
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Returns how much of the file has been read.
+         *
+         * @return a percentage from 0 to 100
+         */
+        public int getPercent() {
+            if (isDone) {
+                return 100;
+            }
+            return totalBytes == 0 ? 0 : (int) (bytesRead * 100 / totalBytes);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package megabot.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+import megabot.log.Log;
+
+/**
+ * A Bloom filter over the trigrams of the task descriptions in one cold segment, used to tell that a
+ * keyword cannot be in the segment without opening it.
+ *
+ * <p>{@code find} matches any part of a description, not only whole words, so the filter holds every run
+ * of three characters of every lowercased description. If a description contains the keyword, it contains
+ * every trigram of the keyword too, so a keyword with a trigram missing from the filter is in no task of
+ * the segment. The filter can be wrong the other way, which only costs a search that finds nothing.
+ * Keywords shorter than a trigram cannot be ruled out.
+ *
+ * <p>The filter is saved next to its segment and records the size and last modified time of the segment,
+ * like the index of a {@link TaskArchive}, so it is never used for a segment it was not built from.
+ *
+ * <pre>
+ * header  magic, version, segment size, segment mtime, hash count, number of 64-bit words
+ * bits    the words of the bit array
+ * </pre>
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class BloomFilter {
+    /** Appended to the name of a segment to get the name of its filter. */
+    public static final String FILTER_SUFFIX = ".bloom";
+    /** Number of characters in each piece of a description that is added to the filter. */
+    public static final int GRAM_LENGTH = 3;
+
+    private static final Log LOG = Log.get(BloomFilter.class);
+    private static final int MAGIC = 0x4D424246; // "MBBF"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int SEGMENT_SIZE_OFFSET = 8;
+    private static final int SEGMENT_MTIME_OFFSET = 16;
+    private static final int HASH_COUNT_OFFSET = 24;
+    private static final int WORD_COUNT_OFFSET = 28;
+    // 10 bits and 7 hashes per trigram give about 1% false positives for a keyword of one trigram
+    private static final int BITS_PER_GRAM = 10;
+    private static final int HASH_COUNT = 7;
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long[] words, int hashCount) {
+        this.words = words;
+        this.bitCount = (long) words.length * Long.SIZE;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Builds a filter holding every trigram of the descriptions, sized for the number of distinct trigrams.
+     *
+     * @param descriptions the descriptions of the tasks in a segment
+     * @return the filter
+     */
+    public static BloomFilter build(Iterable<String> descriptions) {
+        Set<Long> grams = new HashSet<>();
+        for (String description : descriptions) {
+            String lower = description.toLowerCase();
+            for (int i = 0; i + GRAM_LENGTH <= lower.length(); i++) {
+                grams.add(getGram(lower, i));
+            }
+        }
+
+        long bits = Math.max(Long.SIZE, (long) grams.size() * BITS_PER_GRAM);
+        BloomFilter filter = new BloomFilter(new long[(int) ((bits + Long.SIZE - 1) / Long.SIZE)], HASH_COUNT);
+        for (long gram : grams) {
+            filter.add(gram);
+        }
+        return filter;
+    }
+
+    /**
+     * Returns whether the filter can rule out a keyword at all, which depends only on its length.
+     *
+     * @param keyword the keyword to search for
+     * @return true if {@link #mightContain(String)} can return false for the keyword
+     */
+    public static boolean isSelective(String keyword) {
+        return keyword.toLowerCase().length() >= GRAM_LENGTH;
+    }
+
+    /**
+     * Returns whether a description in the segment might contain the keyword, ignoring case.
+     *
+     * @param keyword the keyword to search for
+     * @return false only if no description in the segment contains the keyword
+     */
+    public boolean mightContain(String keyword) {
+        String lower = keyword.toLowerCase();
+        for (int i = 0; i + GRAM_LENGTH <= lower.length(); i++) {
+            if (!contains(getGram(lower, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the path of the filter for a segment.
+     *
+     * @param segment the segment file
+     * @return the path its filter is saved to
+     */
+    public static Path getFilterPath(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + FILTER_SUFFIX);
+    }
+
+    /**
+     * Saves the filter next to the segment it was built from, stamped with the current state of the segment.
+     * The filter is written to a temporary file first and then moved into place.
+     *
+     * @param segment the segment the filter was built from
+     * @throws IOException if the segment cannot be read or the filter cannot be written
+     */
+    public void write(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + words.length * Long.BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(Files.size(segment));
+        buffer.putLong(Files.getLastModifiedTime(segment).toMillis());
+        buffer.putInt(hashCount);
+        buffer.putInt(words.length);
+        buffer.asLongBuffer().put(words);
+        buffer.rewind();
+
+        Path filterPath = getFilterPath(segment);
+        Path tempPath = filterPath.resolveSibling(filterPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(tempPath, filterPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the filter of a segment, if it was built from the segment as it is now.
+     *
+     * @param segment the segment file
+     * @return the filter, or null if there is none or it is stale or damaged
+     * @throws IOException if either file cannot be read
+     */
+    public static BloomFilter read(Path segment) throws IOException {
+        Path filterPath = getFilterPath(segment);
+        if (!Files.exists(filterPath)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(filterPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return reject(filterPath);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the whole filter is in
+            }
+            buffer.flip();
+
+            int hashCount = buffer.getInt(HASH_COUNT_OFFSET);
+            int wordCount = buffer.getInt(WORD_COUNT_OFFSET);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getLong(SEGMENT_SIZE_OFFSET) != Files.size(segment)
+                    || buffer.getLong(SEGMENT_MTIME_OFFSET) != Files.getLastModifiedTime(segment).toMillis()
+                    || hashCount <= 0 || wordCount <= 0 || size != HEADER_SIZE + (long) wordCount * Long.BYTES) {
+                return reject(filterPath);
+            }
+
+            long[] words = new long[wordCount];
+            buffer.position(HEADER_SIZE).asLongBuffer().get(words);
+            return new BloomFilter(words, hashCount);
+        }
+    }
+
+    private static BloomFilter reject(Path filterPath) {
+        LOG.atInfo().with("path", filterPath).log("bloom_filter_stale");
+        return null;
+    }
+
+    private void add(long gram) {
+        long hash = mix(gram);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = getBit(hash, i);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private boolean contains(long gram) {
+        long hash = mix(gram);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = getBit(hash, i);
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the i-th bit for a hash, derived from its two halves so that only one hash is computed per trigram.
+     */
+    private long getBit(long hash, int i) {
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        return Math.floorMod(first + (long) i * second, bitCount);
+    }
+
+    /**
+     * Packs a trigram of 16-bit characters into one long.
+     */
+    private static long getGram(String text, int start) {
+        return (long) text.charAt(start) << 32 | (long) text.charAt(start + 1) << 16 | text.charAt(start + 2);
+    }
+
+    /**
+     * Spreads the bits of a packed trigram over the whole long (the finalizer of MurmurHash3).
+     */
+    private static long mix(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,212 @@
+package megabot.archive;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import megabot.exception.MegabotException;
+import megabot.log.Log;
+import megabot.task.Task;
+
+/**
+ * A directory of immutable segment files holding tasks that have been moved out of the task list.
+ * Each segment is a task file in the format written by {@link megabot.Storage}, written once and never
+ * changed, and is queried in place as a {@link TaskArchive} with its own index. Segments are numbered in
+ * the order they were written, so searching them in order gives the oldest tasks first.
+ *
+ * <p>Each segment also has a {@link BloomFilter} of its descriptions, so a search only opens the segments
+ * that might contain the keyword. A segment written before filters existed gets one the first time it is searched.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class ColdStore {
+    private static final Log LOG = Log.get(ColdStore.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".txt";
+
+    private final Path directory;
+
+    /**
+     * Constructs a ColdStore for the given directory. The directory is only created once a segment is written.
+     *
+     * @param directory the directory the segments are kept in
+     */
+    public ColdStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns every segment, oldest first.
+     *
+     * @return the paths of the segment files
+     * @throws IOException if the directory cannot be listed
+     */
+    public List<Path> getSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        // Segment numbers are zero-padded, so names sort in the order the segments were written
+        segments.sort(null);
+        return segments;
+    }
+
+    /**
+     * Writes the tasks to a new segment and builds its index and filter.
+     * The segment only appears under its final name once it is complete.
+     *
+     * @param tasks the tasks to move to cold storage
+     * @return the path of the new segment
+     * @throws IOException if the segment cannot be written
+     */
+    public Path writeSegment(ArrayList<Task> tasks) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = getSegments();
+        int number = segments.isEmpty() ? 1 : getSegmentNumber(segments.get(segments.size() - 1)) + 1;
+        Path segment = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+
+        Path tempPath = directory.resolve(segment.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempPath)) {
+            for (Task task : tasks) {
+                writer.write(task.formatData());
+                writer.write('\n');
+            }
+        }
+        Files.move(tempPath, segment, StandardCopyOption.ATOMIC_MOVE);
+
+        // Opening the segment once builds its index, so that queries never have to
+        new TaskArchive(segment).close();
+        List<String> descriptions = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            descriptions.add(task.getTask());
+        }
+        BloomFilter.build(descriptions).write(segment);
+        return segment;
+    }
+
+    /**
+     * Returns every task in cold storage whose description contains the keyword, ignoring case.
+     *
+     * @param keyword the keyword to search for
+     * @return the matching tasks, oldest segment first
+     * @throws IOException if a segment cannot be read
+     */
+    public List<Task> findTasks(String keyword) throws IOException {
+        return search(keyword).getTasks();
+    }
+
+    /**
+     * Searches cold storage for the keyword like {@link #findTasks(String)}, skipping every segment whose
+     * filter rules the keyword out, and reports how well the filters did.
+     *
+     * @param keyword the keyword to search for
+     * @return the matching tasks and the number of segments skipped
+     * @throws IOException if a segment cannot be read
+     */
+    public Search search(String keyword) throws IOException {
+        Search search = new Search();
+        boolean isSelective = BloomFilter.isSelective(keyword);
+        for (Path segment : getSegments()) {
+            BloomFilter filter = BloomFilter.read(segment);
+            if (filter != null && !filter.mightContain(keyword)) {
+                search.skippedCount++;
+                continue;
+            }
+
+            try (TaskArchive archive = new TaskArchive(segment)) {
+                List<Task> matches = archive.findTasks(keyword);
+                if (filter == null) {
+                    buildFilter(archive).write(segment);
+                } else if (isSelective && matches.isEmpty()) {
+                    search.falsePositiveCount++;
+                }
+                search.tasks.addAll(matches);
+            }
+            search.searchedCount++;
+        }
+
+        LOG.atInfo().with("segments", search.getSegmentCount()).with("segments_skipped", search.skippedCount)
+                .with("false_positives", search.falsePositiveCount)
+                .with("false_positive_rate", () -> String.format("%.3f", search.getFalsePositiveRate()))
+                .log("cold_search");
+        return search;
+    }
+
+    /**
+     * Builds the filter of a segment from the segment itself. Lines that cannot be read as tasks are left
+     * out, since a search skips them too.
+     */
+    private static BloomFilter buildFilter(TaskArchive archive) {
+        List<String> descriptions = new ArrayList<>();
+        for (long line = 0; line < archive.size(); line++) {
+            try {
+                descriptions.add(archive.getTask(line).getTask());
+            } catch (MegabotException e) {
+                // Never matched by a search either
+            }
+        }
+        return BloomFilter.build(descriptions);
+    }
+
+    private static int getSegmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * The result of searching cold storage, with how many segments were opened and skipped.
+     * A segment that was opened because of its filter but held no match is a false positive.
+     */
+    public static class Search {
+        private final List<Task> tasks = new ArrayList<>();
+        private int searchedCount;
+        private int skippedCount;
+        private int falsePositiveCount;
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        public int getSegmentCount() {
+            return searchedCount + skippedCount;
+        }
+
+        public int getSearchedCount() {
+            return searchedCount;
+        }
+
+        public int getSkippedCount() {
+            return skippedCount;
+        }
+
+        public int getFalsePositiveCount() {
+            return falsePositiveCount;
+        }
+
+        /**
+         * Returns the share of segments without a match that their filter failed to rule out.
+         *
+         * @return the false positive rate, from 0 to 1, or 0 if every segment had a match
+         */
+        public double getFalsePositiveRate() {
+            int negativeCount = skippedCount + falsePositiveCount;
+            return negativeCount == 0 ? 0 : (double) falsePositiveCount / negativeCount;
+        }
+    }
+}
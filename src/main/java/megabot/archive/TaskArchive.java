@@ -0,0 +1,519 @@
+package megabot.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.log.Log;
+import megabot.parser.Parser;
+import megabot.task.Command;
+import megabot.task.Task;
+
+/**
+ * A task file that is only ever searched, queried in place through a memory mapping.
+ * Nothing is loaded up front: {@code find} scans the mapped bytes and only turns matching lines into
+ * {@link Task} objects, and {@code list} jumps straight to the lines on the requested page. The heap
+ * used does not grow with the size of the archive, so archives larger than the heap can be queried.
+ *
+ * <p>Jumping to a line needs the offset at which each line starts. These are kept in an index file next
+ * to the archive, built by one pass over the archive the first time it is opened and again whenever the
+ * archive's size or last modified time no longer match. The index is memory-mapped as well.
+ *
+ * <p>A single mapping can cover at most 2 GB, so the archive is mapped in segments that each start at
+ * the beginning of a line. The index records where each segment starts.
+ *
+ * <pre>
+ * index    magic, version, archive size, archive mtime, line count, segment count, max segment size
+ *          line count x start offset of the line
+ *          segment count x (start offset, first line)
+ * </pre>
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class TaskArchive implements Closeable {
+    /** Appended to the name of the archive to get the name of its index. */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    /** Largest number of bytes in one mapped segment of the archive. */
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private static final Log LOG = Log.get(TaskArchive.class);
+    private static final int MAGIC = 0x4D424149; // "MBAI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int OFFSETS_PER_CHUNK = 1 << 27;
+    private static final byte[] SEPARATOR = " | ".getBytes(StandardCharsets.US_ASCII);
+    private static final int DESCRIPTION_FIELD = 2;
+
+    /** ASCII letters can only be lowercased byte by byte if the default locale lowercases them as usual. */
+    private static final boolean IS_ASCII_LOWERCASE_SAFE = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toLowerCase()
+            .equals("abcdefghijklmnopqrstuvwxyz");
+
+    private final int maxSegmentSize;
+    private final FileChannel archiveChannel;
+    private final long archiveSize;
+    private final long lineCount;
+    private final MappedByteBuffer[] segments;
+    private final long[] segmentStarts;
+    private final long[] segmentFirstLines;
+    private final MappedByteBuffer[] offsetChunks;
+    private final boolean isIndexRebuilt;
+
+    /**
+     * Opens an archive, building its index first if there is none or it no longer matches the archive.
+     *
+     * @param archivePath the task file to query, in the format written by {@link Storage}
+     * @throws IOException if the archive or its index cannot be read, or the index cannot be written
+     */
+    public TaskArchive(Path archivePath) throws IOException {
+        this(archivePath, MAX_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens an archive that is mapped in segments of at most the given size, e.g. to test segments
+     * without a file of several gigabytes.
+     */
+    TaskArchive(Path archivePath, int maxSegmentSize) throws IOException {
+        this.maxSegmentSize = maxSegmentSize;
+        Path indexPath = Path.of(archivePath + INDEX_SUFFIX);
+        archiveChannel = FileChannel.open(archivePath, StandardOpenOption.READ);
+        archiveSize = archiveChannel.size();
+        long archiveMtime = Files.getLastModifiedTime(archivePath).toMillis();
+
+        FileChannel indexChannel = openIndex(indexPath, archiveMtime);
+        isIndexRebuilt = indexChannel == null;
+        if (indexChannel == null) {
+            long startTime = System.nanoTime();
+            buildIndex(indexPath, archiveMtime);
+            indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ);
+            LOG.atInfo().with("path", archivePath).with("millis", (System.nanoTime() - startTime) / 1_000_000)
+                    .log("archive_index_built");
+        }
+
+        try (FileChannel channel = indexChannel) {
+            ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            lineCount = header.getLong(24);
+            int segmentCount = header.getInt(32);
+
+            ByteBuffer segmentTable = read(channel, HEADER_SIZE + lineCount * Long.BYTES,
+                    segmentCount * 2 * Long.BYTES);
+            segments = new MappedByteBuffer[segmentCount];
+            segmentStarts = new long[segmentCount];
+            segmentFirstLines = new long[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                segmentStarts[i] = segmentTable.getLong();
+                segmentFirstLines[i] = segmentTable.getLong();
+            }
+            for (int i = 0; i < segmentCount; i++) {
+                // Blank lines after the last line of a segment may take it past the limit, and are not needed
+                long end = i + 1 < segmentCount ? segmentStarts[i + 1] : archiveSize;
+                segments[i] = archiveChannel.map(FileChannel.MapMode.READ_ONLY, segmentStarts[i],
+                        Math.min(end - segmentStarts[i], maxSegmentSize));
+            }
+
+            int chunkCount = (int) ((lineCount + OFFSETS_PER_CHUNK - 1) / OFFSETS_PER_CHUNK);
+            offsetChunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long firstLine = (long) i * OFFSETS_PER_CHUNK;
+                long linesInChunk = Math.min(OFFSETS_PER_CHUNK, lineCount - firstLine);
+                offsetChunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstLine * Long.BYTES,
+                        linesInChunk * Long.BYTES);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tasks in the archive, counting lines that cannot be read as tasks.
+     *
+     * @return the number of non-blank lines
+     */
+    public long size() {
+        return lineCount;
+    }
+
+    /**
+     * Returns whether the index had to be built when the archive was opened.
+     *
+     * @return true if the index was missing or stale
+     */
+    public boolean isIndexRebuilt() {
+        return isIndexRebuilt;
+    }
+
+    /**
+     * Runs a read-only command against the archive and writes the response to the given output.
+     * Only {@code find} and {@code list}, with the same arguments as for the task list, are supported.
+     *
+     * @param userInput the user input string
+     * @param out the output the response is appended to
+     * @throws MegabotException if the command is invalid or would change the archive
+     * @throws IOException if writing to the output fails
+     */
+    public void handleCommand(String userInput, Appendable out) throws MegabotException, IOException {
+        Command cmd = Parser.parseCommand(userInput);
+        switch (cmd) {
+        case FIND:
+            writeMatches(Parser.parseFindKeyword(userInput), out);
+            break;
+        case LIST:
+            writePage(userInput, out);
+            break;
+        default:
+            throw new MegabotException("OOPSIE!! The archive is read-only. Only 'find' and 'list' work on it.");
+        }
+    }
+
+    /**
+     * Returns every task whose description contains the keyword, ignoring case, like
+     * {@link megabot.task.TaskList#findTasks(String)}. Lines that match but cannot be read as tasks are skipped.
+     *
+     * @param keyword the keyword to search for
+     * @return the matching tasks, in archive order
+     */
+    public List<Task> findTasks(String keyword) {
+        List<Task> found = new ArrayList<>();
+        try {
+            forEachMatch(keyword, (line, task) -> found.add(task));
+        } catch (IOException e) {
+            // Adding to a list never throws
+            throw new UncheckedIOException(e);
+        }
+        return found;
+    }
+
+    /**
+     * Returns the task on the given line, decoded from the mapped bytes.
+     *
+     * @param line the index of the line, from 0
+     * @return the task
+     * @throws MegabotException if the line cannot be read as a task
+     */
+    public Task getTask(long line) throws MegabotException {
+        assert line >= 0 && line < lineCount : "Line out of range";
+
+        int segment = findSegment(line);
+        int start = (int) (getLineStart(line) - segmentStarts[segment]);
+        return decode(segments[segment], start, findLineEnd(segments[segment], start));
+    }
+
+    @Override
+    public void close() throws IOException {
+        archiveChannel.close();
+    }
+
+    private void writeMatches(String keyword, Appendable out) throws IOException {
+        int[] count = {0};
+        forEachMatch(keyword, (line, task) -> {
+            out.append(count[0] == 0 ? "Here are the matching tasks in the archive:" : "")
+                    .append('\n').append(String.valueOf(++count[0])).append('.').append(task.toString());
+        });
+
+        if (count[0] == 0) {
+            out.append("No matching tasks found for keyword: ").append(keyword);
+        }
+    }
+
+    private void writePage(String userInput, Appendable out) throws MegabotException, IOException {
+        int[] pageParts = Parser.parseListPage(userInput);
+        int page = pageParts[0];
+        int pageSize = pageParts[1];
+
+        if (lineCount == 0) {
+            out.append("The archive is empty.");
+            return;
+        }
+
+        long pageCount = (lineCount + pageSize - 1) / pageSize;
+        if (page > pageCount) {
+            throw new MegabotException("OOPSIE!! Page " + page + " does not exist. "
+                    + "There " + (pageCount == 1 ? "is only 1 page." : "are only " + pageCount + " pages."));
+        }
+
+        long start = (long) (page - 1) * pageSize;
+        long end = Math.min(lineCount, start + pageSize);
+        out.append("Here are the tasks in the archive:");
+        for (long line = start; line < end; line++) {
+            out.append('\n').append(String.valueOf(line + 1)).append('.');
+            try {
+                out.append(getTask(line).toString());
+            } catch (MegabotException e) {
+                out.append("(unreadable line: ").append(e.getMessage()).append(')');
+            }
+        }
+
+        if (pageCount > 1) {
+            out.append("\nShowing tasks ").append(String.valueOf(start + 1)).append('-')
+                    .append(String.valueOf(end)).append(" of ").append(String.valueOf(lineCount))
+                    .append(" (page ").append(String.valueOf(page)).append(" of ")
+                    .append(String.valueOf(pageCount)).append(").");
+            if (page < pageCount) {
+                out.append(" Type 'list ").append(String.valueOf(page + 1))
+                        .append(pageSize == Parser.DEFAULT_LIST_PAGE_SIZE ? "" : " " + pageSize)
+                        .append("' for more.");
+            }
+        }
+    }
+
+    /**
+     * Scans every line and decodes only those whose description contains the keyword.
+     */
+    private void forEachMatch(String keyword, MatchHandler handler) throws IOException {
+        String lowerKeyword = keyword.toLowerCase();
+        byte[] asciiKeyword = IS_ASCII_LOWERCASE_SAFE && isAscii(lowerKeyword)
+                ? lowerKeyword.getBytes(StandardCharsets.US_ASCII)
+                : null;
+
+        long invalidCount = 0;
+        for (int segment = 0; segment < segments.length; segment++) {
+            ByteBuffer bytes = segments[segment];
+            long firstLine = segmentFirstLines[segment];
+            long endLine = segment + 1 < segments.length ? segmentFirstLines[segment + 1] : lineCount;
+            for (long line = firstLine; line < endLine; line++) {
+                int start = (int) (getLineStart(line) - segmentStarts[segment]);
+                int end = findLineEnd(bytes, start);
+                if (!isDescriptionMatch(bytes, start, end, lowerKeyword, asciiKeyword)) {
+                    continue;
+                }
+                try {
+                    handler.onMatch(line, decode(bytes, start, end));
+                } catch (MegabotException e) {
+                    // The task list would have skipped this line when loading it too
+                    invalidCount++;
+                    LOG.atFine().with("line", line + 1).with("reason", e.getMessage()).log("archive_line_invalid");
+                }
+            }
+        }
+        if (invalidCount > 0) {
+            LOG.atWarning().with("keyword", keyword).with("invalid", invalidCount).log("archive_matches_skipped");
+        }
+    }
+
+    /**
+     * Checks the keyword against the description field, found the same way as {@link Storage} splits a line.
+     * Plain ASCII descriptions are compared byte by byte; anything else is decoded and lowercased like
+     * {@link megabot.task.TaskList#findTasks(String)} does, so both give the same answer.
+     */
+    private static boolean isDescriptionMatch(ByteBuffer bytes, int start, int end, String lowerKeyword,
+            byte[] asciiKeyword) {
+        int descriptionStart = start;
+        for (int field = 0; field < DESCRIPTION_FIELD; field++) {
+            int separator = indexOfSeparator(bytes, descriptionStart, end);
+            if (separator < 0) {
+                return false;
+            }
+            descriptionStart = separator + SEPARATOR.length;
+        }
+        int separator = indexOfSeparator(bytes, descriptionStart, end);
+        int descriptionEnd = separator < 0 ? end : separator;
+
+        if (asciiKeyword != null && isAscii(bytes, descriptionStart, descriptionEnd)) {
+            return containsIgnoringAsciiCase(bytes, descriptionStart, descriptionEnd, asciiKeyword);
+        }
+        byte[] description = new byte[descriptionEnd - descriptionStart];
+        bytes.get(descriptionStart, description);
+        return new String(description, StandardCharsets.UTF_8).toLowerCase().contains(lowerKeyword);
+    }
+
+    private static boolean containsIgnoringAsciiCase(ByteBuffer bytes, int start, int end, byte[] lowerKeyword) {
+        int last = end - lowerKeyword.length;
+        for (int i = start; i <= last; i++) {
+            int j = 0;
+            while (j < lowerKeyword.length && toLowerAscii(bytes.get(i + j)) == lowerKeyword[j]) {
+                j++;
+            }
+            if (j == lowerKeyword.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static boolean isAscii(ByteBuffer bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfSeparator(ByteBuffer bytes, int from, int end) {
+        for (int i = from; i <= end - SEPARATOR.length; i++) {
+            if (bytes.get(i) == SEPARATOR[0] && bytes.get(i + 1) == SEPARATOR[1] && bytes.get(i + 2) == SEPARATOR[2]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Task decode(ByteBuffer bytes, int start, int end) throws MegabotException {
+        byte[] line = new byte[end - start];
+        bytes.get(start, line);
+        Task task = Storage.parseTaskFromFile(new String(line, StandardCharsets.UTF_8));
+        if (task == null) {
+            // E.g. a deadline without a date, which loading skips too
+            throw new MegabotException("Invalid task format - missing date");
+        }
+        return task;
+    }
+
+    /**
+     * Returns the end of the line starting at the given position, excluding the line break.
+     */
+    private static int findLineEnd(ByteBuffer bytes, int start) {
+        int end = start;
+        while (end < bytes.limit() && bytes.get(end) != '\n') {
+            end++;
+        }
+        return end > start && bytes.get(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    private long getLineStart(long line) {
+        return offsetChunks[(int) (line / OFFSETS_PER_CHUNK)].getLong((int) (line % OFFSETS_PER_CHUNK) * Long.BYTES);
+    }
+
+    private int findSegment(long line) {
+        int low = 0;
+        int high = segmentFirstLines.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (segmentFirstLines[mid] <= line) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Opens the index if it was built from the archive as it is now.
+     *
+     * @return the open index, or null if it has to be built
+     */
+    private FileChannel openIndex(Path indexPath, long archiveMtime) throws IOException {
+        if (!Files.exists(indexPath)) {
+            return null;
+        }
+
+        FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ);
+        long indexSize = channel.size();
+        if (indexSize >= HEADER_SIZE) {
+            ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            long lines = header.getLong(24);
+            int segmentCount = header.getInt(32);
+            if (header.getInt(0) == MAGIC && header.getInt(4) == VERSION && header.getLong(8) == archiveSize
+                    && header.getLong(16) == archiveMtime && header.getInt(36) == maxSegmentSize
+                    && lines >= 0 && segmentCount >= 0
+                    && indexSize == HEADER_SIZE + (lines + 2L * segmentCount) * Long.BYTES) {
+                return channel;
+            }
+        }
+        channel.close();
+        LOG.atInfo().with("path", indexPath).log("archive_index_stale");
+        return null;
+    }
+
+    /**
+     * Finds the start of every non-blank line in one pass over the archive and writes the index.
+     * A line counts as blank, and is skipped like {@link Storage} skips it, if it has nothing above a space.
+     */
+    private void buildIndex(Path indexPath, long archiveMtime) throws IOException {
+        Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        List<long[]> segmentTable = new ArrayList<>();
+        long lines = 0;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath),
+                64 * 1024))) {
+            out.write(new byte[HEADER_SIZE]);
+
+            long lineStart = 0;
+            boolean isBlank = true;
+            long segmentStart = -1;
+            for (long chunkStart = 0; chunkStart < archiveSize; chunkStart += MAX_SEGMENT_SIZE) {
+                long chunkSize = Math.min(MAX_SEGMENT_SIZE, archiveSize - chunkStart);
+                MappedByteBuffer chunk = archiveChannel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkSize);
+                for (int i = 0; i < chunkSize; i++) {
+                    byte b = chunk.get(i);
+                    long position = chunkStart + i;
+                    if (b == '\n' || position == archiveSize - 1) {
+                        long lineEnd = position + 1;
+                        isBlank &= b == '\n' || (b & 0xFF) <= ' ';
+                        if (!isBlank) {
+                            if (lineEnd - lineStart > maxSegmentSize) {
+                                throw new IOException("Line " + (lines + 1) + " of the archive is too long");
+                            }
+                            // Start a new segment at this line if it would not fit in the current one
+                            if (segmentStart < 0 || lineEnd - segmentStart > maxSegmentSize) {
+                                segmentStart = lineStart;
+                                segmentTable.add(new long[] {segmentStart, lines});
+                            }
+                            out.writeLong(lineStart);
+                            lines++;
+                        }
+                        lineStart = lineEnd;
+                        isBlank = true;
+                    } else if ((b & 0xFF) > ' ') {
+                        isBlank = false;
+                    }
+                }
+            }
+
+            for (long[] segment : segmentTable) {
+                out.writeLong(segment[0]);
+                out.writeLong(segment[1]);
+            }
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(archiveSize).putLong(archiveMtime).putLong(lines)
+                .putInt(segmentTable.size()).putInt(maxSegmentSize).flip();
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+            channel.write(header, 0);
+        }
+        Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Archive index is truncated");
+            }
+        }
+        return buffer.flip();
+    }
+
+    @FunctionalInterface
+    private interface MatchHandler {
+        void onMatch(long line, Task task) throws IOException;
+    }
+}
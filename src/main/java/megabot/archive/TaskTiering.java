@@ -0,0 +1,207 @@
+package megabot.archive;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import megabot.log.Log;
+import megabot.task.Deadline;
+import megabot.task.Event;
+import megabot.task.Task;
+import megabot.task.TaskClock;
+import megabot.task.TaskVisitor;
+import megabot.task.ToDo;
+
+/**
+ * Moves completed tasks that are older than a threshold out of the task list and into a {@link ColdStore}.
+ * Done tasks are rarely looked at again, but every list, find and save goes through them while they stay
+ * in the task list. Once moved, they can still be found with {@code find --all}.
+ *
+ * <p>How old a task is depends on its type. A deadline is as old as its due date and an event as old as
+ * its end. A to-do has no date, so it is as old as the first time tiering saw it done; these times are
+ * kept in a small ledger in the cold storage directory until the to-do is moved or unmarked.
+ *
+ * <p>Tiering is meant to run on the tasks just loaded, before any command has seen them, since moving
+ * tasks changes the numbers of the tasks after them.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class TaskTiering {
+    /** System property with the number of days after which done tasks move to cold storage, or -1 for never. */
+    public static final String THRESHOLD_DAYS_PROPERTY = "megabot.coldAfterDays";
+    /** Number of days after which done tasks move to cold storage by default. */
+    public static final int DEFAULT_THRESHOLD_DAYS = 30;
+    /** Appended to the name of the data file to get the name of its cold storage directory. */
+    public static final String COLD_DIRECTORY_SUFFIX = ".cold";
+
+    private static final Log LOG = Log.get(TaskTiering.class);
+    private static final String LEDGER_FILE = "done-since.txt";
+    private static final TaskVisitor<LocalDateTime> DATE_OF_TASK = new DateOfTask();
+
+    private final ColdStore coldStore;
+    private final Duration threshold;
+
+    /**
+     * Constructs a TaskTiering that moves done tasks older than the threshold to the given cold storage.
+     *
+     * @param coldStore where to move the tasks
+     * @param threshold how old a done task has to be to move
+     */
+    public TaskTiering(ColdStore coldStore, Duration threshold) {
+        assert !threshold.isNegative() : "Threshold cannot be negative";
+
+        this.coldStore = coldStore;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns the cold storage directory for a data file.
+     *
+     * @param filePath the path to the file where tasks are stored
+     * @return the directory that tasks moved out of that file are kept in
+     */
+    public static Path getColdDirectory(String filePath) {
+        return Path.of(filePath + COLD_DIRECTORY_SUFFIX);
+    }
+
+    /**
+     * Returns the tiering configured by {@link #THRESHOLD_DAYS_PROPERTY} for a data file.
+     *
+     * @param filePath the path to the file where tasks are stored
+     * @return the tiering, or null if it is turned off
+     */
+    public static TaskTiering fromProperties(String filePath) {
+        int days = Integer.getInteger(THRESHOLD_DAYS_PROPERTY, DEFAULT_THRESHOLD_DAYS);
+        if (days < 0) {
+            return null;
+        }
+        return new TaskTiering(new ColdStore(getColdDirectory(filePath)), Duration.ofDays(days));
+    }
+
+    /**
+     * Moves every done task older than the threshold from the list to a new cold segment.
+     * The segment is complete before any task is removed from the list, so a crash can leave a task
+     * in both places but never in neither.
+     *
+     * @param tasks the tasks just loaded, changed in place
+     * @return the number of tasks moved
+     * @throws IOException if the segment or the ledger cannot be written
+     */
+    public int moveColdTasks(ArrayList<Task> tasks) throws IOException {
+        LocalDateTime now = TaskClock.getCurrent().now();
+        Path ledgerPath = coldStore.getDirectory().resolve(LEDGER_FILE);
+        Map<String, ArrayDeque<LocalDateTime>> doneSince = readLedger(ledgerPath);
+        List<String> ledger = new ArrayList<>();
+        ArrayList<Task> hot = new ArrayList<>(tasks.size());
+        ArrayList<Task> cold = new ArrayList<>();
+
+        for (Task task : tasks) {
+            if (!task.getIsDone()) {
+                hot.add(task);
+                continue;
+            }
+
+            LocalDateTime date = task.accept(DATE_OF_TASK);
+            String ledgerKey = null;
+            if (date == null) {
+                ledgerKey = task.formatData();
+                ArrayDeque<LocalDateTime> dates = doneSince.get(ledgerKey);
+                date = dates == null || dates.isEmpty() ? now : dates.poll();
+            }
+
+            if (date.plus(threshold).isAfter(now)) {
+                hot.add(task);
+                if (ledgerKey != null) {
+                    ledger.add(date + " " + ledgerKey);
+                }
+            } else {
+                cold.add(task);
+            }
+        }
+
+        if (!cold.isEmpty()) {
+            Path segment = coldStore.writeSegment(cold);
+            tasks.clear();
+            tasks.addAll(hot);
+            LOG.atInfo().with("tasks", cold.size()).with("segment", segment.getFileName()).log("tasks_moved_cold");
+        }
+        if (!ledger.isEmpty() || Files.exists(ledgerPath)) {
+            writeLedger(ledgerPath, ledger);
+        }
+        return cold.size();
+    }
+
+    /**
+     * Reads when each done to-do was first seen done, keyed by its line in the data file.
+     * Identical to-dos share a key, each with its own date.
+     */
+    private static Map<String, ArrayDeque<LocalDateTime>> readLedger(Path ledgerPath) throws IOException {
+        Map<String, ArrayDeque<LocalDateTime>> doneSince = new HashMap<>();
+        if (!Files.exists(ledgerPath)) {
+            return doneSince;
+        }
+
+        for (String line : Files.readAllLines(ledgerPath)) {
+            int space = line.indexOf(' ');
+            if (space < 0) {
+                continue;
+            }
+            try {
+                LocalDateTime date = LocalDateTime.parse(line.substring(0, space));
+                doneSince.computeIfAbsent(line.substring(space + 1), key -> new ArrayDeque<>()).add(date);
+            } catch (DateTimeParseException e) {
+                // A damaged entry only means the to-do is treated as done from now on
+                LOG.atWarning().with("line", line).log("tiering_ledger_invalid");
+            }
+        }
+        return doneSince;
+    }
+
+    private static void writeLedger(Path ledgerPath, List<String> ledger) throws IOException {
+        Files.createDirectories(ledgerPath.getParent());
+        Path tempPath = ledgerPath.resolveSibling(LEDGER_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempPath)) {
+            for (String line : ledger) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        Files.move(tempPath, ledgerPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the date a done task is as old as, or null if the task has no date of its own.
+     */
+    private static class DateOfTask implements TaskVisitor<LocalDateTime> {
+        @Override
+        public LocalDateTime visitTask(Task task) {
+            return null;
+        }
+
+        @Override
+        public LocalDateTime visitToDo(ToDo todo) {
+            return null;
+        }
+
+        @Override
+        public LocalDateTime visitDeadline(Deadline deadline) {
+            return deadline.getDeadline();
+        }
+
+        @Override
+        public LocalDateTime visitEvent(Event event) {
+            return event.getEndDateTime();
+        }
+    }
+}
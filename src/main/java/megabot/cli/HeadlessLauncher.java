@@ -0,0 +1,184 @@
+package megabot.cli;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import megabot.Storage;
+import megabot.archive.TaskArchive;
+import megabot.exception.MegabotException;
+import megabot.log.Log;
+
+/**
+ * Entry point that runs MegaBot from the command line without the GUI.
+ * This class and everything it uses must never reference {@code javafx.*},
+ * so that it can run on a classpath without JavaFX.
+ *
+ * <p>Usage:
+ * <ul>
+ *     <li>{@code [--data <file>] <command...>} runs a single command, e.g. {@code list}</li>
+ *     <li>{@code --archive <file> <command...>} runs {@code find} or {@code list} on a read-only archive,
+ *     see {@link TaskArchive}</li>
+ *     <li>{@code [--script <file>|-] [--data <file>] [--checkpoint <n>] [--fail-fast]} runs a script,
+ *     see {@link ScriptRunner}</li>
+ * </ul>
+ * Options are only read before the first command word; everything from there on is the command,
+ * so that a command can have options of its own, e.g. {@code find --all <keyword>}.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class HeadlessLauncher {
+    private static final String DEFAULT_FILE_PATH = "./data/megabot.txt";
+
+    public static void main(String[] args) {
+        Log.installAsyncHandlers();
+        Arguments arguments = Arguments.parse(args);
+        if (!arguments.isValid()) {
+            System.err.println("Usage: [--data <file>] <command...> | --archive <file> <command...> | "
+                    + "[--script <file>|-] [--data <file>] [--checkpoint <n>] [--fail-fast]");
+            System.exit(2);
+        }
+        if (arguments.isScript()) {
+            ScriptRunner.main(args);
+            return;
+        }
+
+        if (arguments.getArchivePath() != null) {
+            if (arguments.getCommand().isEmpty()) {
+                System.err.println("Usage: --archive <file> find <keyword> | list [<page> [<page size>]]");
+                System.exit(2);
+            }
+            System.exit(runOnArchive(Path.of(arguments.getArchivePath()), arguments.getCommand()));
+        }
+
+        if (arguments.getCommand().isEmpty()) {
+            ScriptRunner.main(args);
+            return;
+        }
+
+        System.exit(runOnce(arguments.getFilePath(), arguments.getCommand()));
+    }
+
+    /**
+     * Runs a single command against the tasks in the given file and prints the response.
+     * The tasks are only saved if the command changes them.
+     *
+     * @param filePath the path to the file where tasks are stored
+     * @param command the command to run
+     * @return the process exit code, 0 if the command succeeded
+     */
+    static int runOnce(String filePath, String command) {
+        try {
+            ScriptRunner runner = new ScriptRunner(new Storage(filePath), true, 0);
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            ScriptRunner.Summary summary = runner.run(new StringReader(command), out);
+            return summary.getErrorCount() == 0 ? 0 : 1;
+        } catch (IOException | MegabotException e) {
+            System.err.println("OOPSIE!! " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Runs a single read-only command against an archive and prints the response.
+     * The archive is memory-mapped instead of loaded, so this works on archives larger than the heap.
+     *
+     * @param archivePath the task file to query
+     * @param command the find or list command to run
+     * @return the process exit code, 0 if the command succeeded
+     */
+    static int runOnArchive(Path archivePath, String command) {
+        try (TaskArchive archive = new TaskArchive(archivePath)) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            archive.handleCommand(command, out);
+            out.write('\n');
+            out.flush();
+            return 0;
+        } catch (MegabotException e) {
+            System.err.println(e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            System.err.println("OOPSIE!! " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * The command line arguments, split into the options before the first command word and the command.
+     */
+    static class Arguments {
+        private String filePath = DEFAULT_FILE_PATH;
+        private String archivePath;
+        private String command = "";
+        private boolean isScript;
+        private boolean isValid = true;
+
+        /**
+         * Parses the command line arguments.
+         * Script options hand the whole command line to {@link ScriptRunner}, while any other unknown option,
+         * or an option without its value, makes the arguments invalid.
+         *
+         * @param args the command line arguments
+         * @return the parsed arguments
+         */
+        static Arguments parse(String[] args) {
+            Arguments parsed = new Arguments();
+            int i = 0;
+            for (; i < args.length && args[i].startsWith("--"); i++) {
+                switch (args[i]) {
+                case "--data":
+                    if (i + 1 >= args.length) {
+                        parsed.isValid = false;
+                        return parsed;
+                    }
+                    parsed.filePath = args[++i];
+                    break;
+                case "--archive":
+                    if (i + 1 >= args.length) {
+                        parsed.isValid = false;
+                        return parsed;
+                    }
+                    parsed.archivePath = args[++i];
+                    break;
+                case "--script":
+                case "--checkpoint":
+                case "--fail-fast":
+                    parsed.isScript = true;
+                    return parsed;
+                default:
+                    parsed.isValid = false;
+                    return parsed;
+                }
+            }
+            // Passed on unchanged, so that options of the command and "--" in descriptions stay part of it
+            parsed.command = String.join(" ", Arrays.asList(args).subList(i, args.length));
+            return parsed;
+        }
+
+        String getFilePath() {
+            return filePath;
+        }
+
+        String getArchivePath() {
+            return archivePath;
+        }
+
+        String getCommand() {
+            return command;
+        }
+
+        boolean isScript() {
+            return isScript;
+        }
+
+        boolean isValid() {
+            return isValid;
+        }
+    }
+}
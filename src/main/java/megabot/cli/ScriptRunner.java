@@ -0,0 +1,225 @@
+package megabot.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.gui.Gui;
+import megabot.task.Command;
+import megabot.task.TaskList;
+
+/**
+ * Runs a stream of commands in batch, without the GUI.
+ * Commands are read one per line and executed through {@link Gui#handleCommand(String)}.
+ * Unlike {@link megabot.MegaBot#getResponse(String)}, the task list is only saved at
+ * checkpoints and once at the end of the script instead of after every command.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class ScriptRunner {
+    private static final String DEFAULT_FILE_PATH = "./data/megabot.txt";
+    private static final String STDIN = "-";
+    private static final String COMMENT_PREFIX = "#";
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final Storage storage;
+    private final TaskList tasks;
+    private final Gui gui;
+    private final boolean isFailFast;
+    private final int checkpointInterval;
+
+    /**
+     * Constructs a ScriptRunner that operates on the tasks stored by the given storage.
+     *
+     * @param storage the storage to load tasks from and save tasks to
+     * @param isFailFast true to stop at the first command that fails
+     * @param checkpointInterval number of modifying commands between saves, or 0 to only save at the end
+     * @throws MegabotException if the tasks cannot be loaded
+     */
+    public ScriptRunner(Storage storage, boolean isFailFast, int checkpointInterval) throws MegabotException {
+        assert checkpointInterval >= 0 : "Checkpoint interval cannot be negative";
+
+        this.storage = storage;
+        this.tasks = new TaskList(storage.load());
+        this.gui = new Gui(tasks, storage);
+        this.isFailFast = isFailFast;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Executes every command read from the input and writes each response to the output.
+     * Blank lines and lines starting with '#' are skipped. Execution stops at "bye",
+     * at the end of the input, or at the first error when running in fail-fast mode.
+     *
+     * @param input the source of commands, one per line
+     * @param output the destination of the responses
+     * @return a summary of the run
+     * @throws IOException if reading the input, writing the output or saving the tasks fails
+     */
+    public Summary run(Reader input, Writer output) throws IOException {
+        BufferedReader reader = new BufferedReader(input);
+        long startTime = System.nanoTime();
+        int commandCount = 0;
+        int errorCount = 0;
+        int unsavedCount = 0;
+        boolean isAborted = false;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String userInput = line.trim();
+            if (userInput.isEmpty() || userInput.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
+
+            commandCount++;
+            try {
+                gui.handleCommand(userInput, output);
+                output.write('\n');
+                if (!Command.fromString(userInput).isReadOnly()) {
+                    unsavedCount++;
+                }
+            } catch (MegabotException e) {
+                errorCount++;
+                output.write(e.getMessage());
+                output.write('\n');
+                if (isFailFast) {
+                    isAborted = true;
+                    break;
+                }
+            }
+
+            if (checkpointInterval > 0 && unsavedCount >= checkpointInterval) {
+                storage.save(tasks.getTasks());
+                unsavedCount = 0;
+            }
+
+            if (userInput.equals("bye")) {
+                break;
+            }
+        }
+
+        if (unsavedCount > 0) {
+            storage.save(tasks.getTasks());
+        }
+        output.flush();
+
+        return new Summary(commandCount, errorCount, System.nanoTime() - startTime, isAborted);
+    }
+
+    /**
+     * Entry point for batch mode.
+     * Usage: {@code [--script <file>|-] [--data <file>] [--checkpoint <n>] [--fail-fast]}.
+     * Commands are read from standard input when no script file is given.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        String scriptPath = STDIN;
+        String filePath = DEFAULT_FILE_PATH;
+        int checkpointInterval = 0;
+        boolean isFailFast = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "--script":
+                    scriptPath = args[++i];
+                    break;
+                case "--data":
+                    filePath = args[++i];
+                    break;
+                case "--checkpoint":
+                    checkpointInterval = Integer.parseInt(args[++i]);
+                    break;
+                case "--fail-fast":
+                    isFailFast = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("Usage: [--script <file>|-] [--data <file>] [--checkpoint <n>] [--fail-fast]");
+            System.exit(2);
+        }
+
+        try (InputStream in = scriptPath.equals(STDIN) ? System.in : new FileInputStream(scriptPath)) {
+            ScriptRunner runner = new ScriptRunner(new Storage(filePath), isFailFast, checkpointInterval);
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+                    OUTPUT_BUFFER_SIZE);
+            Summary summary = runner.run(new InputStreamReader(in, StandardCharsets.UTF_8), out);
+
+            System.err.println(summary);
+            if (summary.isAborted()) {
+                System.exit(1);
+            }
+        } catch (IOException | MegabotException e) {
+            System.err.println("OOPSIE!! Script failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Statistics about a completed script run.
+     */
+    public static class Summary {
+        private final int commandCount;
+        private final int errorCount;
+        private final long elapsedNanos;
+        private final boolean isAborted;
+
+        Summary(int commandCount, int errorCount, long elapsedNanos, boolean isAborted) {
+            this.commandCount = commandCount;
+            this.errorCount = errorCount;
+            this.elapsedNanos = elapsedNanos;
+            this.isAborted = isAborted;
+        }
+
+        public int getCommandCount() {
+            return commandCount;
+        }
+
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns whether the run stopped early because of a failing command in fail-fast mode.
+         *
+         * @return true if the run was aborted
+         */
+        public boolean isAborted() {
+            return isAborted;
+        }
+
+        /**
+         * Returns the number of commands executed per second, including the final save.
+         *
+         * @return the command throughput
+         */
+        public double getCommandsPerSecond() {
+            return elapsedNanos == 0 ? 0 : commandCount * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Executed %d commands (%d failed) in %.1f ms: %.0f commands/sec%s",
+                    commandCount, errorCount, elapsedNanos / 1e6, getCommandsPerSecond(),
+                    isAborted ? " [aborted]" : "");
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package megabot.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import megabot.Storage;
+import megabot.exception.ExternalChangeException;
+import megabot.exception.MegabotException;
+import megabot.gui.Gui;
+import megabot.log.Log;
+import megabot.sync.ExternalEdits;
+import megabot.task.Command;
+import megabot.task.TaskList;
+
+/**
+ * Executes all changes to a {@link TaskList} on one writer thread.
+ * Producers (the GUI, socket clients, scheduled jobs) publish commands into a lock-free
+ * {@link RingBuffer} and get a future for the result, so no lock is ever held around the task list.
+ *
+ * <p>The writer drains the buffer in batches. Read-only commands complete as soon as they run.
+ * Commands that change tasks complete only after the batch they belong to has been saved, so
+ * a single save covers every change in the batch without giving up durability.
+ *
+ * <p>If the data file was changed outside MegaBot, the save is refused by {@link Storage}; the writer then
+ * merges the outside changes into the task list with {@link ExternalEdits} and saves the result instead.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class CommandEngine implements Closeable {
+    /** Default number of commands that can wait in the buffer. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final Log LOG = Log.get(CommandEngine.class);
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final int IDLE_SPINS = 100;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final RingBuffer<PendingOperation<?>> buffer;
+    private final TaskList tasks;
+    private final Storage storage;
+    private final Gui gui;
+    private final Thread writerThread;
+    private final ArrayList<PendingOperation<?>> unsaved = new ArrayList<>();
+    private final CopyOnWriteArrayList<Runnable> saveListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<Consumer<ExternalEdits.Result>> externalChangeListeners =
+            new CopyOnWriteArrayList<>();
+    private volatile boolean isRunning = true;
+    private volatile boolean isWriterParked;
+    private volatile MegabotException changeRejection;
+
+    /**
+     * Constructs a CommandEngine that applies commands to the given tasks and saves them to the given storage.
+     * The writer thread is not started until {@link #start()} is called; commands submitted before then wait
+     * in the buffer, blocking once it is full.
+     *
+     * @param tasks the task list owned by the writer thread
+     * @param storage the storage the tasks are saved to after each batch of changes
+     * @param capacity the capacity of the buffer, a power of two
+     */
+    public CommandEngine(TaskList tasks, Storage storage, int capacity) {
+        this.buffer = new RingBuffer<>(capacity);
+        this.tasks = tasks;
+        this.storage = storage;
+        this.gui = new Gui(tasks, storage);
+        this.writerThread = new Thread(this::runWriter, "megabot-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    /**
+     * Adds a callback that the writer thread runs after every batch that changed tasks, once it has been saved.
+     * The callback may read the task list, since no other operation runs at the same time.
+     *
+     * @param listener the callback
+     */
+    public void addSaveListener(Runnable listener) {
+        saveListeners.add(listener);
+    }
+
+    /**
+     * Adds a callback that the writer thread runs after merging changes made to the data file outside MegaBot.
+     *
+     * @param listener the callback, given what the merge changed
+     */
+    public void addExternalChangeListener(Consumer<ExternalEdits.Result> listener) {
+        externalChangeListeners.add(listener);
+    }
+
+    /**
+     * Submits a merge of the changes made to the data file outside MegaBot, if there are any,
+     * followed by a save of the merged tasks.
+     *
+     * @return a future completed with what the merge changed once it has been saved
+     */
+    public CompletableFuture<ExternalEdits.Result> submitExternalMerge() {
+        return submit(tasks -> {
+            try {
+                return mergeExternalChanges(tasks);
+            } catch (IOException e) {
+                throw new MegabotException("OOPSIE!! I couldn't merge the changes made outside MegaBot: "
+                        + e.getMessage());
+            }
+        }, false);
+    }
+
+    /**
+     * Makes every operation that would change tasks fail with the given error instead of running,
+     * for when the task list does not hold every task in the data file and saving it would lose some.
+     * Read-only operations still run. Takes effect for operations the writer has not run yet.
+     *
+     * @param reason the error the operations fail with
+     */
+    public void rejectChanges(MegabotException reason) {
+        changeRejection = reason;
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    public void start() {
+        writerThread.start();
+    }
+
+    /**
+     * Submits a user command, as typed into the GUI.
+     * Errors in the command are reported in the response, like {@link megabot.MegaBot#getResponse(String)}.
+     *
+     * @param input the user input string
+     * @return a future completed with the response message
+     */
+    public CompletableFuture<String> submit(String input) {
+        return submit(ignored -> {
+            try {
+                return gui.handleCommand(input);
+            } catch (MegabotException e) {
+                return e.getMessage();
+            }
+        }, Command.fromString(input).isReadOnly());
+    }
+
+    /**
+     * Submits an operation to run on the writer thread with exclusive access to the task list.
+     * Blocks while the buffer is full.
+     *
+     * @param operation the operation to run
+     * @param isReadOnly true if the operation never changes tasks, so no save is needed
+     * @param <T> the type of the result
+     * @return a future completed with the result of the operation
+     */
+    public <T> CompletableFuture<T> submit(Operation<T> operation, boolean isReadOnly) {
+        if (!isRunning) {
+            return CompletableFuture.failedFuture(newShuttingDownException());
+        }
+
+        PendingOperation<T> pending = new PendingOperation<>(operation, isReadOnly);
+        while (!buffer.offer(pending)) {
+            // Back-pressure: wait for the writer to make space
+            LockSupport.parkNanos(1000);
+        }
+        if (isWriterParked) {
+            LockSupport.unpark(writerThread);
+        }
+        // Closed meanwhile, so the writer may already have stopped without seeing the operation
+        if (!isRunning) {
+            pending.cancel();
+        }
+        return pending.future;
+    }
+
+    /**
+     * Stops accepting operations, waits for queued ones to finish and saves any pending changes.
+     * Operations the writer never ran, e.g. because it was never started, fail.
+     */
+    @Override
+    public void close() {
+        isRunning = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // The writer has stopped, so this thread is now the only one polling the buffer
+        PendingOperation<?> pending;
+        while ((pending = buffer.poll()) != null) {
+            pending.cancel();
+        }
+    }
+
+    private static MegabotException newShuttingDownException() {
+        return new MegabotException("OOPSIE!! MegaBot is shutting down.");
+    }
+
+    private void runWriter() {
+        int idleCount = 0;
+        while (isRunning || !buffer.isEmpty()) {
+            int batchSize = drainBatch();
+            if (batchSize > 0) {
+                idleCount = 0;
+                finishBatch();
+                continue;
+            }
+
+            if (++idleCount < IDLE_SPINS) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            isWriterParked = true;
+            if (buffer.isEmpty() && isRunning) {
+                LockSupport.parkNanos(MAX_PARK_NANOS);
+            }
+            isWriterParked = false;
+        }
+    }
+
+    private int drainBatch() {
+        int count = 0;
+        PendingOperation<?> pending;
+        while (count < MAX_BATCH_SIZE && (pending = buffer.poll()) != null) {
+            count++;
+            if (!pending.claim()) {
+                // Cancelled by a submit that raced with close
+                continue;
+            }
+            MegabotException rejection = changeRejection;
+            if (rejection != null && !pending.isReadOnly) {
+                pending.future.completeExceptionally(rejection);
+                continue;
+            }
+            pending.run(tasks);
+            if (!pending.isReadOnly) {
+                unsaved.add(pending);
+            }
+        }
+        return count;
+    }
+
+    private void finishBatch() {
+        if (unsaved.isEmpty()) {
+            return;
+        }
+
+        IOException saveError = null;
+        try {
+            try {
+                storage.save(tasks.getTasks());
+            } catch (ExternalChangeException e) {
+                mergeExternalChanges(tasks);
+                storage.save(tasks.getTasks());
+            }
+        } catch (IOException e) {
+            saveError = e;
+            LOG.atWarning().with("reason", e.getMessage()).log("engine_save_failed");
+        }
+        // Listeners run first so that a caller who sees its change completed also sees what they publish
+        for (Runnable listener : saveListeners) {
+            runListener(listener);
+        }
+
+        for (PendingOperation<?> pending : unsaved) {
+            if (saveError == null) {
+                pending.complete();
+            } else {
+                // The change is in the task list but not in the file, so the caller must not report it as done
+                pending.future.completeExceptionally(saveError);
+            }
+        }
+        unsaved.clear();
+    }
+
+    private ExternalEdits.Result mergeExternalChanges(TaskList tasks) throws IOException {
+        ExternalEdits.Result result = ExternalEdits.merge(tasks, storage);
+        if (result.hasChanges() || result.getInvalidCount() > 0) {
+            for (Consumer<ExternalEdits.Result> listener : externalChangeListeners) {
+                runListener(() -> listener.accept(result));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs a listener on the writer thread, so that a failing listener cannot stop the writer.
+     */
+    private static void runListener(Runnable listener) {
+        try {
+            listener.run();
+        } catch (RuntimeException e) {
+            LOG.atWarning().with("reason", e.getMessage()).log("engine_listener_failed");
+        }
+    }
+
+    /**
+     * An operation on the task list that runs on the writer thread.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        /**
+         * Runs the operation.
+         *
+         * @param tasks the task list, only accessed from the writer thread
+         * @return the result of the operation
+         * @throws MegabotException if the operation fails
+         */
+        T apply(TaskList tasks) throws MegabotException;
+    }
+
+    private static class PendingOperation<T> {
+        private final Operation<T> operation;
+        private final boolean isReadOnly;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        /** Set by whichever comes first: the writer about to run the operation, or a cancel. */
+        private final AtomicBoolean isClaimed = new AtomicBoolean();
+        private T result;
+        private Throwable error;
+
+        PendingOperation(Operation<T> operation, boolean isReadOnly) {
+            this.operation = operation;
+            this.isReadOnly = isReadOnly;
+        }
+
+        /**
+         * Returns whether the writer may run the operation, which it then must.
+         */
+        boolean claim() {
+            return isClaimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Fails the operation because the engine is shutting down, unless the writer has already claimed it.
+         */
+        void cancel() {
+            if (claim()) {
+                future.completeExceptionally(newShuttingDownException());
+            }
+        }
+
+        void run(TaskList tasks) {
+            try {
+                result = operation.apply(tasks);
+            } catch (MegabotException | RuntimeException e) {
+                error = e;
+            }
+            if (isReadOnly) {
+                complete();
+            }
+        }
+
+        void complete() {
+            if (error == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+}
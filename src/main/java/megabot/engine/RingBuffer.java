@@ -0,0 +1,106 @@
+package megabot.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * Each slot carries a sequence number: producers claim a position by advancing the tail with
+ * a compare-and-set and publish the element by bumping the slot sequence, so no locks are taken
+ * on either side. Only one thread may call {@link #poll()}.
+ *
+ * @param <E> the type of elements held in the buffer
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class RingBuffer<E> {
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * Constructs a RingBuffer that holds up to the given number of elements.
+     *
+     * @param capacity the capacity, which must be a power of two
+     */
+    public RingBuffer(int capacity) {
+        assert capacity > 0 && Integer.bitCount(capacity) == 1 : "Capacity must be a power of two";
+
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element to the tail of the buffer if there is space.
+     * Safe to call from any number of threads.
+     *
+     * @param element the element to add
+     * @return true if the element was added, false if the buffer is full
+     */
+    public boolean offer(E element) {
+        assert element != null : "Cannot add null to the ring buffer";
+
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            // Another producer claimed this position first, retry with the new tail
+        }
+    }
+
+    /**
+     * Removes and returns the element at the head of the buffer.
+     * Must only be called by the single consumer thread.
+     *
+     * @return the head element, or null if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        E element = (E) elements[index];
+        elements[index] = null;
+        sequences.lazySet(index, position + elements.length);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Returns whether the buffer currently holds no published elements.
+     *
+     * @return true if the buffer is empty
+     */
+    public boolean isEmpty() {
+        long position = head;
+        return sequences.get((int) (position & mask)) != position + 1;
+    }
+
+    /**
+     * Returns the maximum number of elements the buffer can hold.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return elements.length;
+    }
+}
@@ -0,0 +1,24 @@
+package megabot.exception;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown instead of saving tasks over a data file that was changed outside MegaBot
+ * since MegaBot last read or wrote it. The changes have to be merged into the task list first,
+ * so that saving does not throw them away.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class ExternalChangeException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an ExternalChangeException for the given data file.
+     *
+     * @param filePath the path to the data file that was changed
+     */
+    public ExternalChangeException(String filePath) {
+        super(filePath + " was changed outside MegaBot, so it was not overwritten");
+    }
+}
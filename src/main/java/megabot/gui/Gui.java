@@ -1,17 +1,29 @@
 package megabot.gui;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import megabot.Storage;
+import megabot.TaskLoader;
+import megabot.archive.ColdStore;
+import megabot.archive.TaskTiering;
 import megabot.exception.MegabotException;
+import megabot.jfr.CommandExecuteEvent;
+import megabot.jfr.JfrEvents;
+import megabot.metrics.MetricsRegistry;
 import megabot.parser.Parser;
+import megabot.sync.ExternalEdits;
 import megabot.task.Command;
 import megabot.task.Deadline;
 import megabot.task.Event;
 import megabot.task.Task;
 import megabot.task.TaskList;
 import megabot.task.TaskService;
+import megabot.task.TaskSizer;
 import megabot.task.ToDo;
 
 /**
@@ -21,9 +33,13 @@ import megabot.task.ToDo;
  * @version 1.0
  */
 public class Gui {
+    private static final Pattern NEXT_PAGE_PATTERN = Pattern.compile("Type '(list \\d+(?: \\d+)?)' for more\\.$");
+    private static final String NEXT_PAGE_SUFFIX = "' for more.";
+
     private final TaskList tasks;
     private final Storage storage;
     private final TaskService taskService;
+    private final MetricsRegistry metrics = MetricsRegistry.getGlobal();
 
     /**
      * Constructor for Gui
@@ -54,23 +70,99 @@ public class Gui {
                 + "Come back soon or else you won't finish them!!!";
     }
 
+    /**
+     * Describes how far loading tasks in the background has got.
+     *
+     * @param progress the latest progress report
+     * @return the loading message
+     */
+    public static String showLoadProgress(TaskLoader.Progress progress) {
+        if (progress.getError() != null) {
+            return progress.getError() + "\nStarting with an empty task list.";
+        }
+        if (progress.isDone()) {
+            return String.format("Loaded %d tasks in %.1f s.", progress.getTaskCount(),
+                    progress.getElapsedNanos() / 1e9);
+        }
+        return String.format("Still loading your backlog... %d tasks so far (%d%%).", progress.getTaskCount(),
+                progress.getPercent());
+    }
+
+    /**
+     * Returns the line put before a reply that was worked out from a partly loaded task list.
+     *
+     * @param loadedCount the number of tasks loaded when the reply was worked out
+     * @return the marker line
+     */
+    public static String showPartialSnapshotNotice(int loadedCount) {
+        return "[Still loading: this answer only covers the first " + loadedCount + " tasks]\n";
+    }
+
+    /**
+     * Returns the message telling the user that changes made to the data file outside MegaBot were picked up.
+     *
+     * @param result what merging the changes did to the task list
+     * @return the message
+     */
+    public static String showExternalChanges(ExternalEdits.Result result) {
+        StringBuilder sb = new StringBuilder("I picked up changes made to ").append(result.getFilePath())
+                .append(" outside MegaBot: ").append(result.getChangedCount()).append(" changed, ")
+                .append(result.getAddedCount()).append(" added, ").append(result.getRemovedCount()).append(" removed.");
+        if (result.getInvalidCount() > 0) {
+            sb.append("\n").append(result.getInvalidCount())
+                    .append(" changed lines were not valid tasks and were skipped.");
+        }
+        if (result.getConflictCount() > 0) {
+            sb.append("\nOOPSIE!! ").append(result.getConflictCount())
+                    .append(" of these clashed with changes I had not saved yet. I kept the file's version;")
+                    .append(" mine is in ").append(result.getConflictPath()).append('.');
+        }
+        return sb.toString();
+    }
+
     /**
      * Handles commands and returns response strings (for GUI use).
+     * How long each command takes is recorded in the global {@link MetricsRegistry}.
      *
      * @param userInput the user input string
      * @return the response message
      * @throws MegabotException if there's an error processing the command
      */
     public String handleCommand(String userInput) throws MegabotException {
+        CommandExecuteEvent event = beginExecuteEvent();
+        long startTime = System.nanoTime();
+        Command cmd = Command.UNKNOWN;
+        boolean isSuccessful = false;
+        try {
+            cmd = Parser.parseCommand(userInput);
+            String response = executeCommand(cmd, userInput);
+            isSuccessful = true;
+            return response;
+        } finally {
+            metrics.recordCommand(cmd, System.nanoTime() - startTime, isSuccessful);
+            if (event != null) {
+                event.finish(cmd.name(), isSuccessful, tasks.size());
+            }
+        }
+    }
+
+    private static CommandExecuteEvent beginExecuteEvent() {
+        if (!JfrEvents.ENABLED) {
+            return null;
+        }
+        CommandExecuteEvent event = new CommandExecuteEvent();
+        event.begin();
+        return event;
+    }
+
+    private String executeCommand(Command cmd, String userInput) throws MegabotException {
         if (userInput.equals("bye")) {
             return showGoodbye();
         }
 
-        Command cmd = Parser.parseCommand(userInput);
-
         switch (cmd) {
         case LIST:
-            return getTaskListString();
+            return getTaskListString(userInput);
         case TODO:
             return handleTodoCommand(userInput);
         case DEADLINE:
@@ -85,6 +177,10 @@ public class Gui {
             return handleDeleteCommand(userInput);
         case FIND:
             return handleFindCommand(userInput);
+        case STATS:
+            return metrics.report();
+        case MEMSTATS:
+            return TaskSizer.measure(tasks).report();
         case UNKNOWN:
             throw new MegabotException("OOPSIE!! Unknown command type found");
         default:
@@ -94,22 +190,111 @@ public class Gui {
     }
 
     /**
-     * Returns a formatted string of all tasks.
+     * Handles a command and writes the response to the given output.
+     * The list command is rendered straight into the output instead of being built up as one string first.
+     *
+     * @param userInput the user input string
+     * @param out the output the response is appended to
+     * @throws MegabotException if there's an error processing the command
+     * @throws IOException if writing to the output fails
+     */
+    public void handleCommand(String userInput, Appendable out) throws MegabotException, IOException {
+        if (Parser.parseCommand(userInput) != Command.LIST) {
+            out.append(handleCommand(userInput));
+            return;
+        }
+
+        CommandExecuteEvent event = beginExecuteEvent();
+        long startTime = System.nanoTime();
+        boolean isSuccessful = false;
+        try {
+            writeTaskList(userInput, out);
+            isSuccessful = true;
+        } finally {
+            metrics.recordCommand(Command.LIST, System.nanoTime() - startTime, isSuccessful);
+            if (event != null) {
+                event.finish(Command.LIST.name(), isSuccessful, tasks.size());
+            }
+        }
+    }
+
+    /**
+     * Returns a formatted string of one page of tasks.
      *
+     * @param userInput the list command, with an optional page number and page size
      * @return formatted task list string
+     * @throws MegabotException if the page does not exist
      */
-    private String getTaskListString() {
+    private String getTaskListString(String userInput) throws MegabotException {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeTaskList(userInput, sb);
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes one page of tasks with their indices to the given output.
+     * If the list has more than one page, a footer tells the user how to ask for the next page.
+     *
+     * @param userInput the list command, with an optional page number and page size
+     * @param out the output the page is appended to
+     * @throws MegabotException if the page number or size is invalid, or the page does not exist
+     * @throws IOException if writing to the output fails
+     */
+    public void writeTaskList(String userInput, Appendable out) throws MegabotException, IOException {
+        int[] pageParts = Parser.parseListPage(userInput);
+        int page = pageParts[0];
+        int pageSize = pageParts[1];
+
         if (tasks.isEmpty()) {
-            return "Congratulations!! You have no tasks in your list.";
+            out.append("Congratulations!! You have no tasks in your list.");
+            return;
         }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("Here are the tasks in your list:\n");
+        int pageCount = (int) ((tasks.size() + (long) pageSize - 1) / pageSize);
+        if (page > pageCount) {
+            throw new MegabotException("OOPSIE!! Page " + page + " does not exist. "
+                    + "There " + (pageCount == 1 ? "is only 1 page." : "are only " + pageCount + " pages."));
+        }
+
+        int start = (page - 1) * pageSize;
+        int end = (int) Math.min(tasks.size(), (long) start + pageSize);
         ArrayList<Task> taskList = tasks.getTasks();
-        for (int i = 0; i < taskList.size(); i++) {
-            sb.append((i + 1)).append(".").append(taskList.get(i)).append("\n");
+
+        out.append("Here are the tasks in your list:");
+        for (int i = start; i < end; i++) {
+            out.append('\n').append(String.valueOf(i + 1)).append('.').append(taskList.get(i).toString());
+        }
+
+        if (pageCount > 1) {
+            out.append("\nShowing tasks ").append(String.valueOf(start + 1)).append('-')
+                    .append(String.valueOf(end)).append(" of ").append(String.valueOf(tasks.size()))
+                    .append(" (page ").append(String.valueOf(page)).append(" of ")
+                    .append(String.valueOf(pageCount)).append(").");
+            if (page < pageCount) {
+                out.append(" Type 'list ").append(String.valueOf(page + 1))
+                        .append(pageSize == Parser.DEFAULT_LIST_PAGE_SIZE ? "" : " " + pageSize)
+                        .append(NEXT_PAGE_SUFFIX);
+            }
+        }
+    }
+
+    /**
+     * Returns the command that shows the next page of a list response, if there is one.
+     *
+     * @param response a response returned by {@link #handleCommand(String)}
+     * @return the list command for the next page, or null if the response has no next page
+     */
+    public static String getNextPageCommand(String response) {
+        if (!response.endsWith(NEXT_PAGE_SUFFIX)) {
+            return null;
         }
-        return sb.toString().trim();
+        Matcher matcher = NEXT_PAGE_PATTERN.matcher(response);
+        return matcher.find() ? matcher.group(1) : null;
     }
 
     /**
@@ -210,12 +395,58 @@ public class Gui {
     /**
      * Handles the search for tasks containing a keyword for GUI.
      *
+     * With {@code find --all}, tasks moved to cold storage are searched too and listed after the others.
+     *
      * @param userInput the user input containing the find command and keyword
      * @return response message with found tasks
-     * @throws MegabotException if no keyword is provided
+     * @throws MegabotException if no keyword is provided, or cold storage cannot be read
      */
     public String handleFindCommand(String userInput) throws MegabotException {
-        return taskService.findTask(userInput);
+        if (!Parser.isFindAll(userInput)) {
+            return taskService.findTask(userInput);
+        }
+
+        String keyword = Parser.parseFindKeyword(userInput);
+        ArrayList<Task> foundTasks = tasks.findTasks(keyword);
+        ColdStore.Search search;
+        try {
+            search = new ColdStore(TaskTiering.getColdDirectory(storage.getFilePath())).search(keyword);
+        } catch (IOException e) {
+            throw new MegabotException("OOPSIE!! I couldn't search cold storage: " + e.getMessage());
+        }
+        List<Task> coldTasks = search.getTasks();
+
+        StringBuilder sb = new StringBuilder();
+        if (foundTasks.isEmpty() && coldTasks.isEmpty()) {
+            sb.append("No matching tasks found for keyword: ").append(keyword);
+        } else {
+            foundTasks.addAll(coldTasks);
+            sb.append("Here are the matching tasks, including old ones in cold storage:");
+            for (int i = 0; i < foundTasks.size(); i++) {
+                sb.append('\n').append(i + 1).append('.').append(foundTasks.get(i));
+            }
+            if (!coldTasks.isEmpty()) {
+                sb.append("\nThe last ").append(coldTasks.size())
+                        .append(" are in cold storage and can no longer be changed.");
+            }
+        }
+        if (search.getSegmentCount() > 0) {
+            sb.append('\n').append(showColdSearch(search));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Describes how many cold storage segments a search opened, and how many their filters let it skip.
+     *
+     * @param search the search of cold storage
+     * @return the summary line
+     */
+    private static String showColdSearch(ColdStore.Search search) {
+        return String.format("Cold storage: searched %d of %d segments, skipped %d by their filters, "
+                + "%d false positives (%.1f%% false positive rate).", search.getSearchedCount(),
+                search.getSegmentCount(), search.getSkippedCount(), search.getFalsePositiveCount(),
+                search.getFalsePositiveRate() * 100);
     }
 
     /**
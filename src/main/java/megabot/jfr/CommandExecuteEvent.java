@@ -0,0 +1,47 @@
+package megabot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for running one command, from parsed input to response.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+@Name("megabot.CommandExecute")
+@Label("Command Execute")
+@Description("Running a command against the task list")
+@Category({JfrEvents.CATEGORY, "Commands"})
+@StackTrace(false)
+public class CommandExecuteEvent extends Event {
+    @Label("Command")
+    private String command;
+
+    @Label("Successful")
+    private boolean isSuccessful;
+
+    @Label("Task Count")
+    private int taskCount;
+
+    /**
+     * Ends the event and commits it to the recording.
+     *
+     * @param command the command that ran
+     * @param isSuccessful false if the command failed with an error
+     * @param taskCount the number of tasks after the command
+     */
+    public void finish(String command, boolean isSuccessful, int taskCount) {
+        end();
+        if (shouldCommit()) {
+            this.command = command;
+            this.isSuccessful = isSuccessful;
+            this.taskCount = taskCount;
+            commit();
+        }
+    }
+}
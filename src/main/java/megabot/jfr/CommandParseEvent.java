@@ -0,0 +1,42 @@
+package megabot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for working out which command the user typed.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+@Name("megabot.CommandParse")
+@Label("Command Parse")
+@Description("Working out which command a line of user input is")
+@Category({JfrEvents.CATEGORY, "Commands"})
+@StackTrace(false)
+public class CommandParseEvent extends Event {
+    @Label("Command")
+    private String command;
+
+    @Label("Input Length")
+    private int inputLength;
+
+    /**
+     * Ends the event and commits it to the recording.
+     *
+     * @param command the command the input was parsed as
+     * @param inputLength the number of characters in the input
+     */
+    public void finish(String command, int inputLength) {
+        end();
+        if (shouldCommit()) {
+            this.command = command;
+            this.inputLength = inputLength;
+            commit();
+        }
+    }
+}
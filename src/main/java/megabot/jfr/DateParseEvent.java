@@ -0,0 +1,47 @@
+package megabot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for parsing a date, tracking how many formats had to be tried.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+@Name("megabot.DateParse")
+@Label("Date Parse")
+@Description("Parsing a date or date and time typed by the user")
+@Category({JfrEvents.CATEGORY, "Parsing"})
+@StackTrace(false)
+public class DateParseEvent extends Event {
+    @Label("Formatter Attempts")
+    private int attempts;
+
+    @Label("Format Index")
+    private int formatIndex;
+
+    @Label("Input Length")
+    private int inputLength;
+
+    /**
+     * Ends the event and commits it to the recording.
+     *
+     * @param attempts the number of formats tried, including the one that matched
+     * @param formatIndex the index of the format that matched, or -1 if none did
+     * @param inputLength the number of characters in the input
+     */
+    public void finish(int attempts, int formatIndex, int inputLength) {
+        end();
+        if (shouldCommit()) {
+            this.attempts = attempts;
+            this.formatIndex = formatIndex;
+            this.inputLength = inputLength;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package megabot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for filling a cell of the chat view with a message.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+@Name("megabot.GuiRender")
+@Label("GUI Render")
+@Description("Showing a chat message in a cell of the chat view")
+@Category({JfrEvents.CATEGORY, "GUI"})
+@StackTrace(false)
+public class GuiRenderEvent extends Event {
+    @Label("Speaker")
+    private String speaker;
+
+    @Label("Text Length")
+    private int textLength;
+
+    /**
+     * Ends the event and commits it to the recording.
+     *
+     * @param speaker who sent the message
+     * @param textLength the number of characters shown
+     */
+    public void finish(String speaker, int textLength) {
+        end();
+        if (shouldCommit()) {
+            this.speaker = speaker;
+            this.textLength = textLength;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package megabot.jfr;
+
+/**
+ * Switch for MegaBot's custom Java Flight Recorder events.
+ * Events are only created when MegaBot is started with {@code -Dmegabot.jfr=true}; a flight
+ * recording must also be running, e.g. with {@code -XX:StartFlightRecording}, for them to be kept.
+ *
+ * <p>The flag is a static final constant, so when it is off the JIT removes every
+ * {@code if (JfrEvents.ENABLED)} block and the instrumented code costs nothing.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public final class JfrEvents {
+    /** Whether MegaBot creates its custom flight recorder events. */
+    public static final boolean ENABLED = Boolean.getBoolean("megabot.jfr");
+
+    /** Category shared by all MegaBot events in JDK Mission Control. */
+    static final String CATEGORY = "MegaBot";
+
+    private JfrEvents() {
+        // Not meant to be instantiated
+    }
+}
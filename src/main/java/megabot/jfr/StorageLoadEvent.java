@@ -0,0 +1,52 @@
+package megabot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for loading the task file.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+@Name("megabot.StorageLoad")
+@Label("Storage Load")
+@Description("Reading the task file")
+@Category({JfrEvents.CATEGORY, "Storage"})
+@StackTrace(false)
+public class StorageLoadEvent extends Event {
+    @Label("Path")
+    private String path;
+
+    @Label("Task Count")
+    private int taskCount;
+
+    @Label("Byte Count")
+    private long byteCount;
+
+    @Label("Invalid Lines")
+    private int invalidLineCount;
+
+    /**
+     * Ends the event and commits it to the recording.
+     *
+     * @param path the task file
+     * @param taskCount the number of tasks loaded
+     * @param byteCount the size of the task file
+     * @param invalidLineCount the number of lines skipped
+     */
+    public void finish(String path, int taskCount, long byteCount, int invalidLineCount) {
+        end();
+        if (shouldCommit()) {
+            this.path = path;
+            this.taskCount = taskCount;
+            this.byteCount = byteCount;
+            this.invalidLineCount = invalidLineCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package megabot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for saving the task file.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+@Name("megabot.StorageSave")
+@Label("Storage Save")
+@Description("Writing the task file")
+@Category({JfrEvents.CATEGORY, "Storage"})
+@StackTrace(false)
+public class StorageSaveEvent extends Event {
+    @Label("Path")
+    private String path;
+
+    @Label("Task Count")
+    private int taskCount;
+
+    @Label("Byte Count")
+    private long byteCount;
+
+    /**
+     * Ends the event and commits it to the recording.
+     *
+     * @param path the task file
+     * @param taskCount the number of tasks saved
+     * @param byteCount the size of the saved file
+     */
+    public void finish(String path, int taskCount, long byteCount) {
+        end();
+        if (shouldCommit()) {
+            this.path = path;
+            this.taskCount = taskCount;
+            this.byteCount = byteCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package megabot.log;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Handler that queues records and hands them to another handler on a background thread.
+ * Logging threads only pay for putting the record in a bounded queue. When the queue is full,
+ * records are dropped rather than making the logging thread wait, and a warning with the number
+ * dropped is written once the writer catches up.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class AsyncHandler extends Handler {
+    /** Default number of records that can wait to be written. */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final long FLUSH_TIMEOUT_MILLIS = 1000;
+
+    private final Handler delegate;
+    private final BlockingQueue<LogRecord> queue;
+    private final Thread writerThread;
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private long reportedDroppedCount;
+    private volatile boolean isRunning = true;
+
+    /**
+     * Constructs an AsyncHandler in front of the given handler and starts its writer thread.
+     * The new handler takes over the level of the given one.
+     *
+     * @param delegate the handler that writes the records
+     * @param capacity the most records that can wait to be written
+     */
+    public AsyncHandler(Handler delegate, int capacity) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        setLevel(delegate.getLevel());
+        this.writerThread = new Thread(this::runWriter, "megabot-log");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Moves every handler of the root logger behind its own AsyncHandler.
+     * They are closed, and their queues drained, when the LogManager shuts down.
+     */
+    static synchronized void installOnRootLogger() {
+        Logger root = Logger.getLogger("");
+        for (Handler handler : root.getHandlers()) {
+            if (handler instanceof AsyncHandler) {
+                continue;
+            }
+            root.removeHandler(handler);
+            root.addHandler(new AsyncHandler(handler, DEFAULT_CAPACITY));
+        }
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (!isRunning || !isLoggable(record)) {
+            return;
+        }
+        // Records from plain Logger calls find their source by walking the stack, which only works here
+        record.getSourceClassName();
+        pendingCount.incrementAndGet();
+        if (!queue.offer(record)) {
+            pendingCount.decrementAndGet();
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Waits, for up to a second, until every queued record has been written, then flushes the delegate.
+     */
+    @Override
+    public void flush() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MILLIS);
+        while (pendingCount.get() > 0 && writerThread.isAlive() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        delegate.flush();
+    }
+
+    /**
+     * Stops accepting records, writes the ones already queued and closes the delegate.
+     */
+    @Override
+    public void close() {
+        isRunning = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(FLUSH_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    /**
+     * Returns the number of records dropped so far because the queue was full.
+     *
+     * @return the total number of dropped records
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private void runWriter() {
+        while (isRunning) {
+            try {
+                write(queue.take());
+            } catch (InterruptedException e) {
+                // Woken up by close()
+            }
+        }
+
+        LogRecord record;
+        while ((record = queue.poll()) != null) {
+            write(record);
+        }
+        reportDropped();
+    }
+
+    private void write(LogRecord record) {
+        delegate.publish(record);
+        pendingCount.decrementAndGet();
+        if (queue.isEmpty()) {
+            reportDropped();
+            delegate.flush();
+        }
+    }
+
+    private void reportDropped() {
+        long total = droppedCount.get();
+        long dropped = total - reportedDroppedCount;
+        reportedDroppedCount = total;
+        if (dropped > 0) {
+            LogRecord warning = new LogRecord(Level.WARNING, "log_records_dropped count=" + dropped);
+            warning.setLoggerName(AsyncHandler.class.getName());
+            warning.setSourceClassName(AsyncHandler.class.getName());
+            warning.setSourceMethodName("log_records_dropped");
+            delegate.publish(warning);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package megabot.log;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Structured logging facade over {@link java.util.logging}.
+ * Each log line is an event name followed by key=value fields, for example
+ * {@code storage_loaded tasks=1000 invalid=0 millis=31.2}, so logs can be searched and parsed
+ * without regular expressions.
+ *
+ * <p>Nothing is built unless the level is enabled: a disabled level returns a shared event that
+ * ignores every field, and fields or messages that are expensive to compute can be passed as suppliers.
+ * Per-line or per-request events on hot paths should also go through a {@link LogSampler}.
+ *
+ * <p>The entry points call {@link #installAsyncHandlers()} to move the root handlers behind an
+ * {@link AsyncHandler}, so that writing to the console or a file never blocks the thread that logs.
+ * Merely using a Log never changes the handlers, since they belong to the whole JVM.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public final class Log {
+    private static final String ASYNC_PROPERTY = "megabot.log.async";
+
+    private final Logger logger;
+
+    private Log(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Returns the log for the given class, named after it like a {@link Logger}.
+     *
+     * @param type the class that logs
+     * @return the log
+     */
+    public static Log get(Class<?> type) {
+        return new Log(Logger.getLogger(type.getName()));
+    }
+
+    /**
+     * Moves every handler of the root logger behind an {@link AsyncHandler}, unless MegaBot is started with
+     * {@code -Dmegabot.log.async=false}. Meant to be called once by each entry point, before anything logs;
+     * calling it again does nothing.
+     */
+    public static void installAsyncHandlers() {
+        if (!"false".equals(System.getProperty(ASYNC_PROPERTY))) {
+            AsyncHandler.installOnRootLogger();
+        }
+    }
+
+    /**
+     * Returns whether events at the given level are logged.
+     *
+     * @param level the level
+     * @return true if the level is enabled
+     */
+    public boolean isEnabled(Level level) {
+        return logger.isLoggable(level);
+    }
+
+    /**
+     * Starts an event at the given level.
+     *
+     * @param level the level
+     * @return an event to add fields to, which does nothing if the level is disabled
+     */
+    public LogEvent at(Level level) {
+        return logger.isLoggable(level) ? new LogEvent(logger, level) : LogEvent.NO_OP;
+    }
+
+    /**
+     * Starts an event at the given level, if the sampler lets this occurrence through.
+     * The first event after some were skipped carries a "skipped" field with how many.
+     *
+     * @param level the level
+     * @param sampler the sampler shared by every occurrence of this event
+     * @return an event to add fields to, which does nothing if the level is disabled or the event was skipped
+     */
+    public LogEvent at(Level level, LogSampler sampler) {
+        if (!logger.isLoggable(level)) {
+            return LogEvent.NO_OP;
+        }
+
+        long skippedCount = sampler.sample();
+        if (skippedCount < 0) {
+            return LogEvent.NO_OP;
+        }
+        LogEvent event = new LogEvent(logger, level);
+        return skippedCount == 0 ? event : event.with("skipped", skippedCount);
+    }
+
+    public LogEvent atWarning() {
+        return at(Level.WARNING);
+    }
+
+    public LogEvent atInfo() {
+        return at(Level.INFO);
+    }
+
+    public LogEvent atFine() {
+        return at(Level.FINE);
+    }
+}
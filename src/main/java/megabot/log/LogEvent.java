@@ -0,0 +1,139 @@
+package megabot.log;
+
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * One structured log event being built: fields are added with {@code with} and the event is written by {@code log}.
+ * Events for disabled levels are the shared {@link #NO_OP} instance, whose methods do nothing,
+ * so a disabled event allocates nothing beyond its arguments.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class LogEvent {
+    /** The event returned for disabled levels and skipped samples. */
+    static final LogEvent NO_OP = new LogEvent(null, Level.OFF);
+
+    private final Logger logger;
+    private final Level level;
+    private final StringBuilder fields;
+
+    LogEvent(Logger logger, Level level) {
+        this.logger = logger;
+        this.level = level;
+        this.fields = logger == null ? null : new StringBuilder();
+    }
+
+    /**
+     * Adds a numeric field.
+     *
+     * @param key the name of the field
+     * @param value the value
+     * @return this event
+     */
+    public LogEvent with(String key, long value) {
+        if (fields != null) {
+            fields.append(' ').append(key).append('=').append(value);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a field. Values containing spaces, quotes or '=' are quoted.
+     *
+     * @param key the name of the field
+     * @param value the value, converted with {@link String#valueOf(Object)}
+     * @return this event
+     */
+    public LogEvent with(String key, Object value) {
+        if (fields != null) {
+            appendField(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    /**
+     * Adds a field whose value is only computed if the event is logged.
+     *
+     * @param key the name of the field
+     * @param value supplies the value
+     * @return this event
+     */
+    public LogEvent with(String key, Supplier<?> value) {
+        if (fields != null) {
+            appendField(key, String.valueOf(value.get()));
+        }
+        return this;
+    }
+
+    /**
+     * Writes the event.
+     *
+     * @param event the name of the event, e.g. "storage_loaded"
+     */
+    public void log(String event) {
+        if (logger != null) {
+            publish(event, null);
+        }
+    }
+
+    /**
+     * Writes the event followed by a human-readable message, which is only built if the event is logged.
+     *
+     * @param event the name of the event, e.g. "storage_loaded"
+     * @param message supplies the message
+     */
+    public void log(String event, Supplier<String> message) {
+        if (logger != null) {
+            publish(event, message.get());
+        }
+    }
+
+    private void publish(String event, String message) {
+        StringBuilder text = new StringBuilder(event.length() + fields.length() + 32).append(event).append(fields);
+        if (message != null) {
+            text.append(": ").append(message);
+        }
+
+        LogRecord record = new LogRecord(level, text.toString());
+        record.setLoggerName(logger.getName());
+        // Setting the source up front stops java.util.logging from walking the stack to find it
+        record.setSourceClassName(logger.getName());
+        record.setSourceMethodName(event);
+        logger.log(record);
+    }
+
+    private void appendField(String key, String value) {
+        fields.append(' ').append(key).append('=');
+        if (!needsQuotes(value)) {
+            fields.append(value);
+            return;
+        }
+
+        fields.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                fields.append('\\');
+            }
+            fields.append(c == '\n' ? ' ' : c);
+        }
+        fields.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (value.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c <= ' ' || c == '"' || c == '=' || c == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
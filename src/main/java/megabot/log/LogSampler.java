@@ -0,0 +1,71 @@
+package megabot.log;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which occurrences of a frequent event are logged, e.g. one in every 10,000 lines of a file
+ * or at most one per second. Keep one sampler per event, in a static field next to where it is logged.
+ * Safe to use from many threads.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public final class LogSampler {
+    private final long period;
+    private final long intervalNanos;
+    private final AtomicLong occurrenceCount = new AtomicLong();
+    private final AtomicLong nextAllowedNanos = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    private LogSampler(long period, long intervalNanos) {
+        this.period = period;
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * Returns a sampler that lets through the first occurrence and then every n-th one.
+     *
+     * @param n the number of occurrences per logged event, at least 1
+     * @return the sampler
+     */
+    public static LogSampler every(long n) {
+        assert n > 0 : "Sampling period must be at least 1";
+        return new LogSampler(n, 0);
+    }
+
+    /**
+     * Returns a sampler that lets through at most one occurrence per interval.
+     *
+     * @param interval the shortest time between logged events
+     * @return the sampler
+     */
+    public static LogSampler atMostEvery(Duration interval) {
+        assert !interval.isNegative() && !interval.isZero() : "Interval must be positive";
+        return new LogSampler(0, interval.toNanos());
+    }
+
+    /**
+     * Records an occurrence and decides whether to log it.
+     *
+     * @return -1 to skip this occurrence, otherwise the number skipped since the last one let through
+     */
+    long sample() {
+        boolean isLogged = period > 0 ? occurrenceCount.getAndIncrement() % period == 0 : tryClaimInterval();
+        if (!isLogged) {
+            skippedCount.incrementAndGet();
+            return -1;
+        }
+        return skippedCount.getAndSet(0);
+    }
+
+    private boolean tryClaimInterval() {
+        long now = System.nanoTime();
+        long nextAllowed = nextAllowedNanos.get();
+        if (nextAllowed != Long.MIN_VALUE && now - nextAllowed < 0) {
+            return false;
+        }
+        // Only one of several threads arriving together wins the interval
+        return nextAllowedNanos.compareAndSet(nextAllowed, now + intervalNanos);
+    }
+}
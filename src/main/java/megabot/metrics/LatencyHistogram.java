@@ -0,0 +1,121 @@
+package megabot.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds with log-linear buckets, in the style of HdrHistogram.
+ * Values below 16 ns get one bucket each; every power of two above that is split into 16 equal
+ * buckets, so any recorded value is reported within 1/16 (about 6%) of its true value.
+ * Values above {@link #MAX_TRACKABLE_NANOS} are counted in the last bucket.
+ *
+ * <p>Recording is a handful of arithmetic operations and one atomic increment, with no locks and no
+ * allocation, so it is cheap enough to run on every command. Any number of threads may record at once.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class LatencyHistogram {
+    /** Largest duration that gets a bucket of its own, about 18 minutes. */
+    public static final long MAX_TRACKABLE_NANOS = (1L << 40) - 1;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = indexOf(MAX_TRACKABLE_NANOS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos the duration in nanoseconds; negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_TRACKABLE_NANOS));
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(value);
+
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Returns the number of durations recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Returns the longest duration recorded.
+     *
+     * @return the maximum in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the average duration recorded.
+     *
+     * @return the mean in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getMeanNanos() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalNanos.get() / count;
+    }
+
+    /**
+     * Returns the duration that the given percentage of recorded durations do not exceed.
+     * The result is the upper end of the bucket the percentile falls in, capped at the maximum.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the percentile in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        assert percentile >= 0 && percentile <= 100 : "Percentile must be between 0 and 100";
+
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), maxNanos.get());
+            }
+        }
+        // Buckets recorded after the total was read
+        return maxNanos.get();
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int group = highestBit - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> (group - 1)) & (SUB_BUCKET_COUNT - 1);
+        return group * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long highestValueIn(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int group = index / SUB_BUCKET_COUNT;
+        long subBucket = SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << (group - 1)) - 1;
+    }
+}
@@ -0,0 +1,225 @@
+package megabot.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import megabot.log.Log;
+import megabot.task.Command;
+
+/**
+ * Collects how long commands and storage operations take while MegaBot runs.
+ * Each {@link Command} type has its own {@link LatencyHistogram} and error count, and storage
+ * records load and save durations and the number of bytes written.
+ * The statistics are shown by the stats command and, optionally, over JMX.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class MetricsRegistry implements MetricsRegistryMXBean {
+    /** Name the global registry is published under over JMX. */
+    public static final String JMX_NAME = "megabot:type=Metrics";
+
+    private static final Log LOG = Log.get(MetricsRegistry.class);
+    private static final MetricsRegistry GLOBAL = createGlobal();
+
+    private final Command[] commands = Command.values();
+    private final LatencyHistogram[] commandLatencies = new LatencyHistogram[commands.length];
+    private final AtomicLongArray commandErrors = new AtomicLongArray(commands.length);
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final LatencyHistogram saveLatency = new LatencyHistogram();
+    private final AtomicLong tasksLoaded = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    /**
+     * Constructs an empty MetricsRegistry.
+     */
+    public MetricsRegistry() {
+        for (int i = 0; i < commandLatencies.length; i++) {
+            commandLatencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Returns the registry shared by the whole application.
+     *
+     * @return the global registry
+     */
+    public static MetricsRegistry getGlobal() {
+        return GLOBAL;
+    }
+
+    private static MetricsRegistry createGlobal() {
+        MetricsRegistry registry = new MetricsRegistry();
+        if (Boolean.getBoolean("megabot.jmx")) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(registry, new ObjectName(JMX_NAME));
+            } catch (JMException e) {
+                LOG.atWarning().with("reason", e.getMessage()).log("metrics_jmx_failed");
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Records one executed command.
+     *
+     * @param command the type of the command
+     * @param nanos how long the command took
+     * @param isSuccessful false if the command failed with an error
+     */
+    public void recordCommand(Command command, long nanos, boolean isSuccessful) {
+        int index = command.ordinal();
+        commandLatencies[index].record(nanos);
+        if (!isSuccessful) {
+            commandErrors.incrementAndGet(index);
+        }
+    }
+
+    /**
+     * Records one load of the task file.
+     *
+     * @param nanos how long the load took
+     * @param taskCount the number of tasks loaded
+     */
+    public void recordLoad(long nanos, int taskCount) {
+        loadLatency.record(nanos);
+        tasksLoaded.addAndGet(taskCount);
+    }
+
+    /**
+     * Records one save of the task file.
+     *
+     * @param nanos how long the save took
+     * @param bytes the size of the saved file
+     */
+    public void recordSave(long nanos, long bytes) {
+        saveLatency.record(nanos);
+        bytesWritten.addAndGet(bytes);
+    }
+
+    /**
+     * Returns the latency histogram of the given command type.
+     *
+     * @param command the type of command
+     * @return the histogram
+     */
+    public LatencyHistogram getCommandLatency(Command command) {
+        return commandLatencies[command.ordinal()];
+    }
+
+    public LatencyHistogram getLoadLatency() {
+        return loadLatency;
+    }
+
+    public LatencyHistogram getSaveLatency() {
+        return saveLatency;
+    }
+
+    @Override
+    public Map<String, Long> getCommandCounts() {
+        return perCommand(LatencyHistogram::getCount);
+    }
+
+    @Override
+    public Map<String, Long> getCommandErrorCounts() {
+        Map<String, Long> errors = new LinkedHashMap<>();
+        for (Command command : commands) {
+            errors.put(command.name(), commandErrors.get(command.ordinal()));
+        }
+        return errors;
+    }
+
+    @Override
+    public Map<String, Long> getCommandP50Nanos() {
+        return perCommand(histogram -> histogram.getPercentileNanos(50));
+    }
+
+    @Override
+    public Map<String, Long> getCommandP99Nanos() {
+        return perCommand(histogram -> histogram.getPercentileNanos(99));
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadLatency.getCount();
+    }
+
+    @Override
+    public long getLoadP99Nanos() {
+        return loadLatency.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getSaveCount() {
+        return saveLatency.getCount();
+    }
+
+    @Override
+    public long getSaveP99Nanos() {
+        return saveLatency.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    private Map<String, Long> perCommand(ToLongFunction<LatencyHistogram> statistic) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Command command : commands) {
+            values.put(command.name(), statistic.applyAsLong(commandLatencies[command.ordinal()]));
+        }
+        return values;
+    }
+
+    /**
+     * Returns a summary of all statistics recorded so far, one line per command type that has run.
+     *
+     * @return the formatted statistics
+     */
+    @Override
+    public String report() {
+        StringBuilder sb = new StringBuilder("Here are my statistics so far:\n");
+        sb.append(String.format("%-9s %7s %6s %9s %9s %9s%n", "command", "count", "errors", "p50", "p99", "max"));
+        for (Command command : commands) {
+            LatencyHistogram histogram = commandLatencies[command.ordinal()];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            String name = command == Command.UNKNOWN ? "(unknown)" : command.getCommandText();
+            sb.append(String.format("%-9s %7d %6d %9s %9s %9s%n", name, histogram.getCount(),
+                    commandErrors.get(command.ordinal()), formatNanos(histogram.getPercentileNanos(50)),
+                    formatNanos(histogram.getPercentileNanos(99)), formatNanos(histogram.getMaxNanos())));
+        }
+        sb.append(String.format("Loads: %d (%d tasks, p99 %s)%n", loadLatency.getCount(), tasksLoaded.get(),
+                formatNanos(loadLatency.getPercentileNanos(99))));
+        sb.append(String.format("Saves: %d (%s written, p50 %s, p99 %s)", saveLatency.getCount(),
+                ObjectLayout.formatBytes(bytesWritten.get()), formatNanos(saveLatency.getPercentileNanos(50)),
+                formatNanos(saveLatency.getPercentileNanos(99))));
+        return sb.toString();
+    }
+
+    /**
+     * Formats a duration with a unit that keeps it short, e.g. "850 ns" or "12.3 ms".
+     *
+     * @param nanos the duration in nanoseconds
+     * @return the formatted duration
+     */
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + " ns";
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1f us", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.1f ms", nanos / 1e6);
+        }
+        return String.format("%.2f s", nanos / 1e9);
+    }
+}
@@ -0,0 +1,37 @@
+package megabot.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link MetricsRegistry}, published over JMX when MegaBot is started
+ * with {@code -Dmegabot.jmx=true}.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public interface MetricsRegistryMXBean {
+    Map<String, Long> getCommandCounts();
+
+    Map<String, Long> getCommandErrorCounts();
+
+    Map<String, Long> getCommandP50Nanos();
+
+    Map<String, Long> getCommandP99Nanos();
+
+    long getLoadCount();
+
+    long getLoadP99Nanos();
+
+    long getSaveCount();
+
+    long getSaveP99Nanos();
+
+    long getBytesWritten();
+
+    /**
+     * Returns the same summary as the stats command.
+     *
+     * @return the formatted statistics
+     */
+    String report();
+}
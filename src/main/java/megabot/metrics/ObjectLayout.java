@@ -0,0 +1,185 @@
+package megabot.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Estimates how many bytes objects take on the heap of the running JVM, without a heap dump.
+ * Sizes follow HotSpot's layout: an object header, then the fields of the class and its superclasses,
+ * rounded up to the object alignment. Whether references and class pointers are compressed is read
+ * from the JVM's own options, so the estimates match both small heaps and heaps over 32 GB.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public final class ObjectLayout {
+    private static final ObjectLayout CURRENT = detect();
+
+    private final int referenceSize;
+    private final int objectHeaderSize;
+    private final int arrayHeaderSize;
+    private final int alignment;
+    private final boolean isCompactStrings;
+    private final ClassValue<Long> shallowSizes = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            return computeShallowSize(type);
+        }
+    };
+
+    /**
+     * Constructs an ObjectLayout with the given JVM settings.
+     *
+     * @param isCompressedOops whether references take 4 bytes instead of 8
+     * @param isCompressedClassPointers whether object headers hold a 4-byte class pointer instead of 8
+     * @param alignment the object alignment in bytes, a power of two
+     * @param isCompactStrings whether strings of Latin-1 characters use one byte per character
+     */
+    public ObjectLayout(boolean isCompressedOops, boolean isCompressedClassPointers, int alignment,
+            boolean isCompactStrings) {
+        assert alignment > 0 && Integer.bitCount(alignment) == 1 : "Alignment must be a power of two";
+
+        this.referenceSize = isCompressedOops ? 4 : 8;
+        this.objectHeaderSize = isCompressedClassPointers ? 12 : 16;
+        // The array length follows the header, and elements start at the next 8-byte boundary
+        this.arrayHeaderSize = isCompressedClassPointers ? 16 : 24;
+        this.alignment = alignment;
+        this.isCompactStrings = isCompactStrings;
+    }
+
+    /**
+     * Returns the layout of the running JVM.
+     *
+     * @return the current layout
+     */
+    public static ObjectLayout current() {
+        return CURRENT;
+    }
+
+    private static ObjectLayout detect() {
+        HotSpotDiagnosticMXBean hotSpot = null;
+        try {
+            hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        } catch (IllegalArgumentException e) {
+            // Not a HotSpot JVM, fall back to the defaults for heaps under 32 GB
+        }
+        return new ObjectLayout(readOption(hotSpot, "UseCompressedOops", "true").equals("true"),
+                readOption(hotSpot, "UseCompressedClassPointers", "true").equals("true"),
+                Integer.parseInt(readOption(hotSpot, "ObjectAlignmentInBytes", "8")),
+                readOption(hotSpot, "CompactStrings", "true").equals("true"));
+    }
+
+    private static String readOption(HotSpotDiagnosticMXBean hotSpot, String name, String defaultValue) {
+        if (hotSpot == null) {
+            return defaultValue;
+        }
+        try {
+            return hotSpot.getVMOption(name).getValue();
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+
+    public int getReferenceSize() {
+        return referenceSize;
+    }
+
+    /**
+     * Returns the size of an instance of the given class, not counting the objects its fields refer to.
+     *
+     * @param type the class
+     * @return the shallow size in bytes
+     */
+    public long shallowSize(Class<?> type) {
+        return shallowSizes.get(type);
+    }
+
+    private long computeShallowSize(Class<?> type) {
+        long size = objectHeaderSize;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    size += fieldSize(field.getType());
+                }
+            }
+        }
+        return align(size);
+    }
+
+    private int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return referenceSize;
+    }
+
+    /**
+     * Returns the size of an array.
+     *
+     * @param length the number of elements
+     * @param elementSize the size of each element in bytes
+     * @return the size in bytes
+     */
+    public long arraySize(long length, int elementSize) {
+        return align(arrayHeaderSize + length * elementSize);
+    }
+
+    /**
+     * Returns the size of a string together with the array holding its characters.
+     *
+     * @param text the string, or null
+     * @return the retained size in bytes, or 0 for null
+     */
+    public long stringSize(String text) {
+        if (text == null) {
+            return 0;
+        }
+        return shallowSize(String.class) + arraySize(text.length(), isLatin1(text) ? 1 : 2);
+    }
+
+    private boolean isLatin1(String text) {
+        if (!isCompactStrings) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long align(long size) {
+        return (size + alignment - 1) & -alignment;
+    }
+
+    /**
+     * Formats a number of bytes with a unit that keeps it short, e.g. "850 B" or "12.3 MiB".
+     *
+     * @param bytes the number of bytes
+     * @return the formatted size
+     */
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format("%.1f KiB", bytes / 1024.0);
+        }
+        return String.format("%.1f MiB", bytes / (1024.0 * 1024));
+    }
+
+    @Override
+    public String toString() {
+        return (referenceSize == 4 ? "compressed" : "8-byte") + " references, " + objectHeaderSize
+                + "-byte object headers and " + alignment + "-byte alignment";
+    }
+}
@@ -9,6 +9,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import megabot.exception.MegabotException;
+import megabot.jfr.DateParseEvent;
+import megabot.jfr.JfrEvents;
 
 /**
  * Utility class for parsing and handling various datetime formats.
@@ -17,6 +19,8 @@ import megabot.exception.MegabotException;
  * @version 1.0
  */
 public class DateTimeParser {
+    /** Format index of a date/time whose original text cannot be rebuilt with any supported format. */
+    public static final int UNKNOWN_FORMAT = -1;
 
     // Comprehensive list of supported date formats
     private static final List<DateTimeFormatter> DATE_FORMATTERS = new ArrayList<>();
@@ -56,33 +60,94 @@ public class DateTimeParser {
      * @throws MegabotException if the string cannot be parsed with any supported format
      */
     public static LocalDateTime parseDateTime(String dateTimeStr) throws MegabotException {
+        return parseWithFormat(dateTimeStr).getDateTime();
+    }
+
+    /**
+     * Parses a datetime string like {@link #parseDateTime(String)}, and also reports which format matched.
+     * Datetime formats are numbered first, followed by the date-only formats.
+     *
+     * @param dateTimeStr the datetime string to parse
+     * @return the parsed datetime together with the index of the format that matched
+     * @throws MegabotException if the string cannot be parsed with any supported format
+     */
+    public static ParsedDateTime parseWithFormat(String dateTimeStr) throws MegabotException {
         if (dateTimeStr == null || dateTimeStr.trim().isEmpty()) {
             throw new MegabotException("OOPSIE!! Date/time cannot be empty.");
         }
 
         String trimmedInput = dateTimeStr.trim();
 
+        DateParseEvent event = null;
+        if (JfrEvents.ENABLED) {
+            event = new DateParseEvent();
+            event.begin();
+        }
+
+        ParsedDateTime parsed = tryAllFormats(trimmedInput);
+
+        if (event != null) {
+            // Formats are tried in index order, so the index of the match tells how many were tried
+            int formatCount = getFormatCount();
+            int formatIndex = parsed == null ? UNKNOWN_FORMAT : parsed.getFormatIndex();
+            event.finish(parsed == null ? formatCount : formatIndex + 1, formatIndex, trimmedInput.length());
+        }
+
+        if (parsed == null) {
+            // If no format worked, throw detailed error
+            throw new MegabotException(createDateTimeErrorMessage(trimmedInput));
+        }
+        return parsed;
+    }
+
+    private static ParsedDateTime tryAllFormats(String trimmedInput) {
         // First try datetime formats
-        for (DateTimeFormatter formatter : DATETIME_FORMATTERS) {
+        String dateTimeInput = trimmedInput.replace("T", " ");
+        for (int i = 0; i < DATETIME_FORMATTERS.size(); i++) {
             try {
-                return LocalDateTime.parse(trimmedInput.replace("T", " "), formatter);
+                LocalDateTime dateTime = LocalDateTime.parse(dateTimeInput, DATETIME_FORMATTERS.get(i));
+                return new ParsedDateTime(dateTime, i);
             } catch (DateTimeParseException e) {
                 // Continue to next format
             }
         }
 
         // Then try date-only formats (set time to midnight)
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
+        for (int i = 0; i < DATE_FORMATTERS.size(); i++) {
             try {
-                LocalDate date = LocalDate.parse(trimmedInput, formatter);
-                return LocalDateTime.of(date, LocalTime.MIDNIGHT);
+                LocalDate date = LocalDate.parse(trimmedInput, DATE_FORMATTERS.get(i));
+                return new ParsedDateTime(LocalDateTime.of(date, LocalTime.MIDNIGHT), DATETIME_FORMATTERS.size() + i);
             } catch (DateTimeParseException e) {
                 // Continue to next format
             }
         }
 
-        // If no format worked, throw detailed error
-        throw new MegabotException(createDateTimeErrorMessage(trimmedInput));
+        return null;
+    }
+
+    /**
+     * Returns the number of supported formats, so format indices run from 0 to this value minus one.
+     *
+     * @return the number of supported formats
+     */
+    public static int getFormatCount() {
+        return DATETIME_FORMATTERS.size() + DATE_FORMATTERS.size();
+    }
+
+    /**
+     * Formats a datetime with one of the supported formats.
+     *
+     * @param dateTime the datetime to format
+     * @param formatIndex the index of the format, as reported by {@link #parseWithFormat(String)}
+     * @return the formatted datetime
+     */
+    public static String format(LocalDateTime dateTime, int formatIndex) {
+        assert formatIndex >= 0 && formatIndex < getFormatCount() : "Unknown format index";
+
+        if (formatIndex < DATETIME_FORMATTERS.size()) {
+            return dateTime.format(DATETIME_FORMATTERS.get(formatIndex));
+        }
+        return dateTime.format(DATE_FORMATTERS.get(formatIndex - DATETIME_FORMATTERS.size()));
     }
 
     /**
@@ -172,4 +237,25 @@ public class DateTimeParser {
                     + "Start: " + startDateTime + ", End: " + endDateTime);
         }
     }
+
+    /**
+     * A parsed datetime together with the index of the format it was written in.
+     */
+    public static class ParsedDateTime {
+        private final LocalDateTime dateTime;
+        private final int formatIndex;
+
+        ParsedDateTime(LocalDateTime dateTime, int formatIndex) {
+            this.dateTime = dateTime;
+            this.formatIndex = formatIndex;
+        }
+
+        public LocalDateTime getDateTime() {
+            return dateTime;
+        }
+
+        public int getFormatIndex() {
+            return formatIndex;
+        }
+    }
 }
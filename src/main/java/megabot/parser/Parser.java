@@ -1,6 +1,8 @@
 package megabot.parser;
 
 import megabot.exception.MegabotException;
+import megabot.jfr.CommandParseEvent;
+import megabot.jfr.JfrEvents;
 import megabot.task.Command;
 
 /**
@@ -11,6 +13,10 @@ import megabot.task.Command;
  * @version 1.0
  */
 public class Parser {
+    /** Number of tasks shown per page by the list command when no page size is given. */
+    public static final int DEFAULT_LIST_PAGE_SIZE = 50;
+    /** Given before the keyword, e.g. "find --all book", to also search tasks moved to cold storage. */
+    public static final String FIND_ALL_FLAG = "--all";
 
     /**
      * Parses the user input to determine the command type.
@@ -27,8 +33,18 @@ public class Parser {
             throw new MegabotException("OOPSIE!! Please enter a command.");
         }
 
+        CommandParseEvent event = null;
+        if (JfrEvents.ENABLED) {
+            event = new CommandParseEvent();
+            event.begin();
+        }
+
         Command result = Command.fromString(userInput);
 
+        if (event != null) {
+            event.finish(result.name(), userInput.length());
+        }
+
         // Post-condition: result should never be null
         assert result != null : "parseCommand should never return null";
         return result;
@@ -79,6 +95,41 @@ public class Parser {
         }
     }
 
+    /**
+     * Parses the page number and page size of a list command.
+     * Expected format: "list [page] [page size]"
+     *
+     * @param userInput the user input containing the list command
+     * @return an int array where [0] is the page number, starting from 1, and [1] is the page size
+     * @throws MegabotException if the page number or size is not a positive integer
+     */
+    public static int[] parseListPage(String userInput) throws MegabotException {
+        if (userInput == null || userInput.trim().isEmpty()) {
+            throw new MegabotException("OOPSIE!! Input cannot be empty.");
+        }
+
+        String[] parts = userInput.trim().split("\\s+");
+        int page = 1;
+        int pageSize = DEFAULT_LIST_PAGE_SIZE;
+
+        try {
+            if (parts.length > 1) {
+                page = Integer.parseInt(parts[1]);
+            }
+            if (parts.length > 2) {
+                pageSize = Integer.parseInt(parts[2]);
+            }
+        } catch (NumberFormatException e) {
+            throw new MegabotException("OOPSIE!! Please use format: list [page] [page size]");
+        }
+
+        if (parts.length > 3 || page < 1 || pageSize < 1) {
+            throw new MegabotException("OOPSIE!! Please use format: list [page] [page size]");
+        }
+
+        return new int[]{page, pageSize};
+    }
+
     /**
      * Parses deadline command parameters.
      * Expected format: "description /by date"
@@ -174,10 +225,29 @@ public class Parser {
      * @throws MegabotException if no keyword is provided
      */
     public static String parseFindKeyword(String userInput) throws MegabotException {
-        String keyword = removeFirstWord(userInput);
+        String keyword = removeFirstWord(userInput).trim();
+        if (hasFindAllFlag(keyword)) {
+            keyword = keyword.substring(FIND_ALL_FLAG.length());
+        }
         if (keyword.trim().isEmpty()) {
             throw new MegabotException("OOPSIE!! Please specify a keyword to search for.");
         }
         return keyword.trim();
     }
+
+    /**
+     * Returns whether a find command also asks for tasks in cold storage.
+     *
+     * @param userInput the user input containing the find command
+     * @return true if the keyword is preceded by {@link #FIND_ALL_FLAG}
+     * @throws MegabotException if the input is null
+     */
+    public static boolean isFindAll(String userInput) throws MegabotException {
+        return hasFindAllFlag(removeFirstWord(userInput).trim());
+    }
+
+    private static boolean hasFindAllFlag(String arguments) {
+        return arguments.startsWith(FIND_ALL_FLAG)
+                && (arguments.length() == FIND_ALL_FLAG.length() || arguments.charAt(FIND_ALL_FLAG.length()) == ' ');
+    }
 }
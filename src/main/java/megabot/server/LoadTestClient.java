@@ -0,0 +1,175 @@
+package megabot.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test client for {@link TaskServer}.
+ * Opens many concurrent connections, sends a mix of read and write commands on each
+ * and reports throughput and p50/p99 latency.
+ * Usage: {@code [--port <n>|--socket <path>] [--connections <n>] [--requests <n>] [--write-percent <n>]}.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class LoadTestClient {
+    private static final int DEFAULT_PORT = 7070;
+
+    private final SocketAddress address;
+    private final int connectionCount;
+    private final int requestsPerConnection;
+    private final int writePercent;
+
+    /**
+     * Constructs a LoadTestClient.
+     *
+     * @param address the address of the server
+     * @param connectionCount the number of concurrent connections
+     * @param requestsPerConnection the number of commands sent on each connection
+     * @param writePercent the percentage of commands that add a task instead of searching
+     */
+    public LoadTestClient(SocketAddress address, int connectionCount, int requestsPerConnection,
+            int writePercent) {
+        this.address = address;
+        this.connectionCount = connectionCount;
+        this.requestsPerConnection = requestsPerConnection;
+        this.writePercent = writePercent;
+    }
+
+    /**
+     * Runs the load test and returns a report of the results.
+     *
+     * @return the report
+     * @throws InterruptedException if interrupted while waiting for the connections
+     */
+    public String run() throws InterruptedException {
+        long[] latencies = new long[connectionCount * requestsPerConnection];
+        AtomicInteger failedConnections = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(connectionCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(connectionCount);
+        ExecutorService executor = TaskServer.newPerConnectionExecutor();
+
+        for (int i = 0; i < connectionCount; i++) {
+            int connection = i;
+            executor.submit(() -> {
+                try {
+                    runConnection(connection, latencies, ready, start);
+                } catch (IOException | InterruptedException e) {
+                    failedConnections.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        ready.await();
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsedNanos = System.nanoTime() - startTime;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        return String.format("%d connections x %d requests (%d%% writes), %d failed connections%n"
+                        + "throughput: %.0f requests/sec%n"
+                        + "latency p50: %.2f ms, p99: %.2f ms, max: %.2f ms",
+                connectionCount, requestsPerConnection, writePercent, failedConnections.get(),
+                latencies.length * 1e9 / elapsedNanos,
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    private void runConnection(int connection, long[] latencies, CountDownLatch ready, CountDownLatch start)
+            throws IOException, InterruptedException {
+        try (SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open()) {
+            channel.connect(address);
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            Writer out = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+
+            ready.countDown();
+            start.await();
+
+            for (int i = 0; i < requestsPerConnection; i++) {
+                int requestNumber = connection * requestsPerConnection + i;
+                boolean isWrite = requestNumber % 100 < writePercent;
+                String command = isWrite
+                        ? "todo load test " + connection + "-" + i
+                        : "find load test " + connection + "-";
+
+                long startTime = System.nanoTime();
+                out.write(command);
+                out.write('\n');
+                out.flush();
+                readResponse(in);
+                latencies[requestNumber] = System.nanoTime() - startTime;
+            }
+        }
+    }
+
+    private static void readResponse(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(TaskServer.END_OF_RESPONSE)) {
+                return;
+            }
+        }
+        throw new IOException("Connection closed before the end of the response");
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), DEFAULT_PORT);
+        int connectionCount = 1000;
+        int requestsPerConnection = 20;
+        int writePercent = 10;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--port":
+                address = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[i + 1]));
+                break;
+            case "--socket":
+                address = UnixDomainSocketAddress.of(args[i + 1]);
+                break;
+            case "--connections":
+                connectionCount = Integer.parseInt(args[i + 1]);
+                break;
+            case "--requests":
+                requestsPerConnection = Integer.parseInt(args[i + 1]);
+                break;
+            case "--write-percent":
+                writePercent = Integer.parseInt(args[i + 1]);
+                break;
+            default:
+                System.err.println("Usage: [--port <n>|--socket <path>] [--connections <n>] "
+                        + "[--requests <n>] [--write-percent <n>]");
+                System.exit(2);
+            }
+        }
+
+        System.out.println(new LoadTestClient(address, connectionCount, requestsPerConnection, writePercent).run());
+    }
+}
@@ -0,0 +1,264 @@
+package megabot.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+import megabot.MegaBot;
+import megabot.exception.MegabotException;
+import megabot.gui.Gui;
+import megabot.log.Log;
+import megabot.log.LogSampler;
+import megabot.task.Command;
+import megabot.task.Task;
+import megabot.task.TaskList;
+
+/**
+ * Serves the live task list of a {@link MegaBot} to local clients over a loopback TCP
+ * or Unix domain socket, so that several tools can share it instead of each reloading the data file.
+ *
+ * <p>The protocol is line based: the client sends one command per line and the server answers with
+ * the response lines followed by a line containing only {@value #END_OF_RESPONSE}. Response lines that
+ * start with a dot are sent with an extra leading dot, which the client removes.
+ *
+ * <p>Commands that change tasks are executed one at a time by a single writer thread through
+ * {@link MegaBot#getResponse(String)}. Read-only commands run concurrently on the connection threads
+ * against a copy of the list and of its tasks that the writer publishes after its queue drains, so a read
+ * never sees a task the writer is in the middle of changing.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class TaskServer implements Closeable {
+    static final String END_OF_RESPONSE = ".";
+    private static final Log LOG = Log.get(TaskServer.class);
+    private static final LogSampler CONNECTION_CLOSED_SAMPLER = LogSampler.atMostEvery(Duration.ofSeconds(1));
+    private static final String DEFAULT_FILE_PATH = "./data/megabot.txt";
+    private static final int DEFAULT_PORT = 7070;
+    private static final int BACKLOG = 1024;
+
+    private final MegaBot megabot;
+    private final ExecutorService connections;
+    private volatile Gui snapshot;
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * Constructs a TaskServer that serves the tasks of the given MegaBot.
+     *
+     * @param megabot the MegaBot whose task list is served
+     */
+    public TaskServer(MegaBot megabot) {
+        this.megabot = megabot;
+        this.connections = newPerConnectionExecutor();
+        megabot.getEngine().submit(tasks -> {
+            publishSnapshot();
+            return null;
+        }, true).join();
+        megabot.getEngine().addSaveListener(this::publishSnapshot);
+    }
+
+    /**
+     * Starts accepting connections on the given address.
+     * Use an {@link InetSocketAddress} on the loopback interface or a {@link UnixDomainSocketAddress}.
+     *
+     * @param address the address to listen on
+     * @throws IOException if the address cannot be bound
+     */
+    public void start(SocketAddress address) throws IOException {
+        serverChannel = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        serverChannel.bind(address, BACKLOG);
+        newDaemonThread(this::acceptConnections, "megabot-acceptor").start();
+        LOG.atInfo().with("address", serverChannel.getLocalAddress()).log("server_started");
+    }
+
+    /**
+     * Returns the address the server is listening on.
+     *
+     * @return the bound address
+     * @throws IOException if the address cannot be read
+     */
+    public SocketAddress getLocalAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Executes a command and returns the response.
+     * Read-only commands are answered from the latest snapshot; all other commands are
+     * queued for the writer thread.
+     *
+     * @param input the user input string
+     * @return the response message
+     */
+    public String execute(String input) {
+        if (Command.fromString(input).isReadOnly()) {
+            try {
+                return snapshot.handleCommand(input);
+            } catch (MegabotException e) {
+                return e.getMessage();
+            }
+        }
+
+        try {
+            return megabot.submit(input).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "OOPSIE!! The server is shutting down.";
+        } catch (ExecutionException e) {
+            return "OOPSIE!! " + e.getCause().getMessage();
+        }
+    }
+
+    private void publishSnapshot() {
+        ArrayList<Task> liveTasks = megabot.getTaskList().getTasks();
+        ArrayList<Task> copies = new ArrayList<>(liveTasks.size());
+        for (Task task : liveTasks) {
+            copies.add(task.copy());
+        }
+        TaskList copy = new TaskList(copies);
+        snapshot = new Gui(copy, megabot.getStorage());
+    }
+
+    private void acceptConnections() {
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                connections.submit(() -> serve(channel));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                LOG.atWarning().with("reason", e.getMessage()).log("server_accept_failed");
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try (channel;
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        Channels.newInputStream(channel), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(new OutputStreamWriter(
+                        Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String input = line.trim();
+                writeResponse(out, execute(input));
+                out.flush();
+
+                if (input.equals("bye")) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            LOG.at(Level.FINE, CONNECTION_CLOSED_SAMPLER).with("reason", e.getMessage())
+                    .log("server_connection_closed");
+        }
+    }
+
+    private static void writeResponse(Writer out, String response) throws IOException {
+        for (String line : response.split("\n", -1)) {
+            if (line.startsWith(".")) {
+                out.write('.');
+            }
+            out.write(line);
+            out.write('\n');
+        }
+        out.write(END_OF_RESPONSE);
+        out.write('\n');
+    }
+
+    /**
+     * Stops accepting connections and waits for queued writes to finish.
+     *
+     * @throws IOException if the server socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        connections.shutdownNow();
+        megabot.shutdown();
+    }
+
+    /**
+     * Returns an executor that runs every submitted task on its own thread.
+     * Virtual threads are used when the runtime supports them (Java 21+),
+     * otherwise each task gets a platform daemon thread.
+     *
+     * @return the executor
+     */
+    static ExecutorService newPerConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> newDaemonThread(runnable, "megabot-connection"));
+        }
+    }
+
+    private static Thread newDaemonThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Starts the server.
+     * Usage: {@code [--port <n>|--socket <path>] [--data <file>]}.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Log.installAsyncHandlers();
+        String filePath = DEFAULT_FILE_PATH;
+        SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), DEFAULT_PORT);
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--port":
+                address = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[i + 1]));
+                break;
+            case "--socket":
+                address = UnixDomainSocketAddress.of(args[i + 1]);
+                break;
+            case "--data":
+                filePath = args[i + 1];
+                break;
+            default:
+                System.err.println("Usage: [--port <n>|--socket <path>] [--data <file>]");
+                System.exit(2);
+            }
+        }
+
+        TaskServer server = new TaskServer(new MegaBot(filePath));
+        server.start(address);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                LOG.atWarning().with("reason", e.getMessage()).log("server_stop_failed");
+            }
+        }));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,112 @@
+package megabot.sync;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import megabot.log.Log;
+
+/**
+ * Watches the data file with a {@link WatchService} and runs a callback when it may have been changed.
+ * The callback also runs for MegaBot's own saves, so it has to check whether anything changed.
+ *
+ * <p>The directory of the file is watched rather than the file, since many editors save by writing a new
+ * file and renaming it over the old one. Editors and sync tools often touch the file several times in a
+ * row, so events are collected until none has arrived for {@link #SETTLE_MILLIS} milliseconds, and the
+ * callback then runs once for all of them.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class DataFileWatcher implements Closeable {
+    /** Quiet time after the last event before the callback runs. */
+    public static final long SETTLE_MILLIS = 100;
+
+    private static final Log LOG = Log.get(DataFileWatcher.class);
+
+    private final Path fileName;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread watcherThread;
+
+    /**
+     * Constructs a DataFileWatcher for the given file. Watching starts when {@link #start()} is called.
+     *
+     * @param filePath the data file
+     * @param onChange run on the watcher thread after the file may have changed
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    public DataFileWatcher(Path filePath, Runnable onChange) throws IOException {
+        Path directory = filePath.toAbsolutePath().getParent();
+        this.fileName = filePath.getFileName();
+        this.onChange = onChange;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        this.watcherThread = new Thread(this::runWatcher, "megabot-watcher");
+        this.watcherThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the watcher thread.
+     */
+    public void start() {
+        watcherThread.start();
+    }
+
+    /**
+     * Stops watching. A callback that is already running is allowed to finish.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void runWatcher() {
+        try {
+            while (true) {
+                boolean isChanged = collectEvents(watchService.take());
+                // Keep collecting until the file has been quiet for a while
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isChanged |= collectEvents(key);
+                }
+                if (isChanged) {
+                    runCallback();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed, so stop watching
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns whether any of the events of the key are about the data file, and resets the key.
+     */
+    private boolean collectEvents(WatchKey key) {
+        boolean isChanged = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            // Events were lost, so the file may have changed among them
+            isChanged |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+        }
+        key.reset();
+        return isChanged;
+    }
+
+    private void runCallback() {
+        try {
+            onChange.run();
+        } catch (RuntimeException e) {
+            // Keep watching; the next change gets another try
+            LOG.atWarning().with("reason", e.getMessage()).log("watcher_callback_failed");
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package megabot.sync;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.log.Log;
+import megabot.sync.LineDiff.Change;
+import megabot.task.Task;
+import megabot.task.TaskList;
+
+/**
+ * Merges changes made to the data file outside MegaBot, e.g. in a text editor or by a sync tool,
+ * into the task list in place, without loading the file again.
+ *
+ * <p>The merge is three-way. The base is the file as {@link Storage} last read or wrote it, known only by
+ * the hash of each line and which lines held tasks. The file as it is now is diffed against the base to find
+ * the lines changed outside MegaBot, and the task list is diffed against the tasks of the base to find changes
+ * MegaBot has not saved yet. Only the lines changed outside MegaBot are parsed, and they replace the tasks
+ * they stand for. Lines that are not tasks stay out of the task list, and are only reported when changed.
+ *
+ * <p>Tasks added on both sides at the same place are all kept, the file's first. Where both sides changed
+ * the same or neighbouring lines in any other way, the file wins, since it is what the user last saw, and
+ * MegaBot's version of those tasks is appended to a {@link #CONFLICT_SUFFIX} file next to the data file
+ * so that nothing is lost without a trace.
+ *
+ * <p>Must run on the thread that owns the task list, with nothing saving to the storage at the same time.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public final class ExternalEdits {
+    /** Appended to the name of the data file to get the name of the file conflicting tasks are kept in. */
+    public static final String CONFLICT_SUFFIX = ".conflicts";
+
+    private static final Log LOG = Log.get(ExternalEdits.class);
+
+    private ExternalEdits() {
+        // Not meant to be instantiated
+    }
+
+    /**
+     * Merges the changes made to the data file since the storage last read or wrote it into the task list.
+     * Afterwards, the storage takes the file as it is now as its base, so the merged tasks can be saved over it.
+     *
+     * @param tasks the task list, changed in place
+     * @param storage the storage of the task list
+     * @return what changed, empty if the file had not changed
+     * @throws IOException if the data file cannot be read, or a conflict cannot be recorded
+     */
+    public static Result merge(TaskList tasks, Storage storage) throws IOException {
+        if (!storage.isChangedOnDisk()) {
+            return new Result(storage.getFilePath());
+        }
+
+        long startTime = System.nanoTime();
+        Storage.DiskContent disk = storage.readDiskContent();
+        long[] theirs = disk.getHashes();
+        int[] taskLines = storage.getSavedTaskLines();
+        List<Change> theirChanges = LineDiff.diff(storage.getSavedLineHashes(), theirs);
+        Result result = new Result(storage.getFilePath());
+        if (theirChanges.isEmpty()) {
+            // Touched, or written back with the same tasks
+            storage.acceptDiskContent(disk, taskLines, storage.getSavedTaskHashes());
+            return result;
+        }
+
+        // The other lines of the file are the ones it had before, and hold the same tasks or none
+        Task[] parsed = new Task[theirs.length];
+        BitSet changedLines = new BitSet(theirs.length);
+        for (Change change : theirChanges) {
+            changedLines.set(change.getOtherStart(), change.getOtherEnd());
+            for (int k = change.getOtherStart(); k < change.getOtherEnd(); k++) {
+                parsed[k] = parseLine(disk.getLines().get(k), result);
+            }
+        }
+
+        ArrayList<Task> ours = tasks.getTasks();
+        long[] ourHashes = Storage.hashTasks(ours);
+        // Moved to the lines of the base, so that both sides are in the same place; offsets still count tasks
+        List<Change> ourChanges = toLines(LineDiff.diff(storage.getSavedTaskHashes(), ourHashes), taskLines);
+
+        // Each edit replaces ours[edit[0], edit[1]) by the lines theirs[edit[2], edit[3]) of the file
+        List<int[]> edits = new ArrayList<>();
+        List<String> conflictingLines = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        int theirOffset = 0;
+        int ourOffset = 0;
+        while (i < theirChanges.size() || j < ourChanges.size()) {
+            int start = Math.min(
+                    i < theirChanges.size() ? theirChanges.get(i).getBaseStart() : Integer.MAX_VALUE,
+                    j < ourChanges.size() ? ourChanges.get(j).getBaseStart() : Integer.MAX_VALUE);
+            int theirStartOffset = theirOffset;
+            int ourStartOffset = ourOffset;
+            boolean hasTheirs = false;
+            boolean hasOurs = false;
+
+            // Grow the region while a change on either side overlaps or touches it
+            int end = -1;
+            boolean hasGrown = true;
+            while (hasGrown) {
+                hasGrown = false;
+                if (i < theirChanges.size() && isInRegion(theirChanges.get(i), start, end)) {
+                    Change change = theirChanges.get(i++);
+                    end = Math.max(end, change.getBaseEnd());
+                    theirOffset = change.getOtherEnd() - change.getBaseEnd();
+                    hasTheirs = true;
+                    hasGrown = true;
+                }
+                if (j < ourChanges.size() && isInRegion(ourChanges.get(j), start, end)) {
+                    Change change = ourChanges.get(j++);
+                    end = Math.max(end, change.getBaseEnd());
+                    ourOffset = change.getOtherEnd() - tasksBefore(taskLines, change.getBaseEnd());
+                    hasOurs = true;
+                    hasGrown = true;
+                }
+            }
+
+            if (!hasTheirs) {
+                continue;
+            }
+            int ourStart = tasksBefore(taskLines, start) + ourStartOffset;
+            int ourEnd = tasksBefore(taskLines, end) + ourOffset;
+            int theirStart = start + theirStartOffset;
+            int theirEnd = end + theirOffset;
+            if (hasOurs) {
+                if (Arrays.equals(ourHashes, ourStart, ourEnd, theirs, theirStart, theirEnd)) {
+                    // Both sides made the same change
+                    continue;
+                }
+                if (start == end) {
+                    // Both sides only added tasks here, so keep all of them
+                    edits.add(new int[] {ourStart, ourStart, theirStart, theirEnd});
+                    continue;
+                }
+                result.conflictCount++;
+                for (int k = ourStart; k < ourEnd; k++) {
+                    conflictingLines.add(ours.get(k).formatData());
+                }
+            }
+            edits.add(new int[] {ourStart, ourEnd, theirStart, theirEnd});
+        }
+
+        // From the end, so that applying an edit does not move the tasks of the ones still to apply
+        for (int k = edits.size() - 1; k >= 0; k--) {
+            int[] edit = edits.get(k);
+            List<Task> replacements = getTasks(disk.getLines(), edit[2], edit[3], parsed, changedLines);
+            int removedCount = edit[1] - edit[0];
+            int changedCount = Math.min(removedCount, replacements.size());
+            result.changedCount += changedCount;
+            result.addedCount += replacements.size() - changedCount;
+            result.removedCount += removedCount - changedCount;
+            ours.subList(edit[0], edit[1]).clear();
+            ours.addAll(edit[0], replacements);
+        }
+
+        if (!conflictingLines.isEmpty()) {
+            writeConflicts(result.getConflictPath(), conflictingLines);
+        }
+        acceptMerged(storage, disk, theirChanges, parsed);
+
+        LOG.atInfo().with("changed", result.changedCount).with("added", result.addedCount)
+                .with("removed", result.removedCount).with("conflicts", result.conflictCount)
+                .with("invalid", result.invalidCount).with("millis", (System.nanoTime() - startTime) / 1_000_000)
+                .log("external_edits_merged");
+        return result;
+    }
+
+    /**
+     * Returns whether a change belongs to the region starting at start, which so far ends at end,
+     * or is empty if end is -1.
+     */
+    private static boolean isInRegion(Change change, int start, int end) {
+        return end < 0 ? change.getBaseStart() == start : change.getBaseStart() <= end;
+    }
+
+    /**
+     * Moves changes between tasks to the lines of the base the tasks came from.
+     * Tasks added between two lines are placed right after the first.
+     */
+    private static List<Change> toLines(List<Change> changes, int[] taskLines) {
+        if (taskLines == null) {
+            return changes;
+        }
+        List<Change> moved = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            int end = change.getBaseEnd() == 0 ? 0 : taskLines[change.getBaseEnd() - 1] + 1;
+            int start = change.getBaseStart() < change.getBaseEnd() ? taskLines[change.getBaseStart()] : end;
+            moved.add(new Change(start, end, change.getOtherStart(), change.getOtherEnd()));
+        }
+        return moved;
+    }
+
+    /**
+     * Returns the number of tasks of the base that came from lines before the given line.
+     */
+    private static int tasksBefore(int[] taskLines, int line) {
+        if (taskLines == null) {
+            return line;
+        }
+        int index = Arrays.binarySearch(taskLines, line);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Takes the file as read as the storage's base, along with the tasks its lines hold:
+     * the tasks of the base on the lines that did not change, and the parsed tasks on the ones that did.
+     */
+    private static void acceptMerged(Storage storage, Storage.DiskContent disk, List<Change> theirChanges,
+            Task[] parsed) {
+        int[] taskLines = storage.getSavedTaskLines();
+        long[] taskHashes = storage.getSavedTaskHashes();
+        int[] lines = new int[parsed.length];
+        long[] hashes = new long[parsed.length];
+        int count = 0;
+        int task = 0;
+        int offset = 0;
+        for (int c = 0; c <= theirChanges.size(); c++) {
+            Change change = c < theirChanges.size() ? theirChanges.get(c) : null;
+            int unchangedEnd = change != null ? change.getBaseStart() : Integer.MAX_VALUE;
+            for (; task < taskHashes.length && lineOf(taskLines, task) < unchangedEnd; task++) {
+                lines[count] = lineOf(taskLines, task) + offset;
+                hashes[count++] = taskHashes[task];
+            }
+            if (change == null) {
+                break;
+            }
+            task = tasksBefore(taskLines, change.getBaseEnd());
+            for (int k = change.getOtherStart(); k < change.getOtherEnd(); k++) {
+                if (parsed[k] != null) {
+                    lines[count] = k;
+                    hashes[count++] = LineDiff.hash(parsed[k].formatData());
+                }
+            }
+            offset = change.getOtherEnd() - change.getBaseEnd();
+        }
+        storage.acceptDiskContent(disk, count == parsed.length ? null : Arrays.copyOf(lines, count),
+                Arrays.copyOf(hashes, count));
+    }
+
+    private static int lineOf(int[] taskLines, int task) {
+        return taskLines == null ? task : taskLines[task];
+    }
+
+    /**
+     * Returns the tasks on the lines [start, end) of the file, using the ones parsed where lines changed.
+     * Unchanged lines that are not tasks were reported when they were loaded, so they are skipped quietly.
+     */
+    private static List<Task> getTasks(List<String> lines, int start, int end, Task[] parsed,
+            BitSet changedLines) {
+        List<Task> found = new ArrayList<>(end - start);
+        for (int k = start; k < end; k++) {
+            Task task = parsed[k];
+            if (!changedLines.get(k)) {
+                try {
+                    task = Storage.parseTaskFromFile(lines.get(k));
+                } catch (MegabotException e) {
+                    task = null;
+                }
+            }
+            if (task != null) {
+                found.add(task);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Parses a line changed outside MegaBot.
+     *
+     * @return the task, or null if the line is not a task, which is skipped like loading does
+     */
+    private static Task parseLine(String line, Result result) {
+        try {
+            return Storage.parseTaskFromFile(line);
+        } catch (MegabotException e) {
+            result.invalidCount++;
+            LOG.atWarning().with("line", line).with("reason", e.getMessage()).log("external_edit_invalid");
+            return null;
+        }
+    }
+
+    private static void writeConflicts(Path conflictPath, List<String> lines) throws IOException {
+        List<String> entry = new ArrayList<>();
+        entry.add("# " + LocalDateTime.now() + ": MegaBot's version of tasks also changed outside MegaBot");
+        entry.addAll(lines);
+        Files.write(conflictPath, entry, Charset.defaultCharset(), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * What a merge changed in the task list.
+     * A task changed outside MegaBot counts as changed, not as removed and added.
+     */
+    public static class Result {
+        private final String filePath;
+        private int changedCount;
+        private int addedCount;
+        private int removedCount;
+        private int conflictCount;
+        private int invalidCount;
+
+        Result(String filePath) {
+            this.filePath = filePath;
+        }
+
+        public String getFilePath() {
+            return filePath;
+        }
+
+        public Path getConflictPath() {
+            return Path.of(filePath + CONFLICT_SUFFIX);
+        }
+
+        public int getChangedCount() {
+            return changedCount;
+        }
+
+        public int getAddedCount() {
+            return addedCount;
+        }
+
+        public int getRemovedCount() {
+            return removedCount;
+        }
+
+        /**
+         * Returns the number of places where MegaBot and the file both changed tasks, and the file won.
+         *
+         * @return the number of conflicts
+         */
+        public int getConflictCount() {
+            return conflictCount;
+        }
+
+        public int getInvalidCount() {
+            return invalidCount;
+        }
+
+        /**
+         * Returns whether the merge changed the task list at all.
+         *
+         * @return true if any task was changed, added or removed
+         */
+        public boolean hasChanges() {
+            return changedCount + addedCount + removedCount > 0;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package megabot.sync;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares two versions of the data file line by line, with each line reduced to a 64-bit hash.
+ * The lines both versions start and end with are skipped first, so an edit to a few tasks in a long file
+ * costs one pass over the file and a diff of only the part in between.
+ *
+ * <p>The part in between is compared with Myers' algorithm, which takes time and memory that grow with
+ * the number of lines that differ rather than with the length of the file. If more than
+ * {@link #MAX_EDIT_COUNT} lines differ, the whole part in between is reported as one change.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public final class LineDiff {
+    /** Number of inserted and deleted lines above which the diff stops looking for unchanged lines. */
+    public static final int MAX_EDIT_COUNT = 1000;
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private LineDiff() {
+        // Not meant to be instantiated
+    }
+
+    /**
+     * Returns the hash a line is compared by.
+     *
+     * @param line the line, without its line break
+     * @return the 64-bit FNV-1a hash of its characters
+     */
+    public static long hash(CharSequence line) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < line.length(); i++) {
+            hash = (hash ^ line.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the changes that turn the base version into the other, in file order.
+     * Lines in neither change are the same in both versions.
+     *
+     * @param base the line hashes of the base version
+     * @param other the line hashes of the other version
+     * @return the changes, none of which touch another
+     */
+    public static List<Change> diff(long[] base, long[] other) {
+        int prefix = 0;
+        while (prefix < base.length && prefix < other.length && base[prefix] == other[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < base.length - prefix && suffix < other.length - prefix
+                && base[base.length - 1 - suffix] == other[other.length - 1 - suffix]) {
+            suffix++;
+        }
+
+        int baseEnd = base.length - suffix;
+        int otherEnd = other.length - suffix;
+        List<Change> changes = new ArrayList<>();
+        if (prefix == baseEnd && prefix == otherEnd) {
+            return changes;
+        }
+        if (prefix == baseEnd || prefix == otherEnd) {
+            changes.add(new Change(prefix, baseEnd, prefix, otherEnd));
+            return changes;
+        }
+
+        boolean[] isDeleted = new boolean[baseEnd - prefix];
+        boolean[] isInserted = new boolean[otherEnd - prefix];
+        if (!findEdits(base, other, prefix, baseEnd, otherEnd, isDeleted, isInserted)) {
+            changes.add(new Change(prefix, baseEnd, prefix, otherEnd));
+            return changes;
+        }
+
+        // Equal lines are the ones neither deleted nor inserted, matched up in order
+        int i = 0;
+        int j = 0;
+        while (i < isDeleted.length || j < isInserted.length) {
+            if (i < isDeleted.length && j < isInserted.length && !isDeleted[i] && !isInserted[j]) {
+                i++;
+                j++;
+                continue;
+            }
+            int changeBase = i;
+            int changeOther = j;
+            while ((i < isDeleted.length && isDeleted[i]) || (j < isInserted.length && isInserted[j])) {
+                if (i < isDeleted.length && isDeleted[i]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            changes.add(new Change(prefix + changeBase, prefix + i, prefix + changeOther, prefix + j));
+        }
+        return changes;
+    }
+
+    /**
+     * Finds a shortest edit script between base[start, baseEnd) and other[start, otherEnd) with Myers' algorithm,
+     * marking the lines it deletes and inserts.
+     *
+     * @return false if the script would be longer than {@link #MAX_EDIT_COUNT}
+     */
+    private static boolean findEdits(long[] base, long[] other, int start, int baseEnd, int otherEnd,
+            boolean[] isDeleted, boolean[] isInserted) {
+        int n = baseEnd - start;
+        int m = otherEnd - start;
+        int maxEdits = Math.min(n + m, MAX_EDIT_COUNT);
+        int offset = maxEdits + 1;
+        // v[offset + k] is the furthest x reached on diagonal k = x - y
+        int[] v = new int[2 * offset + 1];
+        // trace.get(d)[d + k] is v[offset + k] after d edits, kept to walk the script back
+        List<int[]> trace = new ArrayList<>();
+
+        for (int d = 0; d <= maxEdits; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && base[start + x] == other[start + y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+
+                if (x >= n && y >= m) {
+                    trace.add(copyDiagonals(v, offset, d));
+                    markEdits(trace, n, m, isDeleted, isInserted);
+                    return true;
+                }
+            }
+            trace.add(copyDiagonals(v, offset, d));
+        }
+        return false;
+    }
+
+    private static int[] copyDiagonals(int[] v, int offset, int d) {
+        int[] diagonals = new int[2 * d + 1];
+        System.arraycopy(v, offset - d, diagonals, 0, diagonals.length);
+        return diagonals;
+    }
+
+    /**
+     * Walks the edit script back from the end, marking each line it deletes or inserts.
+     */
+    private static void markEdits(List<int[]> trace, int n, int m, boolean[] isDeleted, boolean[] isInserted) {
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d > 0; d--) {
+            int[] previous = trace.get(d - 1);
+            int k = x - y;
+            int previousK;
+            if (k == -d || (k != d && previous[d - 1 + k - 1] < previous[d - 1 + k + 1])) {
+                previousK = k + 1;
+            } else {
+                previousK = k - 1;
+            }
+            int previousX = previous[d - 1 + previousK];
+            int previousY = previousX - previousK;
+
+            if (previousK == k + 1) {
+                isInserted[previousY] = true;
+            } else {
+                isDeleted[previousX] = true;
+            }
+            x = previousX;
+            y = previousY;
+        }
+    }
+
+    /**
+     * Lines base[baseStart, baseEnd) replaced by other[otherStart, otherEnd).
+     * Either range may be empty, for a pure insertion or deletion.
+     */
+    public static class Change {
+        private final int baseStart;
+        private final int baseEnd;
+        private final int otherStart;
+        private final int otherEnd;
+
+        Change(int baseStart, int baseEnd, int otherStart, int otherEnd) {
+            this.baseStart = baseStart;
+            this.baseEnd = baseEnd;
+            this.otherStart = otherStart;
+            this.otherEnd = otherEnd;
+        }
+
+        public int getBaseStart() {
+            return baseStart;
+        }
+
+        public int getBaseEnd() {
+            return baseEnd;
+        }
+
+        public int getOtherStart() {
+            return otherStart;
+        }
+
+        public int getOtherEnd() {
+            return otherEnd;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + baseStart + ", " + baseEnd + ") -> [" + otherStart + ", " + otherEnd + ")";
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package megabot.task;
+
+/**
+ * A status message of a task together with the period of time it stays correct.
+ * The period runs from just after {@code after} up to and including {@code notAfter}, both in
+ * {@link EpochTime} seconds. Instances are immutable, so tasks can swap them in without locking
+ * even when rendered from several threads.
+ */
+class CachedStatus {
+    /** Bound of a period that has always started. */
+    static final long ALWAYS = Long.MIN_VALUE;
+    /** Bound of a period that never ends. */
+    static final long FOREVER = Long.MAX_VALUE;
+
+    private final String status;
+    private final boolean isDone;
+    private final long after;
+    private final long notAfter;
+
+    /**
+     * Constructs a CachedStatus.
+     *
+     * @param status the status message
+     * @param isDone whether the task was done when the status was worked out
+     * @param after the time the status starts being correct after, or {@link #ALWAYS}
+     * @param notAfter the last time the status is correct, or {@link #FOREVER}
+     */
+    CachedStatus(String status, boolean isDone, long after, long notAfter) {
+        this.status = status;
+        this.isDone = isDone;
+        this.after = after;
+        this.notAfter = notAfter;
+    }
+
+    /**
+     * Returns whether the status is still correct for a task in the given state at the given time.
+     *
+     * @param now the current time in epoch seconds
+     * @param isDone whether the task is done now
+     * @return true if the status can be reused
+     */
+    boolean isValid(long now, boolean isDone) {
+        return this.isDone == isDone && now > after && now <= notAfter;
+    }
+
+    String getStatus() {
+        return status;
+    }
+}
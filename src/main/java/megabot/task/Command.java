@@ -1,5 +1,7 @@
 package megabot.task;
 
+import java.util.regex.Pattern;
+
 /**
  * Enumeration of all possible commands that can be executed in the MegaBot application.
  * Each command has an associated text representation that users can type.
@@ -16,9 +18,13 @@ public enum Command {
     UNMARK("unmark"),
     DELETE("delete"),
     FIND("find"),
+    STATS("stats"),
+    MEMSTATS("memstats"),
     BYE("bye"),
     UNKNOWN("");
 
+    private static final Pattern LIST_PAGE_PATTERN = Pattern.compile("list(\\s+\\d+){1,2}");
+
     private final String commandText;
 
     /**
@@ -39,6 +45,16 @@ public enum Command {
         return this.commandText;
     }
 
+    /**
+     * Returns whether the command only reads the task list.
+     * Read-only commands never need the task list to be saved afterwards.
+     *
+     * @return true if executing the command cannot change any task
+     */
+    public boolean isReadOnly() {
+        return this == LIST || this == FIND || this == STATS || this == MEMSTATS || this == BYE || this == UNKNOWN;
+    }
+
     /**
      * Parses a user input string and returns the corresponding Command.
      * Handles case-insensitive matching and commands with arguments.
@@ -53,14 +69,20 @@ public enum Command {
 
         String lowerInput = input.toLowerCase().trim();
 
-        // Check for exact match first (for commands like "list", "bye")
-        if (lowerInput.equals("list") || lowerInput.equals("bye")) {
+        // Check for exact match first (for commands like "list", "stats", "bye")
+        if (lowerInput.equals("list") || lowerInput.equals("stats") || lowerInput.equals("memstats")
+                || lowerInput.equals("bye")) {
             return fromExactMatch(lowerInput);
         }
 
+        // list only accepts page numbers, e.g. "list 2" or "list 2 20"
+        if (lowerInput.startsWith("list ") && LIST_PAGE_PATTERN.matcher(lowerInput).matches()) {
+            return LIST;
+        }
+
         // Check if input starts with command word followed by space
         for (Command cmd : Command.values()) {
-            if (cmd != UNKNOWN && cmd != LIST && cmd != BYE) {
+            if (cmd != UNKNOWN && cmd != LIST && cmd != STATS && cmd != MEMSTATS && cmd != BYE) {
                 if (lowerInput.startsWith(cmd.commandText + " ") || lowerInput.equals(cmd.commandText)) {
                     return cmd;
                 }
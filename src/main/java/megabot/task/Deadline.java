@@ -1,7 +1,6 @@
 package megabot.task;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 import megabot.exception.MegabotException;
 import megabot.parser.DateTimeParser;
@@ -15,8 +14,14 @@ import megabot.parser.DateTimeParser;
  * @version 2.0
  */
 public class Deadline extends Task {
-    private final String stringDeadline;
-    private final LocalDateTime deadline;
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    // The deadline is kept in primitive form; LocalDateTime and the text are only built when asked for
+    private final long deadline;
+    private final byte deadlineFormat;
+    private final String deadlineInput;
+    private CachedStatus cachedStatus;
+    private String displayText;
 
     /**
      * Constructs a Deadline task with the specified description and deadline.
@@ -37,14 +42,37 @@ public class Deadline extends Task {
             throw new MegabotException("OOPSIE!! Deadline cannot be empty.");
         }
 
-        this.stringDeadline = deadlineStr.trim();
-
+        DateTimeParser.ParsedDateTime parsed;
         try {
-            this.deadline = DateTimeParser.parseDateTime(deadlineStr);
+            parsed = DateTimeParser.parseWithFormat(deadlineStr);
         } catch (MegabotException e) {
             // Re-throw with context about which field failed
             throw new MegabotException("OOPSIE!! Error parsing deadline: " + e.getMessage());
         }
+
+        // Only keep the user's text if formatting the deadline in the matched format does not give it back
+        String trimmedInput = deadlineStr.trim();
+        boolean isReproducible = DateTimeParser.format(parsed.getDateTime(), parsed.getFormatIndex())
+                .equals(trimmedInput);
+        this.deadline = EpochTime.of(parsed.getDateTime());
+        this.deadlineFormat = (byte) (isReproducible ? parsed.getFormatIndex() : DateTimeParser.UNKNOWN_FORMAT);
+        this.deadlineInput = isReproducible ? null : trimmedInput;
+    }
+
+    /**
+     * Constructs a Deadline from the primitive form it is kept in, without parsing any date.
+     * Used to restore tasks from a {@link StateImage}.
+     *
+     * @param task the description of the deadline task
+     * @param deadline the deadline, in the form used by {@link EpochTime}
+     * @param deadlineFormat the index of the format the deadline was given in
+     * @param deadlineInput the user's text, or null if formatting the deadline gives it back
+     */
+    Deadline(String task, long deadline, byte deadlineFormat, String deadlineInput) {
+        super(task);
+        this.deadline = deadline;
+        this.deadlineFormat = deadlineFormat;
+        this.deadlineInput = deadlineInput;
     }
 
     /**
@@ -53,7 +81,10 @@ public class Deadline extends Task {
      * @return the original deadline string
      */
     public String getStringDeadline() {
-        return this.stringDeadline;
+        if (deadlineInput != null) {
+            return deadlineInput;
+        }
+        return DateTimeParser.format(getDeadline(), deadlineFormat);
     }
 
     /**
@@ -62,7 +93,7 @@ public class Deadline extends Task {
      * @return the deadline as LocalDateTime
      */
     public LocalDateTime getDeadline() {
-        return this.deadline;
+        return EpochTime.toLocalDateTime(this.deadline);
     }
 
     /**
@@ -71,33 +102,90 @@ public class Deadline extends Task {
      * @return true if the deadline is in the past
      */
     public boolean isOverdue() {
-        return LocalDateTime.now().isAfter(this.deadline);
+        return TaskClock.getCurrent().nowEpochSecond() > this.deadline;
     }
 
     /**
      * Gets a user-friendly status message about the deadline.
+     * The status is only worked out again once the deadline is marked or unmarked,
+     * or once the time passes the point where the status changes.
      *
      * @return status message indicating if task is overdue, due soon, etc.
      */
     public String getDeadlineStatus() {
-        LocalDateTime now = LocalDateTime.now();
-        if (getIsDone()) {
-            return "✓ Completed";
-        } else if (now.isAfter(deadline)) {
-            return "⚠ OVERDUE";
-        } else if (now.plusDays(1).isAfter(deadline)) {
-            return "⏰ Due soon";
+        long now = TaskClock.getCurrent().nowEpochSecond();
+        boolean isDone = getIsDone();
+        CachedStatus status = cachedStatus;
+        if (status == null || !status.isValid(now, isDone)) {
+            status = computeStatus(now, isDone);
+            cachedStatus = status;
+        }
+        return status.getStatus();
+    }
+
+    private CachedStatus computeStatus(long now, boolean isDone) {
+        long dueSoonTime = deadline - SECONDS_PER_DAY;
+        if (isDone) {
+            return new CachedStatus("✓ Completed", true, CachedStatus.ALWAYS, CachedStatus.FOREVER);
+        } else if (now > deadline) {
+            return new CachedStatus("⚠ OVERDUE", false, deadline, CachedStatus.FOREVER);
+        } else if (now > dueSoonTime) {
+            return new CachedStatus("⏰ Due soon", false, dueSoonTime, deadline);
         } else {
-            return "📅 Upcoming";
+            return new CachedStatus("📅 Upcoming", false, CachedStatus.ALWAYS, dueSoonTime);
+        }
+    }
+
+    /**
+     * Returns the part of the display string that never changes: the description and the due date.
+     * It is built on first use and reused for every later render.
+     *
+     * @return the description and due date, ready to be shown
+     */
+    private String getDisplayText() {
+        String text = displayText;
+        if (text == null) {
+            text = " " + super.getTask() + " (by: " + getDeadline().format(TaskFormat.DEADLINE_DISPLAY) + ") ";
+            displayText = text;
         }
+        return text;
+    }
+
+    // Primitive state, for saving to a state image
+    long getDeadlineEpochSecond() {
+        return deadline;
+    }
+
+    byte getDeadlineFormat() {
+        return deadlineFormat;
+    }
+
+    // Cached or optional state, read as is without filling any cache, for memory estimates
+    String getDeadlineInput() {
+        return deadlineInput;
+    }
+
+    String getCachedDisplayText() {
+        return displayText;
+    }
+
+    CachedStatus getCachedStatus() {
+        return cachedStatus;
+    }
+
+    @Override
+    public <R> R accept(TaskVisitor<R> visitor) {
+        return visitor.visitDeadline(this);
+    }
+
+    @Override
+    public Deadline copy() {
+        return copyStatusTo(new Deadline(super.getTask(), deadline, deadlineFormat, deadlineInput));
     }
 
     @Override
     public String toString() {
-        String statusEmoji = getDeadlineStatus();
-        return "[D]" + this.getStatusIcon() + " " + super.getTask() + " (by: "
-                + this.getDeadline().format(DateTimeFormatter.ofPattern("MMM d yyyy h:mm a"))
-                + ") " + statusEmoji;
+        return "[D]" + this.getStatusIcon() + getDisplayText() + getDeadlineStatus();
     }
 
     /**
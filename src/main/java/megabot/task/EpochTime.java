@@ -0,0 +1,24 @@
+package megabot.task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Converts between LocalDateTime and the primitive form tasks keep their dates in.
+ * A date and time is stored as the number of seconds since 1970-01-01T00:00 on the same wall clock,
+ * read as if it were UTC. This is independent of the time zone, so it round-trips exactly and two
+ * values compare the same way as the LocalDateTime objects they stand for.
+ */
+final class EpochTime {
+    private EpochTime() {
+        // Not meant to be instantiated
+    }
+
+    static long of(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
@@ -1,7 +1,6 @@
 package megabot.task;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 import megabot.exception.MegabotException;
 import megabot.parser.DateTimeParser;
@@ -15,10 +14,12 @@ import megabot.parser.DateTimeParser;
  * @version 2.0
  */
 public class Event extends Task {
-    private final String originalStartInput;
-    private final String originalEndInput;
-    private final LocalDateTime startDateTime;
-    private final LocalDateTime endDateTime;
+    // Start and end are kept in primitive form; LocalDateTime is only built when asked for
+    private final long startDateTime;
+    private final long endDateTime;
+    private CachedStatus cachedStatus;
+    private String taskDuration;
+    private String displayText;
 
     /**
      * Constructs an Event task with the specified description, start date, and end date.
@@ -44,14 +45,11 @@ public class Event extends Task {
             throw new MegabotException("OOPSIE!! End date cannot be empty.");
         }
 
-        this.originalStartInput = startDT.trim();
-        this.originalEndInput = endDT.trim();
-
-        this.startDateTime = convertStringToDateTime(startDT);
-        this.endDateTime = convertStringToDateTime(endDT);
+        this.startDateTime = EpochTime.of(convertStringToDateTime(startDT));
+        this.endDateTime = EpochTime.of(convertStringToDateTime(endDT));
 
         // Validate date range - start date should not be after end date
-        if (this.startDateTime.isAfter(this.endDateTime)) {
+        if (this.startDateTime > this.endDateTime) {
             String startDatetimeFormat = formatDateTime(this.getStartDateTime());
             String endDatetimeFormat = formatDateTime(this.getEndDateTime());
 
@@ -60,6 +58,20 @@ public class Event extends Task {
         }
     }
 
+    /**
+     * Constructs an Event from the primitive form it is kept in, without parsing any date.
+     * Used to restore tasks from a {@link StateImage}.
+     *
+     * @param task the description of the event task
+     * @param startDateTime the start, in the form used by {@link EpochTime}
+     * @param endDateTime the end, in the form used by {@link EpochTime}
+     */
+    Event(String task, long startDateTime, long endDateTime) {
+        super(task);
+        this.startDateTime = startDateTime;
+        this.endDateTime = endDateTime;
+    }
+
     private LocalDateTime convertStringToDateTime(String datetime) throws MegabotException {
         try {
             // Parse start date
@@ -75,7 +87,7 @@ public class Event extends Task {
      * @return the start date as LocalDate
      */
     public LocalDateTime getStartDateTime() {
-        return this.startDateTime;
+        return EpochTime.toLocalDateTime(this.startDateTime);
     }
 
     /**
@@ -84,34 +96,35 @@ public class Event extends Task {
      * @return the start date as LocalDate
      */
     public LocalDateTime getEndDateTime() {
-        return this.endDateTime;
+        return EpochTime.toLocalDateTime(this.endDateTime);
     }
 
     /**
      * Returns the task duration string combining start and end dates.
-     * Format: "startDate-endDateTime"
+     * Format: "startDate to endDateTime". It is built on first use and reused afterwards.
      *
      * @return the duration string for file storage
      */
     public String getTaskDuration() {
-        String startDatetimeFormat = formatDateTime(this.getStartDateTime());
-        String endDatetimeFormat = formatDateTime(this.getEndDateTime());
-
-        return startDatetimeFormat + " to " + endDatetimeFormat;
+        String duration = taskDuration;
+        if (duration == null) {
+            duration = formatDateTime(this.getStartDateTime()) + " to " + formatDateTime(this.getEndDateTime());
+            taskDuration = duration;
+        }
+        return duration;
     }
 
     private String formatDateTime(LocalDateTime dt) {
-        return dt.format(DateTimeFormatter.ofPattern("yyyy-MM-dd h:mm a"));
+        return dt.format(TaskFormat.EVENT_DISPLAY);
     }
 
     /**
      * Checks if the event is currently ongoing.
      *
-     * @return true if current time is between start and end
+     * @return true if current time is after the start, up to and including the end
      */
     public boolean isOngoing() {
-        LocalDateTime now = LocalDateTime.now();
-        return now.isAfter(this.startDateTime) && now.isBefore(this.endDateTime);
+        return isOngoingAt(TaskClock.getCurrent().nowEpochSecond());
     }
 
     /**
@@ -120,35 +133,100 @@ public class Event extends Task {
      * @return true if the event end time has passed
      */
     public boolean hasEnded() {
-        return LocalDateTime.now().isAfter(this.endDateTime);
+        return hasEndedAt(TaskClock.getCurrent().nowEpochSecond());
+    }
+
+    // Shared with the status message, so that it always agrees with isOngoing and hasEnded
+    private boolean isOngoingAt(long now) {
+        return now > startDateTime && now <= endDateTime;
+    }
+
+    private boolean hasEndedAt(long now) {
+        return now > endDateTime;
     }
 
     /**
      * Gets a user-friendly status message about the event.
+     * The status is only worked out again once the event is marked or unmarked,
+     * or once the time passes the start or end of the event.
      *
      * @return status message indicating if event is ongoing, finished, etc.
      */
     public String getEventStatus() {
-        if (getIsDone()) {
-            return "✓ Completed";
-        } else if (isOngoing()) {
-            return "🔄 Ongoing";
-        } else if (hasEnded()) {
-            return "⏰ Ended";
+        long now = TaskClock.getCurrent().nowEpochSecond();
+        boolean isDone = getIsDone();
+        CachedStatus status = cachedStatus;
+        if (status == null || !status.isValid(now, isDone)) {
+            status = computeStatus(now, isDone);
+            cachedStatus = status;
+        }
+        return status.getStatus();
+    }
+
+    private CachedStatus computeStatus(long now, boolean isDone) {
+        if (isDone) {
+            return new CachedStatus("✓ Completed", true, CachedStatus.ALWAYS, CachedStatus.FOREVER);
+        } else if (hasEndedAt(now)) {
+            return new CachedStatus("⏰ Ended", false, endDateTime, CachedStatus.FOREVER);
+        } else if (isOngoingAt(now)) {
+            // Up to and including the end time, so the event never shows as upcoming again at its very end
+            return new CachedStatus("🔄 Ongoing", false, startDateTime, endDateTime);
         } else {
-            return "📅 Upcoming";
+            return new CachedStatus("📅 Upcoming", false, CachedStatus.ALWAYS, startDateTime);
+        }
+    }
+
+    /**
+     * Returns the part of the display string that never changes: the description, start and end.
+     * It is built on first use and reused for every later render.
+     *
+     * @return the description and duration, ready to be shown
+     */
+    private String getDisplayText() {
+        String text = displayText;
+        if (text == null) {
+            text = " " + super.getTask() + " (from: " + formatDateTime(this.getStartDateTime())
+                    + " to: " + formatDateTime(this.getEndDateTime()) + ") ";
+            displayText = text;
         }
+        return text;
+    }
+
+    // Primitive state, for saving to a state image
+    long getStartEpochSecond() {
+        return startDateTime;
+    }
+
+    long getEndEpochSecond() {
+        return endDateTime;
+    }
+
+    // Cached state, read as is without filling any cache, for memory estimates
+    String getCachedDisplayText() {
+        return displayText;
+    }
+
+    String getCachedDuration() {
+        return taskDuration;
+    }
+
+    CachedStatus getCachedStatus() {
+        return cachedStatus;
     }
 
     @Override
-    public String toString() {
-        String startDatetimeFormat = formatDateTime(this.getStartDateTime());
-        String endDatetimeFormat = formatDateTime(this.getEndDateTime());
-        String statusEmoji = getEventStatus();
+    public <R> R accept(TaskVisitor<R> visitor) {
+        return visitor.visitEvent(this);
+    }
 
-        return "[E]" + this.getStatusIcon() + " " + super.getTask() + " (from: "
-                + startDatetimeFormat + " to: " + endDatetimeFormat
-                + ") " + statusEmoji;
+    @Override
+    public Event copy() {
+        return copyStatusTo(new Event(super.getTask(), startDateTime, endDateTime));
+    }
+
+    @Override
+    public String toString() {
+        return "[E]" + this.getStatusIcon() + getDisplayText() + getEventStatus();
     }
 
     /**
@@ -159,7 +237,6 @@ public class Event extends Task {
      */
     @Override
     public String formatData() {
-        String str = (super.getIsDone()) ? "1" : "0" + " | " + getTask();
-        return "E | " + str + " | " + getTaskDuration();
+        return "E | " + super.formatData() + " | " + getTaskDuration();
     }
 }
@@ -0,0 +1,398 @@
+package megabot.task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import megabot.log.Log;
+import megabot.sync.LineDiff;
+
+/**
+ * A binary copy of a task list that can be read back without parsing any text or date.
+ * The image records the size, last modified time and checksum of the data file it was written from,
+ * and is only read back while the data file still matches all three.
+ *
+ * <p>The layout is meant to be memory-mapped. A fixed-size header is followed by one fixed-size
+ * record per task, so task i is found at a known offset without reading the ones before it, then by the
+ * {@link LineDiff#hash(CharSequence)} of the line each task is saved as, so that loading does not have to
+ * format every task to know the lines of the data file, and then by the strings the records point to.
+ * Everything after the header is covered by a checksum.
+ *
+ * <pre>
+ * header   magic, version, data file size, data file mtime, data file CRC32C,
+ *          task count, body CRC32C, offset of the strings, reserved
+ * records  type, flags, date format, unused, description offset, first date, second date,
+ *          deadline input offset (-1 if none), reserved
+ * hashes   one long per task
+ * strings  length-prefixed UTF-8
+ * </pre>
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public final class StateImage {
+    /** Size of the header in bytes. */
+    static final int HEADER_SIZE = 48;
+    /** Size of one task record in bytes. */
+    static final int RECORD_SIZE = 32;
+
+    private static final Log LOG = Log.get(StateImage.class);
+    private static final int MAGIC = 0x4D425349; // "MBSI"
+    private static final int VERSION = 2;
+    private static final int NO_STRING = -1;
+
+    private static final byte TODO = 'T';
+    private static final byte DEADLINE = 'D';
+    private static final byte EVENT = 'E';
+    private static final byte DONE_FLAG = 1;
+
+    // Header fields
+    private static final int SOURCE_SIZE_OFFSET = 8;
+    private static final int SOURCE_MTIME_OFFSET = 16;
+    private static final int SOURCE_CRC_OFFSET = 24;
+    private static final int TASK_COUNT_OFFSET = 28;
+    private static final int BODY_CRC_OFFSET = 32;
+    private static final int STRINGS_OFFSET = 36;
+
+    // Record fields
+    private static final int FLAGS = 1;
+    private static final int FORMAT = 2;
+    private static final int DESCRIPTION = 4;
+    private static final int FIRST_DATE = 8;
+    private static final int SECOND_DATE = 16;
+    private static final int INPUT = 24;
+
+    private StateImage() {
+        // Not meant to be instantiated
+    }
+
+    /**
+     * Writes an image of the tasks, stamped with the current state of the data file they were saved to.
+     * The image is written to a temporary file first and then moved into place, so a crash never leaves
+     * a half-written image behind.
+     *
+     * @param imagePath the file to write the image to
+     * @param sourcePath the data file the tasks were last saved to
+     * @param tasks the tasks, exactly as saved to the data file
+     * @throws IOException if the data file cannot be read or the image cannot be written
+     */
+    public static void write(Path imagePath, Path sourcePath, List<Task> tasks) throws IOException {
+        long[] lineHashes = new long[tasks.size()];
+        for (int i = 0; i < lineHashes.length; i++) {
+            lineHashes[i] = LineDiff.hash(tasks.get(i).formatData());
+        }
+        write(imagePath, sourcePath, Files.size(sourcePath), Files.getLastModifiedTime(sourcePath).toMillis(),
+                tasks, lineHashes);
+    }
+
+    /**
+     * Writes an image of the tasks, stamped with the size and last modified time the data file had when the
+     * tasks were read from or saved to it. If the file has changed since, the image is never read back.
+     *
+     * @param imagePath the file to write the image to
+     * @param sourcePath the data file the tasks were last saved to
+     * @param sourceSize the size of the data file when the tasks were read from or saved to it
+     * @param sourceModifiedMillis the last modified time of the data file then, in milliseconds
+     * @param tasks the tasks, exactly as saved to the data file
+     * @param lineHashes the hash of the line each task is saved as, in the same order
+     * @throws IOException if the data file cannot be read or the image cannot be written
+     */
+    public static void write(Path imagePath, Path sourcePath, long sourceSize, long sourceModifiedMillis,
+            List<Task> tasks, long[] lineHashes) throws IOException {
+        if (lineHashes.length != tasks.size()) {
+            throw new IllegalArgumentException("Expected one line hash per task");
+        }
+        RecordWriter writer = new RecordWriter(tasks.size());
+        for (Task task : tasks) {
+            task.accept(writer);
+        }
+        byte[] strings = writer.strings.toByteArray();
+        ByteBuffer records = writer.records.flip();
+
+        ByteBuffer image = ByteBuffer.allocate(HEADER_SIZE + records.remaining() + lineHashes.length * Long.BYTES
+                + strings.length);
+        image.position(HEADER_SIZE);
+        image.put(records);
+        image.asLongBuffer().put(lineHashes);
+        image.position(image.position() + lineHashes.length * Long.BYTES);
+        image.put(strings);
+
+        CRC32C bodyCrc = new CRC32C();
+        bodyCrc.update(image.duplicate().position(HEADER_SIZE));
+        image.putInt(0, MAGIC);
+        image.putInt(4, VERSION);
+        image.putLong(SOURCE_SIZE_OFFSET, sourceSize);
+        image.putLong(SOURCE_MTIME_OFFSET, sourceModifiedMillis);
+        image.putInt(SOURCE_CRC_OFFSET, checksum(sourcePath));
+        image.putInt(TASK_COUNT_OFFSET, tasks.size());
+        image.putInt(BODY_CRC_OFFSET, (int) bodyCrc.getValue());
+        image.putInt(STRINGS_OFFSET, HEADER_SIZE + tasks.size() * (RECORD_SIZE + Long.BYTES));
+        image.rewind();
+
+        Path tempPath = imagePath.resolveSibling(imagePath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (image.hasRemaining()) {
+                channel.write(image);
+            }
+        }
+        Files.move(tempPath, imagePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns whether the image was written from the data file as it is now.
+     * Only the header of the image is read.
+     *
+     * @param imagePath the image file
+     * @param sourcePath the data file
+     * @return true if the image can be read back in place of the data file
+     * @throws IOException if either file cannot be read
+     */
+    public static boolean isFresh(Path imagePath, Path sourcePath) throws IOException {
+        if (!Files.exists(imagePath) || !Files.exists(sourcePath)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(imagePath, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return false;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the whole header is in
+            }
+            return checkHeader(header, sourcePath) == null;
+        }
+    }
+
+    /**
+     * Reads the tasks back from an image, if it is still valid for the data file.
+     *
+     * @param imagePath the image file
+     * @param sourcePath the data file the image should have been written from
+     * @return the tasks, or null if there is no image or it is stale or damaged
+     * @throws IOException if either file cannot be read
+     */
+    public static ArrayList<Task> read(Path imagePath, Path sourcePath) throws IOException {
+        Contents contents = readContents(imagePath, sourcePath);
+        return contents == null ? null : contents.getTasks();
+    }
+
+    /**
+     * Reads the tasks back from an image, with the hash of the line each is saved as,
+     * if the image is still valid for the data file.
+     *
+     * @param imagePath the image file
+     * @param sourcePath the data file the image should have been written from
+     * @return the tasks and their line hashes, or null if there is no image or it is stale or damaged
+     * @throws IOException if either file cannot be read
+     */
+    public static Contents readContents(Path imagePath, Path sourcePath) throws IOException {
+        if (!Files.exists(imagePath)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(imagePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return reject("bad_size");
+            }
+            MappedByteBuffer image = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            String problem = checkHeader(image, sourcePath);
+            if (problem != null) {
+                return reject(problem);
+            }
+
+            int taskCount = image.getInt(TASK_COUNT_OFFSET);
+            int stringsOffset = image.getInt(STRINGS_OFFSET);
+            if (taskCount < 0 || stringsOffset != HEADER_SIZE + (long) taskCount * (RECORD_SIZE + Long.BYTES)
+                    || stringsOffset > size) {
+                return reject("bad_layout");
+            }
+
+            CRC32C bodyCrc = new CRC32C();
+            bodyCrc.update(image.duplicate().position(HEADER_SIZE));
+            if ((int) bodyCrc.getValue() != image.getInt(BODY_CRC_OFFSET)) {
+                return reject("bad_checksum");
+            }
+
+            ArrayList<Task> tasks = new ArrayList<>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                tasks.add(readTask(image, HEADER_SIZE + i * RECORD_SIZE));
+            }
+            long[] lineHashes = new long[taskCount];
+            image.duplicate().position(HEADER_SIZE + taskCount * RECORD_SIZE).asLongBuffer().get(lineHashes);
+            return new Contents(tasks, lineHashes);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            // The checksum matched, so only a bug in the writer could get here
+            return reject("bad_record");
+        }
+    }
+
+    /**
+     * Checks the header against the data file, cheapest comparison first.
+     *
+     * @return why the image cannot be used, or null if it can
+     */
+    private static String checkHeader(ByteBuffer header, Path sourcePath) throws IOException {
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            return "unknown_format";
+        }
+        if (!Files.exists(sourcePath) || header.getLong(SOURCE_SIZE_OFFSET) != Files.size(sourcePath)
+                || header.getLong(SOURCE_MTIME_OFFSET) != Files.getLastModifiedTime(sourcePath).toMillis()) {
+            return "data_file_changed";
+        }
+        // Catches edits that keep the size and land within the same mtime tick, e.g. marking a task
+        if (header.getInt(SOURCE_CRC_OFFSET) != checksum(sourcePath)) {
+            return "data_file_changed";
+        }
+        return null;
+    }
+
+    private static Contents reject(String reason) {
+        LOG.atInfo().with("reason", reason).log("state_image_rejected");
+        return null;
+    }
+
+    private static Task readTask(ByteBuffer image, int record) {
+        String description = readString(image, image.getInt(record + DESCRIPTION));
+        Task task;
+        switch (image.get(record)) {
+        case TODO:
+            task = new ToDo(description);
+            break;
+        case DEADLINE:
+            int inputOffset = image.getInt(record + INPUT);
+            task = new Deadline(description, image.getLong(record + FIRST_DATE), image.get(record + FORMAT),
+                    inputOffset == NO_STRING ? null : readString(image, inputOffset));
+            break;
+        case EVENT:
+            task = new Event(description, image.getLong(record + FIRST_DATE), image.getLong(record + SECOND_DATE));
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown task type " + image.get(record));
+        }
+
+        if ((image.get(record + FLAGS) & DONE_FLAG) != 0) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    private static String readString(ByteBuffer image, int offset) {
+        int stringsOffset = image.getInt(STRINGS_OFFSET);
+        int length = image.getInt(stringsOffset + offset);
+        byte[] bytes = new byte[length];
+        image.get(stringsOffset + offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the CRC32C of a file's contents, read through a memory mapping.
+     *
+     * @param path the file
+     * @return the checksum, as the low 32 bits of the CRC
+     * @throws IOException if the file cannot be read
+     */
+    public static int checksum(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(Integer.MAX_VALUE, size - position)));
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Appends a record for each task visited, and its strings to the string area.
+     */
+    private static class RecordWriter implements TaskVisitor<Void> {
+        private final ByteBuffer records;
+        private final ByteArrayOutputStream strings = new ByteArrayOutputStream();
+
+        RecordWriter(int taskCount) {
+            records = ByteBuffer.allocate(taskCount * RECORD_SIZE);
+        }
+
+        @Override
+        public Void visitTask(Task task) {
+            throw new IllegalArgumentException("Only to-dos, deadlines and events can be saved");
+        }
+
+        @Override
+        public Void visitToDo(ToDo todo) {
+            writeRecord(todo, TODO, (byte) 0, 0, 0, NO_STRING);
+            return null;
+        }
+
+        @Override
+        public Void visitDeadline(Deadline deadline) {
+            String input = deadline.getDeadlineInput();
+            writeRecord(deadline, DEADLINE, deadline.getDeadlineFormat(), deadline.getDeadlineEpochSecond(), 0,
+                    input == null ? NO_STRING : writeString(input));
+            return null;
+        }
+
+        @Override
+        public Void visitEvent(Event event) {
+            writeRecord(event, EVENT, (byte) 0, event.getStartEpochSecond(), event.getEndEpochSecond(), NO_STRING);
+            return null;
+        }
+
+        private void writeRecord(Task task, byte type, byte format, long firstDate, long secondDate,
+                int inputOffset) {
+            int descriptionOffset = writeString(task.getTask());
+            records.put(type);
+            records.put(task.getIsDone() ? DONE_FLAG : 0);
+            records.put(format);
+            records.put((byte) 0);
+            records.putInt(descriptionOffset);
+            records.putLong(firstDate);
+            records.putLong(secondDate);
+            records.putInt(inputOffset);
+            records.putInt(0);
+        }
+
+        private int writeString(String value) {
+            int offset = strings.size();
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            strings.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+            strings.writeBytes(bytes);
+            return offset;
+        }
+    }
+
+    /**
+     * The tasks read back from an image, with the hash of the line each is saved as.
+     */
+    public static class Contents {
+        private final ArrayList<Task> tasks;
+        private final long[] lineHashes;
+
+        Contents(ArrayList<Task> tasks, long[] lineHashes) {
+            this.tasks = tasks;
+            this.lineHashes = lineHashes;
+        }
+
+        public ArrayList<Task> getTasks() {
+            return tasks;
+        }
+
+        public long[] getLineHashes() {
+            return lineHashes;
+        }
+    }
+}
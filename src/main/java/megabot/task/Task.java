@@ -71,6 +71,39 @@ public class Task {
         return getStatusIcon() + " " + this.getTask();
     }
 
+    /**
+     * Runs the visitor's method for this type of task.
+     *
+     * @param visitor the visitor
+     * @param <R> the type of the result
+     * @return the result of the visitor
+     */
+    public <R> R accept(TaskVisitor<R> visitor) {
+        return visitor.visitTask(this);
+    }
+
+    /**
+     * Returns a new task with the same description, status and dates, which shares nothing that can change.
+     *
+     * @return the copy
+     */
+    public Task copy() {
+        return copyStatusTo(new Task(this.task));
+    }
+
+    /**
+     * Gives a copy of this task the same completion status.
+     *
+     * @param copy the copy, just constructed
+     * @param <T> the type of the copy
+     * @return the copy
+     */
+    protected <T extends Task> T copyStatusTo(T copy) {
+        Task task = copy;
+        task.isDone = this.isDone;
+        return copy;
+    }
+
     /**
      * Returns the task data in a format suitable for file storage.
      * Format: "STATUS | DESCRIPTION" where STATUS is "1" for done, "0" for not done.
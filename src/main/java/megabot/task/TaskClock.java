@@ -0,0 +1,97 @@
+package megabot.task;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * A coarse clock that deadlines and events use to work out their status.
+ * The current time is only looked up again once the previous reading is a whole tick old,
+ * so rendering a long list reads the same "now" for every task instead of querying the
+ * system clock and time zone once per task.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class TaskClock {
+    private static volatile TaskClock current = new TaskClock(Clock.systemDefaultZone(), Duration.ofSeconds(1));
+
+    private final Clock clock;
+    private final long tickMillis;
+    private volatile Reading lastReading;
+
+    /**
+     * Constructs a TaskClock that reads the given clock, rounded down to whole ticks.
+     *
+     * @param clock the source of the current time and time zone
+     * @param tick how long a reading stays current, at least one millisecond
+     */
+    public TaskClock(Clock clock, Duration tick) {
+        assert clock != null : "Clock cannot be null";
+        assert tick.toMillis() > 0 : "Tick must be at least one millisecond";
+
+        this.clock = clock;
+        this.tickMillis = tick.toMillis();
+    }
+
+    /**
+     * Returns the clock used by all tasks.
+     *
+     * @return the current task clock
+     */
+    public static TaskClock getCurrent() {
+        return current;
+    }
+
+    /**
+     * Replaces the clock used by all tasks, e.g. with a fixed clock in tests.
+     *
+     * @param taskClock the new task clock
+     */
+    public static void setCurrent(TaskClock taskClock) {
+        assert taskClock != null : "Task clock cannot be null";
+        current = taskClock;
+    }
+
+    /**
+     * Returns the current date and time, rounded down to the start of the current tick.
+     *
+     * @return the current tick as a LocalDateTime
+     */
+    public LocalDateTime now() {
+        return read().dateTime;
+    }
+
+    /**
+     * Returns the current tick in the primitive form tasks keep their dates in.
+     *
+     * @return seconds since 1970-01-01T00:00 on the local wall clock
+     */
+    long nowEpochSecond() {
+        return read().epochSecond;
+    }
+
+    private Reading read() {
+        long tick = Math.floorDiv(clock.millis(), tickMillis);
+        Reading reading = lastReading;
+        if (reading == null || reading.tick != tick) {
+            Instant instant = Instant.ofEpochMilli(tick * tickMillis);
+            reading = new Reading(tick, LocalDateTime.ofInstant(instant, clock.getZone()));
+            lastReading = reading;
+        }
+        return reading;
+    }
+
+    private static class Reading {
+        private final long tick;
+        private final LocalDateTime dateTime;
+        private final long epochSecond;
+
+        Reading(long tick, LocalDateTime dateTime) {
+            this.tick = tick;
+            this.dateTime = dateTime;
+            this.epochSecond = EpochTime.of(dateTime);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package megabot.task;
+
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formatters shared by every task when it is shown to the user.
+ * DateTimeFormatter is immutable and thread-safe, so each pattern is compiled once
+ * instead of once per task on every render and save.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public final class TaskFormat {
+    /** Format of the due date shown for a deadline, e.g. "Mar 15 2024 11:59 PM". */
+    public static final DateTimeFormatter DEADLINE_DISPLAY = DateTimeFormatter.ofPattern("MMM d yyyy h:mm a");
+
+    /** Format of the start and end shown for an event, and saved to file, e.g. "2024-03-10 2:00 PM". */
+    public static final DateTimeFormatter EVENT_DISPLAY = DateTimeFormatter.ofPattern("yyyy-MM-dd h:mm a");
+
+    private TaskFormat() {
+        // Not meant to be instantiated
+    }
+}
@@ -1,9 +1,9 @@
 package megabot.task;
 
 import java.util.ArrayList;
-import java.util.logging.Logger;
 
 import megabot.exception.MegabotException;
+import megabot.log.Log;
 import megabot.parser.Parser;
 
 /**
@@ -13,7 +13,7 @@ import megabot.parser.Parser;
  * @version 1.0
  */
 public class TaskService {
-    private static final Logger LOGGER = Logger.getLogger(TaskService.class.getName());
+    private static final Log LOG = Log.get(TaskService.class);
     private final TaskList tasks;
 
     /**
@@ -22,7 +22,7 @@ public class TaskService {
      */
     public TaskService(TaskList tasks) {
         this.tasks = tasks;
-        LOGGER.info("TaskService initialized with " + tasks.size() + " existing tasks");
+        LOG.atFine().with("tasks", tasks.size()).log("task_service_created");
     }
 
     /**
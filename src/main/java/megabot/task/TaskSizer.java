@@ -0,0 +1,213 @@
+package megabot.task;
+
+import java.util.ArrayList;
+
+import megabot.metrics.ObjectLayout;
+
+/**
+ * Estimates the memory a task list retains by visiting every task, for the memstats command.
+ * For each type of task it adds up the task objects themselves, their descriptions and dates,
+ * and the display text and status caches they have filled so far. Objects shared between
+ * tasks, such as status messages, are not counted.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class TaskSizer implements TaskVisitor<Void> {
+    private static final String[] TYPE_NAMES = {"task", "todo", "deadline", "event"};
+    private static final int TASK = 0;
+    private static final int TODO = 1;
+    private static final int DEADLINE = 2;
+    private static final int EVENT = 3;
+
+    private final ObjectLayout layout;
+    private final Footprint[] footprints = new Footprint[TYPE_NAMES.length];
+    private long indexBytes;
+    private long displayTextCount;
+    private long displayTextBytes;
+    private long durationCount;
+    private long durationBytes;
+    private long statusCount;
+    private long statusBytes;
+
+    /**
+     * Constructs an empty TaskSizer that estimates sizes with the given layout.
+     *
+     * @param layout the object layout of the JVM
+     */
+    public TaskSizer(ObjectLayout layout) {
+        this.layout = layout;
+        for (int i = 0; i < footprints.length; i++) {
+            footprints[i] = new Footprint();
+        }
+    }
+
+    /**
+     * Estimates the memory retained by the given task list on the running JVM.
+     *
+     * @param tasks the task list
+     * @return the sizer holding the estimate
+     */
+    public static TaskSizer measure(TaskList tasks) {
+        TaskSizer sizer = new TaskSizer(ObjectLayout.current());
+        ArrayList<Task> taskList = tasks.getTasks();
+        for (Task task : taskList) {
+            task.accept(sizer);
+        }
+        // The list's backing array has room for at least every task
+        sizer.indexBytes = sizer.layout.shallowSize(TaskList.class) + sizer.layout.shallowSize(ArrayList.class)
+                + sizer.layout.arraySize(taskList.size(), sizer.layout.getReferenceSize());
+        return sizer;
+    }
+
+    @Override
+    public Void visitTask(Task task) {
+        addTask(TASK, task);
+        return null;
+    }
+
+    @Override
+    public Void visitToDo(ToDo todo) {
+        addTask(TODO, todo);
+        return null;
+    }
+
+    @Override
+    public Void visitDeadline(Deadline deadline) {
+        Footprint footprint = addTask(DEADLINE, deadline);
+        footprint.dateBytes += layout.stringSize(deadline.getDeadlineInput());
+        footprint.cacheBytes += addDisplayText(deadline.getCachedDisplayText())
+                + addStatus(deadline.getCachedStatus());
+        return null;
+    }
+
+    @Override
+    public Void visitEvent(Event event) {
+        Footprint footprint = addTask(EVENT, event);
+        footprint.cacheBytes += addDisplayText(event.getCachedDisplayText()) + addStatus(event.getCachedStatus());
+
+        String duration = event.getCachedDuration();
+        if (duration != null) {
+            long bytes = layout.stringSize(duration);
+            durationCount++;
+            durationBytes += bytes;
+            footprint.cacheBytes += bytes;
+        }
+        return null;
+    }
+
+    private Footprint addTask(int type, Task task) {
+        Footprint footprint = footprints[type];
+        footprint.count++;
+        footprint.objectBytes += layout.shallowSize(task.getClass());
+        footprint.descriptionBytes += layout.stringSize(task.getTask());
+        return footprint;
+    }
+
+    private long addDisplayText(String text) {
+        if (text == null) {
+            return 0;
+        }
+        long bytes = layout.stringSize(text);
+        displayTextCount++;
+        displayTextBytes += bytes;
+        return bytes;
+    }
+
+    private long addStatus(CachedStatus status) {
+        if (status == null) {
+            return 0;
+        }
+        // The message itself is a constant shared by every task
+        long bytes = layout.shallowSize(CachedStatus.class);
+        statusCount++;
+        statusBytes += bytes;
+        return bytes;
+    }
+
+    /**
+     * Returns the estimated bytes retained by the task list, including its backing array.
+     *
+     * @return the total in bytes
+     */
+    public long getTotalBytes() {
+        long total = indexBytes;
+        for (Footprint footprint : footprints) {
+            total += footprint.getTotalBytes();
+        }
+        return total;
+    }
+
+    public long getTaskCount() {
+        long count = 0;
+        for (Footprint footprint : footprints) {
+            count += footprint.count;
+        }
+        return count;
+    }
+
+    public long getDescriptionBytes() {
+        long bytes = 0;
+        for (Footprint footprint : footprints) {
+            bytes += footprint.descriptionBytes;
+        }
+        return bytes;
+    }
+
+    public long getCacheBytes() {
+        return displayTextBytes + durationBytes + statusBytes;
+    }
+
+    public long getIndexBytes() {
+        return indexBytes;
+    }
+
+    /**
+     * Returns the estimate as a table with one row per type of task, followed by the list and cache totals.
+     *
+     * @return the report shown by the memstats command
+     */
+    public String report() {
+        long taskCount = getTaskCount();
+        StringBuilder sb = new StringBuilder("Here is roughly how much memory your ")
+                .append(taskCount).append(taskCount == 1 ? " task takes:\n" : " tasks take:\n");
+        sb.append(String.format("%-9s %7s %10s %12s %10s %10s %9s%n", "type", "count", "objects", "descriptions",
+                "caches", "total", "per task"));
+        for (int i = 0; i < footprints.length; i++) {
+            Footprint footprint = footprints[i];
+            if (footprint.count == 0) {
+                continue;
+            }
+            String objectBytes = ObjectLayout.formatBytes(footprint.objectBytes + footprint.dateBytes);
+            sb.append(String.format("%-9s %7d %10s %12s %10s %10s %9s%n", TYPE_NAMES[i], footprint.count,
+                    objectBytes, ObjectLayout.formatBytes(footprint.descriptionBytes),
+                    ObjectLayout.formatBytes(footprint.cacheBytes),
+                    ObjectLayout.formatBytes(footprint.getTotalBytes()),
+                    ObjectLayout.formatBytes(footprint.getTotalBytes() / footprint.count)));
+        }
+        sb.append(String.format("Task list: %s for %d references%n", ObjectLayout.formatBytes(indexBytes),
+                taskCount));
+        sb.append(String.format("Caches: %d display texts (%s), %d event durations (%s), %d statuses (%s)%n",
+                displayTextCount, ObjectLayout.formatBytes(displayTextBytes), durationCount,
+                ObjectLayout.formatBytes(durationBytes), statusCount, ObjectLayout.formatBytes(statusBytes)));
+        sb.append(String.format("Total: %s, %s per task%n", ObjectLayout.formatBytes(getTotalBytes()),
+                ObjectLayout.formatBytes(taskCount == 0 ? 0 : getTotalBytes() / taskCount)));
+        sb.append("(Estimated for ").append(layout).append(".)");
+        return sb.toString();
+    }
+
+    /**
+     * Running totals for one type of task.
+     */
+    private static class Footprint {
+        private long count;
+        private long objectBytes;
+        private long dateBytes;
+        private long descriptionBytes;
+        private long cacheBytes;
+
+        long getTotalBytes() {
+            return objectBytes + dateBytes + descriptionBytes + cacheBytes;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package megabot.task;
+
+/**
+ * Operation on tasks that depends on the type of each task.
+ * Call {@link Task#accept(TaskVisitor)} and the method for the task's type is run.
+ *
+ * @param <R> the type of the result
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public interface TaskVisitor<R> {
+    /**
+     * Visits a task that is none of the more specific types.
+     *
+     * @param task the task
+     * @return the result
+     */
+    R visitTask(Task task);
+
+    /**
+     * Visits a todo.
+     *
+     * @param todo the todo
+     * @return the result
+     */
+    R visitToDo(ToDo todo);
+
+    /**
+     * Visits a deadline.
+     *
+     * @param deadline the deadline
+     * @return the result
+     */
+    R visitDeadline(Deadline deadline);
+
+    /**
+     * Visits an event.
+     *
+     * @param event the event
+     * @return the result
+     */
+    R visitEvent(Event event);
+}
@@ -17,6 +17,16 @@ public class ToDo extends Task {
         super(todo);
     }
 
+    @Override
+    public <R> R accept(TaskVisitor<R> visitor) {
+        return visitor.visitToDo(this);
+    }
+
+    @Override
+    public ToDo copy() {
+        return copyStatusTo(new ToDo(super.getTask()));
+    }
+
     @Override
     public String toString() {
         return "[T]" + this.getStatusIcon() + " " + super.getTask();
@@ -0,0 +1,107 @@
+package megabot.tools;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Generates a seeded stream of valid user commands in realistic proportions, for replaying against MegaBot.
+ * It keeps track of how many tasks there are and which ones are done, so every mark, unmark and delete
+ * refers to a task that exists and is in the right state. The stream never runs out.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class CommandStreamGenerator implements Iterator<String> {
+    /** Relative frequencies of todo, deadline, event, mark, unmark, delete, find and list. */
+    private static final int[] WEIGHTS = {20, 10, 5, 15, 5, 10, 20, 15};
+    private static final int TOTAL_WEIGHT = 100;
+    private static final String[] KEYWORDS = {"book", "report", "meeting", "plants", "homework"};
+    private static final String[] WORDS = {"read", "book", "submit", "report", "project", "meeting", "water", "plants"};
+
+    private final Random random;
+    private final ArrayList<Boolean> isDone = new ArrayList<>();
+    private int addedCount;
+
+    /**
+     * Constructs a CommandStreamGenerator for a task list that starts with the given tasks, none of them done.
+     *
+     * @param seed the seed of the random numbers
+     * @param initialTaskCount the number of tasks already in the list
+     */
+    public CommandStreamGenerator(long seed, int initialTaskCount) {
+        this.random = new Random(seed);
+        for (int i = 0; i < initialTaskCount; i++) {
+            isDone.add(false);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return true;
+    }
+
+    /**
+     * Returns the next command.
+     *
+     * @return a command that is valid for the task list after all earlier commands
+     */
+    @Override
+    public String next() {
+        int pick = random.nextInt(TOTAL_WEIGHT);
+        int kind = 0;
+        while (pick >= WEIGHTS[kind]) {
+            pick -= WEIGHTS[kind];
+            kind++;
+        }
+
+        // Commands on existing tasks fall back to adding one when there is nothing to work on
+        switch (kind) {
+        case 3:
+            return markOrAdd(true);
+        case 4:
+            return markOrAdd(false);
+        case 5:
+            if (!isDone.isEmpty()) {
+                int index = random.nextInt(isDone.size());
+                isDone.remove(index);
+                return "delete " + (index + 1);
+            }
+            return add(0);
+        case 6:
+            return "find " + KEYWORDS[random.nextInt(KEYWORDS.length)];
+        case 7:
+            return "list";
+        default:
+            return add(kind);
+        }
+    }
+
+    private String markOrAdd(boolean isMark) {
+        // Sample a few tasks for one in the right state instead of scanning the whole list
+        for (int attempt = 0; attempt < 8 && !isDone.isEmpty(); attempt++) {
+            int index = random.nextInt(isDone.size());
+            if (isDone.get(index) != isMark) {
+                isDone.set(index, isMark);
+                return (isMark ? "mark " : "unmark ") + (index + 1);
+            }
+        }
+        return add(0);
+    }
+
+    private String add(int kind) {
+        isDone.add(false);
+        addedCount++;
+        String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                + " " + addedCount;
+        int day = 13 + random.nextInt(15);
+        switch (kind) {
+        case 1:
+            return "deadline " + description + " /by 2030-03-" + day + " 2359";
+        case 2:
+            return "event " + description + " /from 2030-03-" + day + " 1400 /to 2030-03-" + day + " 1600";
+        default:
+            return "todo " + description;
+        }
+    }
+}
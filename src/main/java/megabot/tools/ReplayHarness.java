@@ -0,0 +1,447 @@
+package megabot.tools;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+import megabot.MegaBot;
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.gui.Gui;
+import megabot.metrics.LatencyHistogram;
+import megabot.task.TaskList;
+
+/**
+ * Replays a stream of user commands against MegaBot end to end and measures how it performs.
+ * Commands come from a recorded file, such as {@code text-ui-test/input.txt}, or from a seeded
+ * {@link CommandStreamGenerator}. Each run works on a fresh copy of the data file, so runs in
+ * different modes see exactly the same tasks and commands and can be compared directly.
+ *
+ * <p>The report covers throughput, per-command latency percentiles, bytes allocated by all
+ * threads and the garbage collections that happened during the run.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class ReplayHarness {
+    private static final String ERROR_PREFIX = "OOPSIE!!";
+
+    private final Mode mode;
+    private final int window;
+    private final Path dataFile;
+    private MegaBot megaBot;
+    private TaskList tasks;
+    private Storage storage;
+    private Gui gui;
+
+    /**
+     * Constructs a ReplayHarness that loads the tasks in the given data file.
+     *
+     * @param mode how commands are executed and saved
+     * @param dataFile the data file, which the commands will change
+     * @param window the most engine commands that may be in flight at once, at least 1
+     * @throws MegabotException if the tasks cannot be loaded
+     */
+    public ReplayHarness(Mode mode, Path dataFile, int window) throws MegabotException {
+        assert window > 0 : "Window must be at least 1";
+
+        this.mode = mode;
+        this.window = window;
+        this.dataFile = dataFile;
+        if (mode == Mode.SCRIPT) {
+            storage = new Storage(dataFile.toString());
+            tasks = new TaskList(storage.load());
+            gui = new Gui(tasks, storage);
+        } else {
+            megaBot = new MegaBot(dataFile.toString());
+            tasks = megaBot.getTaskList();
+        }
+    }
+
+    public int getTaskCount() {
+        return tasks.size();
+    }
+
+    /**
+     * Executes the given number of commands, or fewer if the stream runs out, and measures the run.
+     * Measuring ends once every command has completed and, in script mode, the tasks have been saved.
+     *
+     * @param commands the commands to execute
+     * @param limit the most commands to execute
+     * @return the measurements of the run
+     * @throws IOException if the tasks cannot be saved
+     */
+    public Report run(Iterator<String> commands, long limit) throws IOException {
+        Report report = new Report(mode);
+        GcRecorder gcRecorder = new GcRecorder();
+        long startAllocated = allocatedBytes();
+        long startTime = System.nanoTime();
+
+        switch (mode) {
+        case ENGINE:
+            runEngine(commands, limit, report);
+            break;
+        case SCRIPT:
+            runScript(commands, limit, report);
+            storage.save(tasks.getTasks());
+            break;
+        default:
+            runPerCommand(commands, limit, report);
+            break;
+        }
+
+        report.elapsedNanos = System.nanoTime() - startTime;
+        report.allocatedBytes = allocatedBytes() - startAllocated;
+        gcRecorder.finish(report);
+        report.taskCount = tasks.size();
+        report.fileBytes = Files.size(dataFile);
+        return report;
+    }
+
+    /**
+     * Stops the command engine, if one was started, after its pending commands have been saved.
+     */
+    public void close() {
+        if (megaBot != null) {
+            megaBot.shutdown();
+        }
+    }
+
+    private void runPerCommand(Iterator<String> commands, long limit, Report report) {
+        for (long i = 0; i < limit && commands.hasNext(); i++) {
+            String command = commands.next();
+            long start = System.nanoTime();
+            String response = megaBot.getResponse(command);
+            report.record(System.nanoTime() - start, response);
+        }
+    }
+
+    private void runScript(Iterator<String> commands, long limit, Report report) {
+        for (long i = 0; i < limit && commands.hasNext(); i++) {
+            String command = commands.next();
+            long start = System.nanoTime();
+            String response;
+            try {
+                response = gui.handleCommand(command);
+            } catch (MegabotException e) {
+                response = e.getMessage();
+            }
+            report.record(System.nanoTime() - start, response);
+        }
+    }
+
+    private void runEngine(Iterator<String> commands, long limit, Report report) {
+        ArrayDeque<InFlight> inFlight = new ArrayDeque<>(window);
+        for (long i = 0; i < limit && commands.hasNext(); i++) {
+            if (inFlight.size() == window) {
+                inFlight.poll().finish(report);
+            }
+            inFlight.add(new InFlight(megaBot.submit(commands.next())));
+        }
+        while (!inFlight.isEmpty()) {
+            inFlight.poll().finish(report);
+        }
+    }
+
+    private static long allocatedBytes() {
+        // Sums every live thread, since engine commands allocate on the writer thread
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long bytes : threadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+            total += Math.max(bytes, 0);
+        }
+        return total;
+    }
+
+    /**
+     * Entry point of the harness.
+     * Usage: {@code [--commands <file> | --generate <n>] [--seed <n>] [--data <file>]
+     * [--mode per-command|engine|script[,...]] [--window <n>] [--warmup <n>]}.
+     * The data file is copied before every run and never changed.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        Path commandsPath = null;
+        long generateCount = 20_000;
+        long seed = 42;
+        Path dataPath = null;
+        String modes = "per-command,engine,script";
+        int window = 64;
+        long warmupCount = 0;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "--commands":
+                    commandsPath = Path.of(args[++i]);
+                    break;
+                case "--generate":
+                    generateCount = Long.parseLong(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--data":
+                    dataPath = Path.of(args[++i]);
+                    break;
+                case "--mode":
+                    modes = args[++i];
+                    break;
+                case "--window":
+                    window = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmupCount = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            for (String mode : modes.split(",")) {
+                Mode.fromString(mode);
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("Usage: [--commands <file> | --generate <n>] [--seed <n>] [--data <file>] "
+                    + "[--mode per-command|engine|script[,...]] [--window <n>] [--warmup <n>]");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            List<String> recorded = commandsPath == null ? null : readCommands(commandsPath);
+            for (String modeText : modes.split(",")) {
+                Path runFile = Files.createTempFile("megabot-replay", ".txt");
+                try {
+                    if (dataPath != null) {
+                        Files.copy(dataPath, runFile, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    ReplayHarness harness = new ReplayHarness(Mode.fromString(modeText), runFile, window);
+                    Iterator<String> commands = recorded != null
+                            ? recorded.iterator()
+                            : new CommandStreamGenerator(seed, harness.getTaskCount());
+                    long limit = recorded != null ? recorded.size() : generateCount;
+
+                    // Warm-up commands come from the front of the stream and are not measured
+                    harness.run(commands, warmupCount);
+                    System.out.println(harness.run(commands, Math.max(0, limit - warmupCount)));
+                    harness.close();
+                } finally {
+                    Files.deleteIfExists(runFile);
+                    Files.deleteIfExists(Path.of(runFile + Storage.IMAGE_SUFFIX));
+                }
+            }
+        } catch (IOException | MegabotException e) {
+            System.err.println("OOPSIE!! Replay failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static List<String> readCommands(Path path) throws IOException {
+        List<String> commands = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String command = line.trim();
+            if (!command.isEmpty() && !command.startsWith("#") && !command.equals("bye")) {
+                commands.add(command);
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * How the harness executes commands.
+     */
+    public enum Mode {
+        /** Through {@link MegaBot#getResponse(String)}, saving after every command like the GUI. */
+        PER_COMMAND,
+        /** Through {@link MegaBot#submit(String)}, saving once per batch on the writer thread. */
+        ENGINE,
+        /** Straight through {@link Gui}, saving once at the end like the batch script runner. */
+        SCRIPT;
+
+        /**
+         * Returns the mode with the given name, such as "per-command".
+         *
+         * @param text the name of the mode
+         * @return the mode
+         * @throws IllegalArgumentException if there is no such mode
+         */
+        public static Mode fromString(String text) {
+            return valueOf(text.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    /**
+     * Measurements of one replay run.
+     */
+    public static class Report {
+        private final Mode mode;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private long commandCount;
+        private long errorCount;
+        private long elapsedNanos;
+        private long allocatedBytes;
+        private long gcCount;
+        private long gcMillis;
+        private long maxPauseMillis;
+        private int taskCount;
+        private long fileBytes;
+
+        Report(Mode mode) {
+            this.mode = mode;
+        }
+
+        void record(long nanos, String response) {
+            commandCount++;
+            if (response.startsWith(ERROR_PREFIX)) {
+                errorCount++;
+            }
+            latency.record(nanos);
+        }
+
+        public long getCommandCount() {
+            return commandCount;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public int getTaskCount() {
+            return taskCount;
+        }
+
+        /**
+         * Returns the number of commands completed per second.
+         *
+         * @return the command throughput
+         */
+        public double getCommandsPerSecond() {
+            return elapsedNanos == 0 ? 0 : commandCount * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format(Locale.ROOT, "%s: %d commands (%d failed) in %.2f s, %.0f commands/sec%n"
+                            + "  latency p50 %s, p90 %s, p99 %s, p99.9 %s, max %s%n"
+                            + "  allocated %.1f MB/s, %d bytes/command%n"
+                            + "  gc %d collections, %d ms total, longest pause %d ms%n"
+                            + "  %d tasks, %d bytes on disk",
+                    mode.name().toLowerCase(Locale.ROOT).replace('_', '-'), commandCount, errorCount, seconds,
+                    getCommandsPerSecond(),
+                    formatMillis(latency.getPercentileNanos(50)), formatMillis(latency.getPercentileNanos(90)),
+                    formatMillis(latency.getPercentileNanos(99)), formatMillis(latency.getPercentileNanos(99.9)),
+                    formatMillis(latency.getMaxNanos()),
+                    seconds == 0 ? 0 : allocatedBytes / 1e6 / seconds,
+                    commandCount == 0 ? 0 : allocatedBytes / commandCount,
+                    gcCount, gcMillis, maxPauseMillis, taskCount, fileBytes);
+        }
+
+        private static String formatMillis(long nanos) {
+            return String.format(Locale.ROOT, "%.3f ms", nanos / 1e6);
+        }
+    }
+
+    /**
+     * An engine command that has been submitted but may not have completed yet.
+     */
+    private static class InFlight {
+        private final long startNanos = System.nanoTime();
+        private final CompletableFuture<Long> completedAt;
+        private final CompletableFuture<String> response;
+
+        InFlight(CompletableFuture<String> response) {
+            this.response = response;
+            // Timestamped when the writer completes it, not when the harness gets round to checking
+            this.completedAt = response.handle((ignored, error) -> System.nanoTime());
+        }
+
+        void finish(Report report) {
+            long endNanos = completedAt.join();
+            String text = response.isCompletedExceptionally() ? ERROR_PREFIX : response.join();
+            report.record(endNanos - startNanos, text);
+        }
+    }
+
+    /**
+     * Counts collections and their pauses between its construction and {@link #finish(Report)}.
+     */
+    private static class GcRecorder implements NotificationListener {
+        private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        private final long startCount;
+        private final long startMillis;
+        private final AtomicLong maxPauseMillis = new AtomicLong();
+
+        GcRecorder() {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : collectors) {
+                count += Math.max(collector.getCollectionCount(), 0);
+                millis += Math.max(collector.getCollectionTime(), 0);
+                if (collector instanceof NotificationEmitter) {
+                    ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+                }
+            }
+            this.startCount = count;
+            this.startMillis = millis;
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                    (CompositeData) notification.getUserData());
+            maxPauseMillis.accumulateAndGet(info.getGcInfo().getDuration(), Math::max);
+        }
+
+        void finish(Report report) {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : collectors) {
+                count += Math.max(collector.getCollectionCount(), 0);
+                millis += Math.max(collector.getCollectionTime(), 0);
+                if (collector instanceof NotificationEmitter) {
+                    try {
+                        ((NotificationEmitter) collector).removeNotificationListener(this);
+                    } catch (ListenerNotFoundException e) {
+                        // Never added, nothing to remove
+                    }
+                }
+            }
+            report.gcCount = count - startCount;
+            report.gcMillis = millis - startMillis;
+            // Notifications arrive asynchronously, so a collection at the very end may be missed here
+            report.maxPauseMillis = maxPauseMillis.get();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package megabot.tools;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import megabot.parser.DateTimeParser;
+
+/**
+ * Generates task files in the format read by {@link megabot.Storage}, for testing at scale.
+ * The same seed and settings always give the same file. Dates are written in every format
+ * {@link DateTimeParser} supports, and a chosen number of corrupt lines can be mixed in.
+ *
+ * <p>Every valid line loads without errors. Dates always fall on day 13 to 28 of the month, so
+ * day-first and month-first formats can never be mistaken for each other, and events always end
+ * on a later day than they start, even when written without a time.
+ *
+ * @author Xu Yong Lin
+ * @version 1.0
+ */
+public class TaskFileGenerator {
+    private static final String[] WORDS = {
+        "read", "book", "submit", "report", "project", "meeting", "water", "plants", "call", "mum",
+        "buy", "groceries", "review", "pull", "request", "finish", "assignment", "prepare", "slides",
+        "book", "dentist", "appointment", "pay", "bills", "clean", "room", "email", "professor",
+        "update", "resume", "practice", "piano", "walk", "dog", "renew", "passport", "fix", "bike",
+    };
+    private static final String[] CORRUPT_LINES = {
+        "X | 0 | unknown task type",
+        "T | 2 | invalid status",
+        "T | 0",
+        "D | 0 | unparseable deadline | someday soon",
+        "D | 1 | impossible month | 2030-13-01",
+        "E | 0 | ends before it starts | 2030-03-20 to 2030-03-13",
+    };
+    private static final int MIN_DAY = 13;
+    private static final int MAX_DAY = 28;
+    private static final int MIN_YEAR = 2020;
+    private static final int YEAR_COUNT = 16;
+
+    private final Random random;
+    private int[] typeWeights = {1, 1, 1};
+    private double doneRatio = 0.5;
+    private double meanWords = 4;
+    private int[] formatIndices = allFormats();
+
+    /**
+     * Constructs a TaskFileGenerator with equal numbers of each task type, half of them done,
+     * descriptions of four words on average and dates in every supported format.
+     *
+     * @param seed the seed of the random numbers
+     */
+    public TaskFileGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Sets the relative number of todos, deadlines and events.
+     *
+     * @param todoWeight the weight of todos
+     * @param deadlineWeight the weight of deadlines
+     * @param eventWeight the weight of events
+     */
+    public void setTypeMix(int todoWeight, int deadlineWeight, int eventWeight) {
+        assert todoWeight >= 0 && deadlineWeight >= 0 && eventWeight >= 0 : "Weights cannot be negative";
+        assert todoWeight + deadlineWeight + eventWeight > 0 : "At least one weight must be positive";
+        this.typeWeights = new int[] {todoWeight, deadlineWeight, eventWeight};
+    }
+
+    /**
+     * Sets the fraction of tasks that are marked as done.
+     *
+     * @param doneRatio a fraction from 0 to 1
+     */
+    public void setDoneRatio(double doneRatio) {
+        assert doneRatio >= 0 && doneRatio <= 1 : "Done ratio must be between 0 and 1";
+        this.doneRatio = doneRatio;
+    }
+
+    /**
+     * Sets the average number of words in a description.
+     * Lengths follow a long-tailed distribution: most descriptions are short, a few are much longer.
+     *
+     * @param meanWords the average number of words, at least 1
+     */
+    public void setMeanWords(double meanWords) {
+        assert meanWords >= 1 : "Descriptions have at least one word";
+        this.meanWords = meanWords;
+    }
+
+    /**
+     * Sets which date formats are used, by their {@link DateTimeParser} index. Each is picked equally often.
+     *
+     * @param formatIndices the format indices
+     */
+    public void setFormats(int... formatIndices) {
+        assert formatIndices.length > 0 : "At least one format is needed";
+        this.formatIndices = formatIndices.clone();
+    }
+
+    /**
+     * Writes tasks to the output, one per line, with corrupt lines at random positions.
+     *
+     * @param out the output
+     * @param validCount the number of valid tasks
+     * @param corruptCount the number of corrupt lines
+     * @throws IOException if writing fails
+     */
+    public void generate(Writer out, int validCount, int corruptCount) throws IOException {
+        long remainingValid = validCount;
+        long remainingCorrupt = corruptCount;
+        StringBuilder line = new StringBuilder(128);
+
+        while (remainingValid + remainingCorrupt > 0) {
+            line.setLength(0);
+            // Picking each line in proportion to what is left spreads corrupt lines evenly at random
+            if (random.nextDouble() * (remainingValid + remainingCorrupt) < remainingCorrupt) {
+                line.append(CORRUPT_LINES[random.nextInt(CORRUPT_LINES.length)]);
+                remainingCorrupt--;
+            } else {
+                appendTask(line);
+                remainingValid--;
+            }
+            line.append('\n');
+            out.append(line);
+        }
+    }
+
+    private void appendTask(StringBuilder line) {
+        int type = pickType();
+        line.append(type == 0 ? "T" : type == 1 ? "D" : "E")
+                .append(" | ").append(random.nextDouble() < doneRatio ? '1' : '0')
+                .append(" | ");
+        appendDescription(line);
+
+        if (type == 1) {
+            line.append(" | ").append(formatDate(randomDateTime(MIN_DAY, MAX_DAY)));
+        } else if (type == 2) {
+            LocalDateTime start = randomDateTime(MIN_DAY, MAX_DAY - 1);
+            LocalDateTime end = start.withDayOfMonth(start.getDayOfMonth() + 1 + random.nextInt(MAX_DAY
+                    - start.getDayOfMonth()));
+            line.append(" | ").append(formatDate(start)).append(" to ").append(formatDate(end));
+        }
+    }
+
+    private int pickType() {
+        int total = typeWeights[0] + typeWeights[1] + typeWeights[2];
+        int pick = random.nextInt(total);
+        if (pick < typeWeights[0]) {
+            return 0;
+        }
+        return pick < typeWeights[0] + typeWeights[1] ? 1 : 2;
+    }
+
+    private void appendDescription(StringBuilder line) {
+        // Exponentially distributed extra words give a long tail with the requested mean
+        int wordCount = 1 + (int) (-Math.log(1 - random.nextDouble()) * (meanWords - 1));
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                line.append(' ');
+            }
+            line.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+    }
+
+    private LocalDateTime randomDateTime(int minDay, int maxDay) {
+        return LocalDateTime.of(MIN_YEAR + random.nextInt(YEAR_COUNT), 1 + random.nextInt(12),
+                minDay + random.nextInt(maxDay - minDay + 1), random.nextInt(24), random.nextInt(60));
+    }
+
+    private String formatDate(LocalDateTime dateTime) {
+        return DateTimeParser.format(dateTime, formatIndices[random.nextInt(formatIndices.length)]);
+    }
+
+    private static int[] allFormats() {
+        int[] formats = new int[DateTimeParser.getFormatCount()];
+        Arrays.setAll(formats, i -> i);
+        return formats;
+    }
+
+    /**
+     * Writes a task file.
+     * Usage: {@code --out <file> [--count <n>] [--corrupt <n>] [--seed <n>] [--mix <todo>:<deadline>:<event>]
+     * [--done <ratio>] [--words <mean>] [--formats all|<index>,<index>...]}.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        Path outPath = null;
+        int count = 1000;
+        int corruptCount = 0;
+        long seed = 42;
+        String mix = null;
+        double doneRatio = 0.5;
+        double meanWords = 4;
+        String formats = "all";
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "--out":
+                    outPath = Path.of(args[++i]);
+                    break;
+                case "--count":
+                    count = Integer.parseInt(args[++i]);
+                    break;
+                case "--corrupt":
+                    corruptCount = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--mix":
+                    mix = args[++i];
+                    break;
+                case "--done":
+                    doneRatio = Double.parseDouble(args[++i]);
+                    break;
+                case "--words":
+                    meanWords = Double.parseDouble(args[++i]);
+                    break;
+                case "--formats":
+                    formats = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (outPath == null) {
+                throw new IllegalArgumentException("Missing --out");
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("Usage: --out <file> [--count <n>] [--corrupt <n>] [--seed <n>] "
+                    + "[--mix <todo>:<deadline>:<event>] [--done <ratio>] [--words <mean>] "
+                    + "[--formats all|<index>,<index>...]");
+            System.exit(2);
+            return;
+        }
+
+        TaskFileGenerator generator = new TaskFileGenerator(seed);
+        if (mix != null) {
+            String[] weights = mix.split(":");
+            generator.setTypeMix(Integer.parseInt(weights[0]), Integer.parseInt(weights[1]),
+                    Integer.parseInt(weights[2]));
+        }
+        generator.setDoneRatio(doneRatio);
+        generator.setMeanWords(meanWords);
+        if (!formats.equals("all")) {
+            generator.setFormats(Arrays.stream(formats.split(",")).mapToInt(Integer::parseInt).toArray());
+        }
+
+        long startTime = System.nanoTime();
+        try (BufferedWriter out = Files.newBufferedWriter(outPath, StandardCharsets.UTF_8)) {
+            generator.generate(out, count, corruptCount);
+        } catch (IOException e) {
+            System.err.println("OOPSIE!! Could not write " + outPath + ": " + e.getMessage());
+            System.exit(1);
+        }
+        System.err.printf("Wrote %d tasks and %d corrupt lines to %s in %.1f s%n", count, corruptCount, outPath,
+                (System.nanoTime() - startTime) / 1e9);
+    }
+}
@@ -0,0 +1,56 @@
+package megabot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+class ChatHistoryTest {
+    private ArrayList<ChatMessage> messages;
+    private File spillFile;
+    private ChatHistory history;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        messages = new ArrayList<>();
+        spillFile = File.createTempFile("megabot-chat", ".txt");
+        spillFile.deleteOnExit();
+        history = new ChatHistory(messages, 4, 2, spillFile.toPath());
+    }
+
+    @Test
+    void add_beyondCapacity_spillsOldestBatchToDisk() throws IOException {
+        for (int i = 1; i <= 5; i++) {
+            history.add(ChatMessage.fromUser("message " + i));
+        }
+
+        assertEquals(3, history.size());
+        assertEquals("message 3", messages.get(0).getText());
+        String spilled = Files.readString(spillFile.toPath(), StandardCharsets.UTF_8);
+        assertTrue(spilled.contains("USER: message 1"));
+        assertTrue(spilled.contains("USER: message 2"));
+        assertFalse(spilled.contains("message 3"));
+    }
+
+    @Test
+    void replace_pendingReply_replacesInPlace() {
+        ChatMessage pending = ChatMessage.pendingReply();
+        ChatMessage reply = ChatMessage.fromMegaBot("done");
+        history.add(ChatMessage.fromUser("list"));
+        history.add(pending);
+
+        assertTrue(history.replace(pending, reply));
+        assertSame(reply, messages.get(1));
+        assertFalse(history.replace(pending, reply));
+    }
+}
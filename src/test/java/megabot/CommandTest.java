@@ -17,6 +17,8 @@ class CommandTest {
         assertEquals("mark", Command.MARK.getCommandText());
         assertEquals("unmark", Command.UNMARK.getCommandText());
         assertEquals("delete", Command.DELETE.getCommandText());
+        assertEquals("stats", Command.STATS.getCommandText());
+        assertEquals("memstats", Command.MEMSTATS.getCommandText());
         assertEquals("bye", Command.BYE.getCommandText());
         assertEquals("", Command.UNKNOWN.getCommandText());
     }
@@ -24,6 +26,8 @@ class CommandTest {
     @Test
     void fromString_exactMatch_returnsCorrectCommand() {
         assertEquals(Command.LIST, Command.fromString("list"));
+        assertEquals(Command.STATS, Command.fromString("stats"));
+        assertEquals(Command.MEMSTATS, Command.fromString("memstats"));
         assertEquals(Command.BYE, Command.fromString("bye"));
         assertEquals(Command.TODO, Command.fromString("todo"));
         assertEquals(Command.DEADLINE, Command.fromString("deadline"));
@@ -68,9 +72,16 @@ class CommandTest {
         assertEquals(Command.UNKNOWN, Command.fromString("   "));
     }
 
+    @Test
+    void fromString_listCommandWithPageNumbers_returnsList() {
+        assertEquals(Command.LIST, Command.fromString("list 2"));
+        assertEquals(Command.LIST, Command.fromString("list 2 20"));
+        assertEquals(Command.UNKNOWN, Command.fromString("list 2 20 1"));
+    }
+
     @Test
     void fromString_listCommandWithArguments_returnsUnknown() {
-        // list and bye commands should not accept arguments
+        // list only accepts page numbers and bye does not accept arguments
         assertEquals(Command.UNKNOWN, Command.fromString("list something"));
         assertEquals(Command.UNKNOWN, Command.fromString("bye something"));
     }
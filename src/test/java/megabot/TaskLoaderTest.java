@@ -0,0 +1,128 @@
+package megabot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+class TaskLoaderTest {
+    private static final int TASK_COUNT = 25_000;
+
+    private File dataFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFile = File.createTempFile("megabot-loader", ".txt");
+        dataFile.deleteOnExit();
+        new File(dataFile.getAbsolutePath() + Storage.IMAGE_SUFFIX).deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(dataFile)) {
+            for (int i = 1; i <= TASK_COUNT; i++) {
+                writer.println("T | 0 | read book " + i);
+            }
+        }
+    }
+
+    @Test
+    void start_largeFile_reportsProgressThenDone() throws InterruptedException {
+        List<TaskLoader.Progress> reports = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        TaskLoader loader = new TaskLoader(new Storage(dataFile.getAbsolutePath()), progress -> {
+            reports.add(progress);
+            if (progress.isDone()) {
+                done.countDown();
+            }
+        });
+        loader.start();
+
+        assertEquals(TASK_COUNT, loader.getResult().join().size());
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(TASK_COUNT, loader.getSnapshot().size());
+
+        // The first report is never held back, and the last one says loading is done
+        TaskLoader.Progress first = reports.get(0);
+        assertFalse(first.isDone());
+        assertEquals(Storage.PROGRESS_INTERVAL, first.getTaskCount());
+        assertTrue(first.getPercent() > 0 && first.getPercent() < 100);
+
+        TaskLoader.Progress last = reports.get(reports.size() - 1);
+        assertTrue(last.isDone());
+        assertEquals(TASK_COUNT, last.getTaskCount());
+        assertEquals(100, last.getPercent());
+    }
+
+    @Test
+    void submit_whileLoading_readsSnapshotAndQueuesChanges() throws Exception {
+        CountDownLatch firstReport = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        MegaBot megabot = new MegaBot(dataFile.getAbsolutePath(), progress -> {
+            if (!progress.isDone() && firstReport.getCount() > 0) {
+                firstReport.countDown();
+                awaitQuietly(resume);
+            }
+        });
+        assertTrue(firstReport.await(10, TimeUnit.SECONDS));
+
+        // Loading is paused after the first chunk of tasks
+        String partialList = megabot.submit("list 1").get(10, TimeUnit.SECONDS);
+        assertTrue(partialList.startsWith("[Still loading: this answer only covers the first "
+                + Storage.PROGRESS_INTERVAL + " tasks]"));
+
+        CompletableFuture<String> added = megabot.submit("todo water plants");
+        CompletableFuture<String> found = megabot.submit("find water");
+        assertFalse(added.isDone());
+        assertFalse(found.isDone());
+
+        resume.countDown();
+        assertTrue(added.get(10, TimeUnit.SECONDS).contains("water plants"));
+        String foundResponse = found.get(10, TimeUnit.SECONDS);
+        assertTrue(foundResponse.contains("water plants"));
+        assertFalse(foundResponse.startsWith("[Still loading"));
+
+        megabot.shutdown();
+        assertTrue(megabot.isLoaded());
+        assertEquals(TASK_COUNT + 1, megabot.getTaskList().size());
+        assertEquals(TASK_COUNT + 1, Files.readAllLines(dataFile.toPath()).size());
+    }
+
+    @Test
+    void submit_afterFailedLoad_failsWithoutOverwritingFile() throws Exception {
+        List<String> lines = new ArrayList<>(List.of("T | 0 | read book", "T | 1 | return book"));
+        for (int i = 0; i < 11; i++) {
+            lines.add("X | 0 | not a task " + i);
+        }
+        Files.write(dataFile.toPath(), lines);
+        MegaBot megabot = new MegaBot(dataFile.getAbsolutePath(), progress -> { });
+
+        CompletableFuture<String> added = megabot.submit("todo new thing");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> added.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getMessage().contains("won't save"));
+        assertTrue(megabot.getResponse("todo another thing").contains("won't save"));
+        megabot.shutdown();
+        assertEquals(lines, Files.readAllLines(dataFile.toPath()));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package megabot.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import megabot.task.Task;
+import megabot.task.ToDo;
+
+
+class BloomFilterTest {
+    private Path directory;
+    private ColdStore coldStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("megabot-bloom");
+        coldStore = new ColdStore(directory);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static ArrayList<Task> createTasks(String... descriptions) {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (String description : descriptions) {
+            tasks.add(new ToDo(description));
+        }
+        return tasks;
+    }
+
+    @Test
+    void mightContain_partOfDescriptionInAnyCase_returnsTrue() {
+        BloomFilter filter = BloomFilter.build(List.of("Read Book", "water plants"));
+
+        assertTrue(filter.mightContain("book"));
+        assertTrue(filter.mightContain("D BO"));
+        assertTrue(filter.mightContain("ter pla"));
+        assertFalse(filter.mightContain("homework"));
+    }
+
+    @Test
+    void mightContain_keywordShorterThanTrigram_returnsTrue() {
+        BloomFilter filter = BloomFilter.build(List.of("read book"));
+
+        assertFalse(BloomFilter.isSelective("zq"));
+        assertTrue(filter.mightContain("zq"));
+    }
+
+    @Test
+    void search_keywordInOneSegment_skipsOthers() throws IOException {
+        coldStore.writeSegment(createTasks("read book", "return book"));
+        coldStore.writeSegment(createTasks("water plants"));
+        coldStore.writeSegment(createTasks("submit homework"));
+
+        ColdStore.Search search = coldStore.search("homework");
+
+        assertEquals(1, search.getTasks().size());
+        assertEquals(3, search.getSegmentCount());
+        assertEquals(1, search.getSearchedCount());
+        assertEquals(2, search.getSkippedCount());
+        assertEquals(0, search.getFalsePositiveCount());
+        assertEquals(0.0, search.getFalsePositiveRate());
+    }
+
+    @Test
+    void search_segmentWithoutFilter_searchesAndBuildsFilter() throws IOException {
+        Path segment = coldStore.writeSegment(createTasks("read book"));
+        Files.delete(BloomFilter.getFilterPath(segment));
+        assertNull(BloomFilter.read(segment));
+
+        assertEquals(1, coldStore.search("homework").getSearchedCount());
+
+        assertNotNull(BloomFilter.read(segment));
+        assertEquals(1, coldStore.search("homework").getSkippedCount());
+        assertEquals(1, coldStore.search("book").getTasks().size());
+    }
+}
@@ -0,0 +1,143 @@
+package megabot.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.task.Task;
+import megabot.task.TaskList;
+
+
+class TaskArchiveTest {
+    private static final String LINES = "T | 0 | read Book\n"
+            + "\n"
+            + "D | 1 | return book | 2030-12-02 1800\n"
+            + "E | 0 | BOOK club | 2030-03-10 2:00 PM to 2030-03-10 4:00 PM\n"
+            + "T | 0 | Straße bauen\n"
+            + "X | 0 | broken book line\n"
+            + "T | 1 | water plants\r\n"
+            + "   \n"
+            + "D | 0 | book without a date\n"
+            + "E | 0 | book fair | 2030-03-10 1400\n"
+            + "T | 0 | last line without a line break, book";
+
+    private Path archiveFile;
+    private Path indexFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        archiveFile = Files.createTempFile("megabot-archive", ".txt");
+        indexFile = Path.of(archiveFile + TaskArchive.INDEX_SUFFIX);
+        Files.writeString(archiveFile, LINES);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(archiveFile);
+        Files.deleteIfExists(indexFile);
+    }
+
+    private static List<String> toStrings(List<Task> tasks) {
+        List<String> result = new ArrayList<>();
+        for (Task task : tasks) {
+            result.add(task.toString());
+        }
+        return result;
+    }
+
+    @Test
+    void findTasks_sameKeywords_matchesLoadedTaskList() throws IOException, MegabotException {
+        TaskList loaded = new TaskList(new Storage(archiveFile.toString()).load());
+
+        try (TaskArchive archive = new TaskArchive(archiveFile)) {
+            for (String keyword : new String[] {"book", "BOOK", "STRASSE", "straße", "plants", "x", "|"}) {
+                assertEquals(toStrings(loaded.findTasks(keyword)), toStrings(archive.findTasks(keyword)), keyword);
+            }
+        }
+    }
+
+    @Test
+    void handleCommand_list_pagesOverNonBlankLines() throws IOException, MegabotException {
+        try (TaskArchive archive = new TaskArchive(archiveFile)) {
+            assertEquals(9, archive.size());
+
+            StringBuilder out = new StringBuilder();
+            archive.handleCommand("list 2 3", out);
+            String[] lines = out.toString().split("\n");
+            assertEquals("Here are the tasks in the archive:", lines[0]);
+            assertTrue(lines[1].startsWith("4.[T][ ] Straße bauen"));
+            assertTrue(lines[2].startsWith("5.(unreadable line: "));
+            assertEquals("6.[T][X] water plants", lines[3]);
+            assertTrue(lines[4].endsWith("Type 'list 3 3' for more."));
+        }
+    }
+
+    @Test
+    void handleCommand_linesWithoutDates_shownAsUnreadable() throws IOException, MegabotException {
+        try (TaskArchive archive = new TaskArchive(archiveFile)) {
+            StringBuilder out = new StringBuilder();
+            archive.handleCommand("list 3 3", out);
+            String[] lines = out.toString().split("\n");
+            assertTrue(lines[1].startsWith("7.(unreadable line: "));
+            assertTrue(lines[2].startsWith("8.(unreadable line: "));
+            assertEquals("9.[T][ ] last line without a line break, book", lines[3]);
+
+            out.setLength(0);
+            archive.handleCommand("find book", out);
+            assertFalse(out.toString().contains("null"));
+            assertFalse(out.toString().contains("book fair"));
+        }
+    }
+
+    @Test
+    void handleCommand_changingCommand_throwsException() throws IOException {
+        try (TaskArchive archive = new TaskArchive(archiveFile)) {
+            assertThrows(MegabotException.class, () -> archive.handleCommand("mark 1", new StringBuilder()));
+        }
+    }
+
+    @Test
+    void constructor_indexReusedUntilArchiveChanges() throws IOException, MegabotException {
+        try (TaskArchive archive = new TaskArchive(archiveFile)) {
+            assertTrue(archive.isIndexRebuilt());
+        }
+        try (TaskArchive archive = new TaskArchive(archiveFile)) {
+            assertFalse(archive.isIndexRebuilt());
+        }
+
+        Files.writeString(archiveFile, "T | 0 | new book\n" + LINES);
+        try (TaskArchive archive = new TaskArchive(archiveFile)) {
+            assertTrue(archive.isIndexRebuilt());
+            assertEquals(10, archive.size());
+            assertEquals("[T][ ] new book", archive.getTask(0).toString());
+        }
+    }
+
+    @Test
+    void findTasks_smallSegments_sameAsOneSegment() throws IOException, MegabotException {
+        List<String> expected;
+        try (TaskArchive archive = new TaskArchive(archiveFile)) {
+            expected = toStrings(archive.findTasks("book"));
+        }
+        Files.delete(indexFile);
+
+        // Every segment holds one or two lines, so lines are looked up across segments
+        try (TaskArchive archive = new TaskArchive(archiveFile, 80)) {
+            assertEquals(expected, toStrings(archive.findTasks("book")));
+            assertEquals("[T][X] water plants", archive.getTask(5).toString());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package megabot.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import megabot.MegaBot;
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.gui.Gui;
+import megabot.task.Deadline;
+import megabot.task.Event;
+import megabot.task.Task;
+import megabot.task.TaskClock;
+import megabot.task.TaskList;
+import megabot.task.ToDo;
+
+
+class TaskTieringTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 6, 1, 12, 0);
+
+    private final TaskClock originalClock = TaskClock.getCurrent();
+    private Path directory;
+    private String filePath;
+    private TaskTiering tiering;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        setNow(NOW);
+        directory = Files.createTempDirectory("megabot-tiering");
+        filePath = directory.resolve("megabot.txt").toString();
+        tiering = new TaskTiering(new ColdStore(TaskTiering.getColdDirectory(filePath)), Duration.ofDays(30));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        TaskClock.setCurrent(originalClock);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void setNow(LocalDateTime now) {
+        TaskClock.setCurrent(new TaskClock(Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC),
+                Duration.ofSeconds(1)));
+    }
+
+    private static <T extends Task> T done(T task) {
+        task.markAsDone();
+        return task;
+    }
+
+    @Test
+    void moveColdTasks_oldDoneTasks_movedToSegment() throws IOException, MegabotException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(done(new Deadline("submit old report", "2030-01-15 1800")));
+        tasks.add(new Deadline("overdue report", "2030-01-15 1800"));
+        tasks.add(done(new Deadline("submit recent report", "2030-05-20 1800")));
+        tasks.add(done(new Event("old conference", "2030-02-01 0900", "2030-02-03 1700")));
+
+        assertEquals(2, tiering.moveColdTasks(tasks));
+
+        assertEquals(2, tasks.size());
+        assertEquals("overdue report", tasks.get(0).getTask());
+        assertEquals("submit recent report", tasks.get(1).getTask());
+        ColdStore coldStore = new ColdStore(TaskTiering.getColdDirectory(filePath));
+        assertEquals(1, coldStore.getSegments().size());
+        assertEquals(1, coldStore.findTasks("conference").size());
+    }
+
+    @Test
+    void moveColdTasks_doneToDo_movedOnceOldEnough() throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(done(new ToDo("read book")));
+        tasks.add(new ToDo("water plants"));
+
+        // The first time the to-do is seen done is when its age starts
+        assertEquals(0, tiering.moveColdTasks(tasks));
+        setNow(NOW.plusDays(29));
+        assertEquals(0, tiering.moveColdTasks(tasks));
+        setNow(NOW.plusDays(31));
+        assertEquals(1, tiering.moveColdTasks(tasks));
+
+        assertEquals(1, tasks.size());
+        assertEquals("water plants", tasks.get(0).getTask());
+    }
+
+    @Test
+    void handleCommand_findAll_mergesHotAndCold() throws IOException, MegabotException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(done(new Deadline("submit old report", "2030-01-15 1800")));
+        tasks.add(new ToDo("write report"));
+        tiering.moveColdTasks(tasks);
+        Gui gui = new Gui(new TaskList(tasks), new Storage(filePath));
+
+        String hotOnly = gui.handleCommand("find report");
+        String all = gui.handleCommand("find --all report");
+
+        assertEquals(2, hotOnly.split("\n").length);
+        assertTrue(all.contains("1.[T][ ] write report"));
+        assertTrue(all.contains("2.[D][X] submit old report"));
+        assertTrue(all.contains("The last 1 are in cold storage and can no longer be changed."));
+        assertTrue(all.endsWith("Cold storage: searched 1 of 1 segments, skipped 0 by their filters, "
+                + "0 false positives (0.0% false positive rate)."));
+    }
+
+    @Test
+    void handleCommand_findAllKeywordInNoSegment_reportsSkippedSegments() throws IOException, MegabotException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(done(new Deadline("submit old report", "2030-01-15 1800")));
+        tiering.moveColdTasks(tasks);
+        tasks.add(done(new Event("old conference", "2030-02-01 0900", "2030-02-03 1700")));
+        tiering.moveColdTasks(tasks);
+        Gui gui = new Gui(new TaskList(tasks), new Storage(filePath));
+
+        ColdStore.Search search = new ColdStore(TaskTiering.getColdDirectory(filePath)).search("homework");
+        String reply = gui.handleCommand("find --all homework");
+
+        assertEquals(2, search.getSkippedCount());
+        assertEquals(0, search.getFalsePositiveCount());
+        assertEquals("No matching tasks found for keyword: homework\nCold storage: searched 0 of 2 segments, "
+                + "skipped 2 by their filters, 0 false positives (0.0% false positive rate).", reply);
+    }
+
+    @Test
+    void constructor_withoutBackgroundLoading_movesOldDoneTasks() throws IOException {
+        Files.write(Path.of(filePath), List.of(
+                "D | 1 | submit old report | 2030-01-15 1800",
+                "T | 0 | write report"));
+
+        MegaBot megaBot = new MegaBot(filePath);
+
+        assertEquals(1, megaBot.getTaskList().size());
+        assertEquals("write report", megaBot.getTaskList().getTasks().get(0).getTask());
+        assertEquals(1, Files.readAllLines(Path.of(filePath)).size());
+        assertEquals(1, new ColdStore(TaskTiering.getColdDirectory(filePath)).findTasks("old report").size());
+    }
+}
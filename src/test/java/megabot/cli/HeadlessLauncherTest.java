@@ -0,0 +1,78 @@
+package megabot.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+class HeadlessLauncherTest {
+    private final PrintStream originalOut = System.out;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private File dataFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFile = File.createTempFile("megabot-headless", ".txt");
+        dataFile.deleteOnExit();
+        Files.writeString(dataFile.toPath(), "T | 0 | read book\nT | 0 | water plants\n");
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    void parse_optionAfterCommandWord_keptInCommand() {
+        HeadlessLauncher.Arguments arguments = HeadlessLauncher.Arguments.parse(
+                new String[] {"--data", dataFile.getPath(), "find", "--all", "book"});
+
+        assertTrue(arguments.isValid());
+        assertFalse(arguments.isScript());
+        assertNull(arguments.getArchivePath());
+        assertEquals(dataFile.getPath(), arguments.getFilePath());
+        assertEquals("find --all book", arguments.getCommand());
+    }
+
+    @Test
+    void parse_descriptionWithDashes_keptUnchanged() {
+        HeadlessLauncher.Arguments arguments = HeadlessLauncher.Arguments.parse(
+                new String[] {"todo", "fix", "--fail-fast", "flag"});
+
+        assertFalse(arguments.isScript());
+        assertEquals("todo fix --fail-fast flag", arguments.getCommand());
+    }
+
+    @Test
+    void parse_scriptOptionBeforeCommand_runsScript() {
+        assertTrue(HeadlessLauncher.Arguments.parse(new String[] {"--data", "tasks.txt", "--fail-fast"}).isScript());
+        assertFalse(HeadlessLauncher.Arguments.parse(new String[] {"--verbose", "list"}).isValid());
+    }
+
+    @Test
+    void runOnce_findAll_printsMatches() {
+        HeadlessLauncher.Arguments arguments = HeadlessLauncher.Arguments.parse(
+                new String[] {"--data", dataFile.getPath(), "find", "--all", "book"});
+
+        int exitCode = HeadlessLauncher.runOnce(arguments.getFilePath(), arguments.getCommand());
+
+        String printed = output.toString(StandardCharsets.UTF_8);
+        assertEquals(0, exitCode);
+        assertTrue(printed.contains("including old ones in cold storage"));
+        assertTrue(printed.contains("1.[T][ ] read book"));
+        assertFalse(printed.contains("water plants"));
+    }
+}
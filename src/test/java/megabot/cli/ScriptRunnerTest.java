@@ -0,0 +1,72 @@
+package megabot.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import megabot.Storage;
+import megabot.exception.MegabotException;
+
+
+class ScriptRunnerTest {
+    private File dataFile;
+    private Storage storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFile = File.createTempFile("megabot-script", ".txt");
+        dataFile.deleteOnExit();
+        storage = new Storage(dataFile.getAbsolutePath());
+    }
+
+    @Test
+    void run_validScript_savesOnceAtEnd() throws IOException, MegabotException {
+        ScriptRunner runner = new ScriptRunner(storage, false, 0);
+        StringWriter output = new StringWriter();
+
+        ScriptRunner.Summary summary = runner.run(
+                new StringReader("todo read book\n\n# comment\ntodo write essay\nmark 1\nlist\n"), output);
+
+        assertEquals(4, summary.getCommandCount());
+        assertEquals(0, summary.getErrorCount());
+        assertFalse(summary.isAborted());
+        assertTrue(output.toString().contains("Now you have 2 tasks in the list"));
+        assertEquals(2, storage.load().size());
+        assertTrue(storage.load().get(0).getIsDone());
+    }
+
+    @Test
+    void run_failFast_stopsAtFirstError() throws IOException, MegabotException {
+        ScriptRunner runner = new ScriptRunner(storage, true, 0);
+
+        ScriptRunner.Summary summary = runner.run(
+                new StringReader("todo read book\nunknown command\ntodo write essay\n"), new StringWriter());
+
+        assertEquals(2, summary.getCommandCount());
+        assertEquals(1, summary.getErrorCount());
+        assertTrue(summary.isAborted());
+        assertEquals(1, storage.load().size());
+    }
+
+    @Test
+    void run_continueOnError_executesRemainingCommands() throws IOException, MegabotException {
+        ScriptRunner runner = new ScriptRunner(storage, false, 1);
+
+        ScriptRunner.Summary summary = runner.run(
+                new StringReader("todo read book\nunknown command\ntodo write essay\nbye\ntodo ignored\n"),
+                new StringWriter());
+
+        assertEquals(4, summary.getCommandCount());
+        assertEquals(1, summary.getErrorCount());
+        assertFalse(summary.isAborted());
+        assertEquals(2, storage.load().size());
+    }
+}
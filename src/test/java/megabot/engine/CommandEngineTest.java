@@ -0,0 +1,122 @@
+package megabot.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.task.TaskList;
+
+
+class CommandEngineTest {
+    private Storage storage;
+    private TaskList tasks;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        File dataFile = File.createTempFile("megabot-engine", ".txt");
+        dataFile.deleteOnExit();
+        storage = new Storage(dataFile.getAbsolutePath());
+        tasks = new TaskList();
+    }
+
+    @Test
+    void submit_beforeStart_runsInSubmissionOrderOnceStarted() {
+        CommandEngine engine = new CommandEngine(tasks, storage, 16);
+        CompletableFuture<String> first = engine.submit("todo read book");
+        CompletableFuture<String> second = engine.submit("list");
+
+        engine.start();
+
+        assertTrue(first.join().contains("Now you have 1 tasks"));
+        assertEquals("Here are the tasks in your list:\n1.[T][ ] read book", second.join());
+        engine.close();
+    }
+
+    @Test
+    void submit_completedChange_isSaved() throws MegabotException {
+        CommandEngine engine = new CommandEngine(tasks, storage, 16);
+        engine.start();
+
+        engine.submit("todo read book").join();
+
+        assertEquals(1, storage.load().size());
+        engine.close();
+    }
+
+    @Test
+    void submit_concurrentProducers_appliesEveryCommand() throws InterruptedException, MegabotException {
+        CommandEngine engine = new CommandEngine(tasks, storage, 8);
+        engine.start();
+        ArrayList<Thread> producers = new ArrayList<>();
+
+        for (int p = 0; p < 4; p++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    engine.submit("todo task " + i);
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        engine.close();
+
+        assertEquals(200, tasks.size());
+        assertEquals(200, storage.load().size());
+    }
+
+    @Test
+    void submit_saveFails_futureFailsWithSaveError() throws IOException {
+        // A directory cannot be written as a file
+        File directory = Files.createTempDirectory("megabot-engine").toFile();
+        directory.deleteOnExit();
+        CommandEngine engine = new CommandEngine(tasks, new Storage(directory.getAbsolutePath()), 16);
+        engine.start();
+
+        CompletableFuture<String> change = engine.submit("todo read book");
+
+        ExecutionException e = assertThrows(ExecutionException.class, change::get);
+        assertTrue(e.getCause() instanceof IOException);
+        engine.close();
+    }
+
+    @Test
+    void submit_saveListenerThrows_writerKeepsRunning() {
+        CommandEngine engine = new CommandEngine(tasks, storage, 16);
+        engine.addSaveListener(() -> {
+            throw new IllegalStateException("listener failed");
+        });
+        engine.start();
+
+        engine.submit("todo read book").join();
+
+        assertTrue(engine.submit("todo return book").join().contains("Now you have 2 tasks"));
+        engine.close();
+    }
+
+    @Test
+    void close_neverStarted_failsQueuedOperations() {
+        CommandEngine engine = new CommandEngine(tasks, storage, 16);
+        CompletableFuture<String> queued = engine.submit("todo read book");
+
+        engine.close();
+
+        ExecutionException e = assertThrows(ExecutionException.class, queued::get);
+        assertTrue(e.getCause() instanceof MegabotException);
+        assertEquals(0, tasks.size());
+    }
+}
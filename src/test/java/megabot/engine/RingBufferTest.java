@@ -0,0 +1,70 @@
+package megabot.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+
+class RingBufferTest {
+
+    @Test
+    void offer_full_returnsFalse() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(2);
+
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.offer(2));
+        assertFalse(buffer.offer(3));
+    }
+
+    @Test
+    void poll_afterWrapAround_returnsElementsInOrder() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(buffer.offer(i));
+            assertEquals(Integer.valueOf(i), buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void offer_concurrentProducers_deliversEveryElementOnce() throws InterruptedException {
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        int producerCount = 4;
+        int perProducer = 10_000;
+        ArrayList<Thread> producers = new ArrayList<>();
+
+        for (int p = 0; p < producerCount; p++) {
+            int base = p * perProducer;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+
+        Set<Integer> received = new HashSet<>();
+        while (received.size() < producerCount * perProducer) {
+            Integer element = buffer.poll();
+            if (element != null) {
+                assertTrue(received.add(element));
+            }
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertNull(buffer.poll());
+    }
+}
@@ -0,0 +1,149 @@
+package megabot.gui;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.task.Deadline;
+import megabot.task.Event;
+import megabot.task.Task;
+import megabot.task.TaskList;
+import megabot.task.ToDo;
+
+/**
+ * Fails when a common command allocates more than its budget on a 100k-task list.
+ * Every byte a command allocates on the GUI thread brings the next collection pause closer,
+ * so a change such as building a DateTimeFormatter on every call should show up here.
+ *
+ * <p>Budgets are in bytes per command, measured on the calling thread as the median of many runs
+ * after warming up. They sit only about 5% above what each command allocated on one machine, since one
+ * extra formatter is worth just a few hundred bytes. What a command allocates also depends on the JDK,
+ * the GC and TLAB settings, and on what the JIT has compiled so far; escape analysis removes allocations
+ * and deoptimisation brings them back. So these tests are tagged {@value #TAG} and left out of
+ * {@code ./gradlew test}; run them on a known machine with {@code ./gradlew allocationTest}.
+ */
+@Tag(AllocationBudgetTest.TAG)
+class AllocationBudgetTest {
+    static final String TAG = "allocation";
+
+    private static final int TASK_COUNT = 100_000;
+    private static final int WARMUP_RUNS = 200;
+    private static final int MEASURED_RUNS = 101;
+
+    private static final long MARK_BUDGET = 720;
+    private static final long FIND_BUDGET = 4_400;
+    private static final long TODO_BUDGET = 464;
+    private static final long DEADLINE_BUDGET = 13_600;
+    private static final long LIST_BUDGET = 42_600;
+
+    /** Removes the task just added, so that every run sees a list of the same size. */
+    private static final String DELETE_ADDED = "delete " + (TASK_COUNT + 1);
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static Gui gui;
+
+    @BeforeAll
+    static void setUp() throws IOException, MegabotException {
+        File dataFile = File.createTempFile("megabot-allocation", ".txt");
+        dataFile.deleteOnExit();
+
+        ArrayList<Task> taskList = new ArrayList<>(TASK_COUNT);
+        for (int i = 1; i <= TASK_COUNT; i++) {
+            String day = String.valueOf(13 + i % 15);
+            switch (i % 3) {
+            case 0:
+                taskList.add(new ToDo("read book " + i));
+                break;
+            case 1:
+                taskList.add(new Deadline("submit report " + i, "2030-03-" + day + " 1800"));
+                break;
+            default:
+                taskList.add(new Event("project meeting " + i, "2030-03-" + day + " 1400",
+                        "2030-03-" + day + " 1600"));
+                break;
+            }
+        }
+        gui = new Gui(new TaskList(taskList), new Storage(dataFile.getAbsolutePath()));
+    }
+
+    /**
+     * Returns the median number of bytes the command allocates.
+     *
+     * @param command the command to measure
+     * @param undoCommand a command that undoes it, run outside the measurement, or null if none is needed
+     * @return the bytes allocated by one run of the command
+     * @throws MegabotException if either command fails
+     */
+    private static long measure(String command, String undoCommand) throws MegabotException {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled(),
+                "Allocated memory measurement is not supported by this JVM");
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(command, undoCommand);
+        }
+
+        long[] samples = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            gui.handleCommand(command);
+            samples[i] = THREADS.getCurrentThreadAllocatedBytes() - before;
+            if (undoCommand != null) {
+                gui.handleCommand(undoCommand);
+            }
+        }
+        // The median ignores one-off costs such as growing the task list's backing array
+        Arrays.sort(samples);
+        return samples[MEASURED_RUNS / 2];
+    }
+
+    private static void run(String command, String undoCommand) throws MegabotException {
+        gui.handleCommand(command);
+        if (undoCommand != null) {
+            gui.handleCommand(undoCommand);
+        }
+    }
+
+    private static void assertWithinBudget(String command, long allocated, long budget) {
+        assertTrue(allocated <= budget, "'" + command + "' allocated " + allocated + " bytes, over its budget of "
+                + budget + " bytes");
+    }
+
+    @Test
+    void handleCommand_mark_withinBudget() throws MegabotException {
+        assertWithinBudget("mark", measure("mark 50001", "unmark 50001"), MARK_BUDGET);
+    }
+
+    @Test
+    void handleCommand_find_withinBudget() throws MegabotException {
+        assertWithinBudget("find", measure("find report 4242", null), FIND_BUDGET);
+    }
+
+    @Test
+    void handleCommand_todo_withinBudget() throws MegabotException {
+        assertWithinBudget("todo", measure("todo water plants", DELETE_ADDED), TODO_BUDGET);
+    }
+
+    @Test
+    void handleCommand_deadline_withinBudget() throws MegabotException {
+        assertWithinBudget("deadline", measure("deadline return book /by 02 Dec 2030 18:00",
+                DELETE_ADDED), DEADLINE_BUDGET);
+    }
+
+    @Test
+    void handleCommand_list_withinBudget() throws MegabotException {
+        assertWithinBudget("list", measure("list 1000", null), LIST_BUDGET);
+    }
+}
@@ -0,0 +1,101 @@
+package megabot.gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.task.TaskList;
+import megabot.task.ToDo;
+
+
+class GuiTest {
+    private TaskList tasks;
+    private Gui gui;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        File dataFile = File.createTempFile("megabot-gui", ".txt");
+        dataFile.deleteOnExit();
+        tasks = new TaskList(new ArrayList<>());
+        gui = new Gui(tasks, new Storage(dataFile.getAbsolutePath()));
+    }
+
+    private void addTasks(int count) {
+        for (int i = 1; i <= count; i++) {
+            tasks.addTask(new ToDo("task " + i));
+        }
+    }
+
+    @Test
+    void handleCommand_listFitsOnOnePage_noFooter() throws MegabotException {
+        addTasks(2);
+
+        String response = gui.handleCommand("list");
+
+        assertEquals("Here are the tasks in your list:\n1.[T][ ] task 1\n2.[T][ ] task 2", response);
+        assertNull(Gui.getNextPageCommand(response));
+    }
+
+    @Test
+    void handleCommand_listSecondPage_showsPageAndFooter() throws MegabotException {
+        addTasks(120);
+
+        String response = gui.handleCommand("list 2");
+
+        assertTrue(response.startsWith("Here are the tasks in your list:\n51.[T][ ] task 51\n"));
+        assertTrue(response.contains("\n100.[T][ ] task 100\n"));
+        assertTrue(response.endsWith("Showing tasks 51-100 of 120 (page 2 of 3). Type 'list 3' for more."));
+        assertEquals("list 3", Gui.getNextPageCommand(response));
+    }
+
+    @Test
+    void handleCommand_listLastPageWithPageSize_noNextPage() throws MegabotException {
+        addTasks(25);
+
+        String first = gui.handleCommand("list 1 10");
+        String last = gui.handleCommand("list 3 10");
+
+        assertEquals("list 2 10", Gui.getNextPageCommand(first));
+        assertTrue(last.endsWith("Showing tasks 21-25 of 25 (page 3 of 3)."));
+        assertNull(Gui.getNextPageCommand(last));
+    }
+
+    @Test
+    void handleCommand_listPageOutOfRange_throwsException() {
+        addTasks(3);
+
+        assertThrows(MegabotException.class, () -> gui.handleCommand("list 2"));
+    }
+
+    @Test
+    void handleCommand_listToAppendable_matchesStringResponse() throws MegabotException, IOException {
+        addTasks(60);
+        StringBuilder out = new StringBuilder();
+
+        gui.handleCommand("list", out);
+
+        assertEquals(gui.handleCommand("list"), out.toString());
+    }
+
+    @Test
+    void handleCommand_stats_reportsCommandsRun() throws MegabotException {
+        gui.handleCommand("todo read book");
+        assertThrows(MegabotException.class, () -> gui.handleCommand("deadline read book"));
+
+        String response = gui.handleCommand("stats");
+
+        assertTrue(response.startsWith("Here are my statistics so far:"));
+        assertTrue(response.contains("\ntodo "));
+        assertTrue(response.contains("\ndeadline "));
+    }
+}
@@ -0,0 +1,167 @@
+package megabot.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+class LogTest {
+    private final Log log = Log.get(LogTest.class);
+    private final Logger logger = Logger.getLogger(LogTest.class.getName());
+    private final RecordingHandler recorded = new RecordingHandler();
+
+    @BeforeEach
+    void setUp() {
+        logger.setUseParentHandlers(false);
+        logger.addHandler(recorded);
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.removeHandler(recorded);
+        logger.setUseParentHandlers(true);
+        logger.setLevel(null);
+    }
+
+    @Test
+    void log_fields_writtenAsKeyValuePairs() {
+        log.atInfo().with("tasks", 3).with("path", "data/megabot.txt").with("reason", "no \"file\" here")
+                .log("storage_loaded", () -> "done");
+
+        assertEquals(1, recorded.records.size());
+        LogRecord record = recorded.records.get(0);
+        assertEquals(Level.INFO, record.getLevel());
+        assertEquals("storage_loaded tasks=3 path=data/megabot.txt reason=\"no \\\"file\\\" here\": done",
+                record.getMessage());
+        assertEquals("storage_loaded", record.getSourceMethodName());
+    }
+
+    @Test
+    void at_disabledLevel_nothingBuilt() {
+        int[] supplierCalls = new int[1];
+
+        LogEvent event = log.atFine();
+        event.with("expensive", () -> supplierCalls[0]++).log("skipped", () -> "message " + supplierCalls[0]++);
+
+        assertTrue(event == LogEvent.NO_OP);
+        assertEquals(0, supplierCalls[0]);
+        assertTrue(recorded.records.isEmpty());
+    }
+
+    @Test
+    void at_everyThirdSampler_logsFirstOfEachThreeWithSkippedCount() {
+        LogSampler sampler = LogSampler.every(3);
+
+        for (int i = 1; i <= 7; i++) {
+            log.at(Level.INFO, sampler).with("line", i).log("line_loaded");
+        }
+
+        assertEquals(3, recorded.records.size());
+        assertEquals("line_loaded line=1", recorded.records.get(0).getMessage());
+        assertEquals("line_loaded skipped=2 line=4", recorded.records.get(1).getMessage());
+        assertEquals("line_loaded skipped=2 line=7", recorded.records.get(2).getMessage());
+    }
+
+    @Test
+    void at_intervalSampler_logsOncePerInterval() {
+        LogSampler sampler = LogSampler.atMostEvery(Duration.ofHours(1));
+
+        for (int i = 0; i < 5; i++) {
+            log.at(Level.INFO, sampler).log("connection_closed");
+        }
+
+        assertEquals(1, recorded.records.size());
+    }
+
+    @Test
+    void publish_asyncHandler_recordsWrittenOnWriterThread() {
+        AsyncHandler asyncHandler = new AsyncHandler(recorded, 16);
+        logger.removeHandler(recorded);
+        logger.addHandler(asyncHandler);
+
+        for (int i = 0; i < 10; i++) {
+            log.atInfo().with("index", i).log("queued");
+        }
+        asyncHandler.flush();
+
+        assertEquals(10, recorded.records.size());
+        assertEquals("queued index=9", recorded.records.get(9).getMessage());
+        assertTrue(recorded.threadNames.stream().allMatch("megabot-log"::equals));
+        logger.removeHandler(asyncHandler);
+        asyncHandler.close();
+    }
+
+    @Test
+    void publish_asyncHandlerFull_dropsAndReports() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingHandler blocked = new BlockingHandler(release);
+        AsyncHandler asyncHandler = new AsyncHandler(blocked, 2);
+
+        // The first record holds the writer, the next two fill the queue and the rest are dropped
+        for (int i = 0; i < 6; i++) {
+            asyncHandler.publish(new LogRecord(Level.INFO, "record " + i));
+            blocked.started.await(1, TimeUnit.SECONDS);
+        }
+        long droppedCount = asyncHandler.getDroppedCount();
+        release.countDown();
+        asyncHandler.close();
+
+        assertEquals(3, droppedCount);
+        assertEquals(4, blocked.records.size());
+        assertEquals("log_records_dropped count=3", blocked.records.get(3).getMessage());
+    }
+
+    private static class RecordingHandler extends Handler {
+        final List<LogRecord> records = new ArrayList<>();
+        final List<String> threadNames = new ArrayList<>();
+
+        @Override
+        public synchronized void publish(LogRecord record) {
+            records.add(record);
+            threadNames.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class BlockingHandler extends RecordingHandler {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        BlockingHandler(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                // close() interrupts the writer, keep writing the remaining records
+                Thread.currentThread().interrupt();
+            }
+            super.publish(record);
+        }
+    }
+}
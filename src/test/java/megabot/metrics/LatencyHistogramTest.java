@@ -0,0 +1,67 @@
+package megabot.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import megabot.task.Command;
+
+
+class LatencyHistogramTest {
+
+    @Test
+    void getPercentileNanos_emptyHistogram_returnsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(50));
+    }
+
+    @Test
+    void getPercentileNanos_uniformValues_withinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMaxNanos());
+        assertWithin(5_000_000, histogram.getPercentileNanos(50));
+        assertWithin(9_900_000, histogram.getPercentileNanos(99));
+        assertEquals(10_000_000, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    void record_smallAndHugeValues_keptInRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(7);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.getPercentileNanos(1));
+        assertEquals(7, histogram.getPercentileNanos(50));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, histogram.getMaxNanos());
+    }
+
+    @Test
+    void report_recordedCommands_listsOnlyCommandsThatRan() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.recordCommand(Command.TODO, 2_500, true);
+        registry.recordCommand(Command.TODO, 3_000, false);
+        registry.recordSave(1_500_000, 2048);
+
+        String report = registry.report();
+
+        assertTrue(report.contains("todo"));
+        assertTrue(report.contains("2.0 KiB written"));
+        assertFalse(report.contains("deadline"));
+        assertEquals(Long.valueOf(1), registry.getCommandErrorCounts().get("TODO"));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        // Buckets are 1/16 of a power of two wide
+        assertTrue(Math.abs(actual - expected) <= expected / 16, "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,83 @@
+package megabot.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import megabot.MegaBot;
+import megabot.Storage;
+
+
+class TaskServerTest {
+    private TaskServer server;
+    private MegaBot megabot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        File dataFile = File.createTempFile("megabot-server", ".txt");
+        dataFile.deleteOnExit();
+        new File(dataFile.getAbsolutePath() + Storage.IMAGE_SUFFIX).deleteOnExit();
+        megabot = new MegaBot(dataFile.getAbsolutePath());
+        server = new TaskServer(megabot);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void execute_writeThenRead_readSeesWrite() {
+        server.execute("todo read book");
+
+        assertEquals(1, megabot.getTaskList().size());
+        assertTrue(server.execute("find book").contains("read book"));
+    }
+
+    @Test
+    void execute_liveTaskChangedAfterSnapshot_readSeesSnapshot() {
+        server.execute("todo read book");
+
+        // Changed without going through the writer, so no new snapshot is published
+        megabot.getTaskList().getTask(0).markAsDone();
+
+        assertTrue(server.execute("list").contains("[T][ ] read book"));
+    }
+
+    @Test
+    void connection_multiLineResponse_endsWithTerminator() throws IOException {
+        int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+
+            out.write("todo read book\nlist\n");
+            out.flush();
+
+            assertEquals("Alright... One more task for you in your horrible backlog.", in.readLine());
+            assertEquals("I've added this task: [T][ ] read book", in.readLine());
+            assertEquals("Now you have 1 tasks in the list", in.readLine());
+            assertEquals(TaskServer.END_OF_RESPONSE, in.readLine());
+            assertEquals("Here are the tasks in your list:", in.readLine());
+            assertEquals("1.[T][ ] read book", in.readLine());
+            assertEquals(TaskServer.END_OF_RESPONSE, in.readLine());
+        }
+    }
+}
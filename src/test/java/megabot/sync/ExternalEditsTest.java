@@ -0,0 +1,235 @@
+package megabot.sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import megabot.MegaBot;
+import megabot.Storage;
+import megabot.exception.ExternalChangeException;
+import megabot.exception.MegabotException;
+import megabot.task.Task;
+import megabot.task.TaskList;
+import megabot.task.ToDo;
+
+
+class ExternalEditsTest {
+    private Path dataFile;
+    private Path conflictFile;
+    private Storage storage;
+    private TaskList tasks;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFile = Files.createTempFile("megabot-external", ".txt");
+        conflictFile = Path.of(dataFile + ExternalEdits.CONFLICT_SUFFIX);
+        storage = new Storage(dataFile.toString());
+        ArrayList<Task> saved = new ArrayList<>();
+        saved.add(new ToDo("read book"));
+        saved.add(new ToDo("water plants"));
+        saved.add(new ToDo("call mum"));
+        storage.save(saved);
+        tasks = new TaskList(saved);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(dataFile);
+        Files.deleteIfExists(conflictFile);
+        Files.deleteIfExists(Path.of(dataFile + Storage.IMAGE_SUFFIX));
+    }
+
+    /**
+     * Replaces the data file like an editor would, moving its last modified time on so the change is seen
+     * even within the resolution of the file system clock.
+     */
+    private void editFile(String content) throws IOException {
+        FileTime before = Files.getLastModifiedTime(dataFile);
+        Files.writeString(dataFile, content);
+        Files.setLastModifiedTime(dataFile, FileTime.fromMillis(before.toMillis() + 2000));
+    }
+
+    @Test
+    void save_fileChangedOutside_refusesToOverwrite() throws IOException {
+        editFile("T | 1 | read book\nT | 0 | water plants\nT | 0 | call mum\n");
+
+        assertThrows(ExternalChangeException.class, () -> storage.save(tasks.getTasks()));
+        assertTrue(Files.readString(dataFile).startsWith("T | 1 | read book"));
+    }
+
+    @Test
+    void save_sameSizeEditWithinTimeResolution_refusesToOverwrite() throws IOException, MegabotException {
+        // A time that is still ahead when checked stands for a write within the resolution of the clock
+        FileTime stampedTime = FileTime.fromMillis(System.currentTimeMillis() + 60_000);
+        Files.setLastModifiedTime(dataFile, stampedTime);
+        storage = new Storage(dataFile.toString());
+        tasks = new TaskList(storage.load());
+        assertFalse(storage.isChangedOnDisk());
+        Files.writeString(dataFile, "T | 1 | read book\nT | 0 | water plants\nT | 0 | call mum\n");
+        Files.setLastModifiedTime(dataFile, stampedTime);
+
+        assertThrows(ExternalChangeException.class, () -> storage.save(tasks.getTasks()));
+        ExternalEdits.Result result = ExternalEdits.merge(tasks, storage);
+
+        assertEquals(1, result.getChangedCount());
+        assertTrue(tasks.getTask(0).getIsDone());
+        assertFalse(storage.isChangedOnDisk());
+    }
+
+    @Test
+    void isChangedOnDisk_afterOwnSave_unchanged() throws IOException {
+        tasks.markTask(2);
+        storage.save(tasks.getTasks());
+
+        assertFalse(storage.hasStampChanged());
+        assertFalse(storage.isChangedOnDisk());
+    }
+
+    @Test
+    void merge_taskMarkedOutside_replacesOnlyThatTask() throws IOException {
+        Task first = tasks.getTask(0);
+        Task last = tasks.getTask(2);
+        editFile("T | 0 | read book\nT | 1 | water plants\nT | 0 | call mum\nT | 0 | buy milk\n");
+
+        ExternalEdits.Result result = ExternalEdits.merge(tasks, storage);
+
+        assertEquals(1, result.getChangedCount());
+        assertEquals(1, result.getAddedCount());
+        assertEquals(0, result.getConflictCount());
+        assertTrue(tasks.getTask(1).getIsDone());
+        assertEquals("buy milk", tasks.getTask(3).getTask());
+        assertSame(first, tasks.getTask(0));
+        assertSame(last, tasks.getTask(2));
+        assertFalse(storage.isChangedOnDisk());
+    }
+
+    @Test
+    void merge_differentTasksChangedOnBothSides_keepsBoth() throws IOException {
+        tasks.markTask(0);
+        editFile("T | 0 | read book\nT | 0 | water plants\n");
+
+        ExternalEdits.Result result = ExternalEdits.merge(tasks, storage);
+        storage.save(tasks.getTasks());
+
+        assertEquals(1, result.getRemovedCount());
+        assertEquals(0, result.getConflictCount());
+        assertEquals("T | 1 | read book\nT | 0 | water plants\n", Files.readString(dataFile));
+    }
+
+    @Test
+    void merge_tasksAddedAtEndOnBothSides_keepsAll() throws IOException {
+        tasks.addTask(new ToDo("buy milk"));
+        editFile("T | 0 | read book\nT | 0 | water plants\nT | 0 | call mum\nT | 0 | pay rent\n");
+
+        ExternalEdits.Result result = ExternalEdits.merge(tasks, storage);
+
+        assertEquals(0, result.getConflictCount());
+        assertEquals(5, tasks.size());
+        assertEquals("pay rent", tasks.getTask(3).getTask());
+        assertEquals("buy milk", tasks.getTask(4).getTask());
+    }
+
+    @Test
+    void merge_sameTaskChangedOnBothSides_keepsFileAndRecordsConflict() throws IOException {
+        tasks.markTask(1);
+        editFile("T | 0 | read book\nT | 0 | water the plants\nT | 0 | call mum\n");
+
+        ExternalEdits.Result result = ExternalEdits.merge(tasks, storage);
+
+        assertEquals(1, result.getConflictCount());
+        assertEquals("water the plants", tasks.getTask(1).getTask());
+        assertFalse(tasks.getTask(1).getIsDone());
+        assertTrue(Files.readString(conflictFile).contains("T | 1 | water plants"));
+    }
+
+    @Test
+    void merge_invalidLineUnchanged_notReportedAgain() throws IOException, MegabotException {
+        editFile("T | 0 | read book\nnot a task\nT | 0 | water plants\n");
+        storage = new Storage(dataFile.toString());
+        tasks = new TaskList(storage.load());
+        tasks.markTask(0);
+        editFile("T | 0 | read book\nnot a task\nT | 0 | water plants\nT | 0 | buy milk\n");
+
+        ExternalEdits.Result result = ExternalEdits.merge(tasks, storage);
+
+        assertEquals(1, result.getAddedCount());
+        assertEquals(0, result.getInvalidCount());
+        assertEquals(0, result.getConflictCount());
+        assertEquals(3, tasks.size());
+        assertTrue(tasks.getTask(0).getIsDone());
+        assertEquals("buy milk", tasks.getTask(2).getTask());
+    }
+
+    @Test
+    void merge_invalidLineFixedOutside_addsTaskInItsPlace() throws IOException, MegabotException {
+        editFile("T | 0 | read book\nnot a task\nT | 0 | water plants\n");
+        storage = new Storage(dataFile.toString());
+        tasks = new TaskList(storage.load());
+        editFile("T | 0 | read book\nT | 0 | pay rent\nT | 0 | water plants\n");
+
+        ExternalEdits.Result result = ExternalEdits.merge(tasks, storage);
+        editFile("T | 0 | read book\nT | 0 | pay rent\nT | 1 | water plants\n");
+        ExternalEdits.Result second = ExternalEdits.merge(tasks, storage);
+
+        assertEquals(1, result.getAddedCount());
+        assertEquals(0, result.getInvalidCount());
+        assertEquals("pay rent", tasks.getTask(1).getTask());
+        assertEquals(1, second.getChangedCount());
+        assertEquals(3, tasks.size());
+        assertTrue(tasks.getTask(2).getIsDone());
+    }
+
+    @Test
+    void getResponse_fileChangedOutside_mergesBeforeCommand() throws IOException {
+        editFile("T | 0 | read book\nT | 0 | water plants\nT | 0 | call mum\nT | 0 | buy milk\n");
+        MegaBot megabot = new MegaBot(dataFile.toString());
+        editFile("T | 0 | read book\nT | 0 | call mum\nT | 0 | buy milk\n");
+
+        String response = megabot.getResponse("mark 3");
+
+        assertTrue(response.startsWith("I picked up changes made to " + dataFile + " outside MegaBot: "
+                + "0 changed, 0 added, 1 removed."));
+        assertEquals("T | 0 | read book\nT | 0 | call mum\nT | 1 | buy milk\n", Files.readString(dataFile));
+    }
+
+    @Test
+    void shutdown_fileChangedOutside_restartKeepsChanges() throws IOException {
+        MegaBot megabot = new MegaBot(dataFile.toString());
+        editFile("T | 0 | read book\nT | 0 | water plants\nT | 0 | call mum\nT | 0 | buy milk\n");
+
+        megabot.shutdown();
+        MegaBot restarted = new MegaBot(dataFile.toString());
+
+        assertFalse(Files.exists(Path.of(dataFile + Storage.IMAGE_SUFFIX)));
+        assertEquals(4, restarted.getTaskList().size());
+        assertEquals("buy milk", restarted.getTaskList().getTask(3).getTask());
+        assertTrue(Files.readString(dataFile).endsWith("T | 0 | buy milk\n"));
+    }
+
+    @Test
+    void watchDataFile_fileChangedOutside_mergesOnWriterThread() throws Exception {
+        MegaBot megabot = new MegaBot(dataFile.toString());
+        CompletableFuture<String> notice = new CompletableFuture<>();
+        megabot.watchDataFile(notice::complete);
+
+        editFile("T | 0 | read book\nT | 0 | water plants\nT | 0 | call mum\nT | 0 | buy milk\n");
+
+        assertTrue(notice.get(10, TimeUnit.SECONDS).endsWith("0 changed, 1 added, 0 removed."));
+        assertTrue(megabot.submit("list").join().endsWith("4.[T][ ] buy milk"));
+        megabot.shutdown();
+    }
+}
@@ -0,0 +1,98 @@
+package megabot.sync;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+class LineDiffTest {
+    private static long[] sequence(int length) {
+        long[] values = new long[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    /**
+     * Applies the changes to the base, taking the new lines from the other version.
+     */
+    private static long[] apply(long[] base, long[] other, List<LineDiff.Change> changes) {
+        List<Long> result = new ArrayList<>();
+        int position = 0;
+        for (LineDiff.Change change : changes) {
+            assertTrue(change.getBaseStart() >= position, "Changes overlap or are out of order");
+            for (int i = position; i < change.getBaseStart(); i++) {
+                result.add(base[i]);
+            }
+            for (int i = change.getOtherStart(); i < change.getOtherEnd(); i++) {
+                result.add(other[i]);
+            }
+            position = change.getBaseEnd();
+        }
+        for (int i = position; i < base.length; i++) {
+            result.add(base[i]);
+        }
+        return result.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Test
+    void diff_sameLines_noChanges() {
+        assertTrue(LineDiff.diff(sequence(100), sequence(100)).isEmpty());
+    }
+
+    @Test
+    void diff_scatteredEdits_oneChangePerEdit() {
+        long[] base = sequence(10);
+        long[] other = {0, 1, 2, 30, 4, 5, 6, 60, 7, 8};
+
+        List<LineDiff.Change> changes = LineDiff.diff(base, other);
+
+        assertEquals("[[3, 4) -> [3, 4), [7, 7) -> [7, 8), [9, 10) -> [10, 10)]", changes.toString());
+    }
+
+    @Test
+    void diff_tooManyEdits_oneChangeForTheMiddle() {
+        long[] base = sequence(5000);
+        long[] other = base.clone();
+        for (int i = 1; i < 4000; i += 2) {
+            other[i] = -i;
+        }
+
+        List<LineDiff.Change> changes = LineDiff.diff(base, other);
+
+        assertEquals("[[1, 4000) -> [1, 4000)]", changes.toString());
+        assertArrayEquals(other, apply(base, other, changes));
+    }
+
+    @Test
+    void diff_randomEdits_turnsBaseIntoOther() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            long[] base = new long[random.nextInt(50)];
+            for (int i = 0; i < base.length; i++) {
+                base[i] = random.nextInt(8);
+            }
+            List<Long> edited = new ArrayList<>();
+            for (long value : base) {
+                int edit = random.nextInt(6);
+                if (edit == 0) {
+                    continue;
+                }
+                edited.add(edit == 1 ? random.nextInt(8) : value);
+                if (edit == 2) {
+                    edited.add((long) random.nextInt(8));
+                }
+            }
+            long[] other = edited.stream().mapToLong(Long::longValue).toArray();
+
+            assertArrayEquals(other, apply(base, other, LineDiff.diff(base, other)));
+        }
+    }
+}
@@ -111,6 +111,17 @@ class DeadlineTest {
         assertEquals(flexibleFormat, deadline2.getStringDeadline());
     }
 
+    @Test
+    void getStringDeadline_inputNotRebuiltByFormat_returnsOriginalInput() throws MegabotException {
+        // Both parse as "yyyy-MM-dd HHmm", but formatting gives back neither of them
+        Deadline withSeparator = new Deadline("task1", "2023-12-01T1400");
+        Deadline withSpaces = new Deadline("task2", "  2023-12-01 1400 ");
+
+        assertEquals("2023-12-01T1400", withSeparator.getStringDeadline());
+        assertEquals("2023-12-01 1400", withSpaces.getStringDeadline());
+        assertEquals(LocalDateTime.of(2023, 12, 1, 14, 0), withSeparator.getDeadline());
+    }
+
     @Test
     void isOverdue_pastDeadline_returnsTrue() throws MegabotException {
         // Create a deadline in the past
@@ -1,5 +1,6 @@
 package megabot.task;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -134,4 +135,18 @@ class ParserTest {
         assertThrows(MegabotException.class, () -> Parser.parseEvent("project meeting /from /to Tue"));
         assertThrows(MegabotException.class, () -> Parser.parseEvent(""));
     }
+
+    @Test
+    void parseListPage_validInput_returnsPageAndPageSize() throws MegabotException {
+        assertArrayEquals(new int[] {1, Parser.DEFAULT_LIST_PAGE_SIZE}, Parser.parseListPage("list"));
+        assertArrayEquals(new int[] {3, Parser.DEFAULT_LIST_PAGE_SIZE}, Parser.parseListPage("list 3"));
+        assertArrayEquals(new int[] {2, 20}, Parser.parseListPage("LIST  2 20"));
+    }
+
+    @Test
+    void parseListPage_invalidInput_throwsException() {
+        assertThrows(MegabotException.class, () -> Parser.parseListPage("list 0"));
+        assertThrows(MegabotException.class, () -> Parser.parseListPage("list 1 0"));
+        assertThrows(MegabotException.class, () -> Parser.parseListPage("list 99999999999"));
+    }
 }
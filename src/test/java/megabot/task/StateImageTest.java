@@ -0,0 +1,149 @@
+package megabot.task;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import megabot.Storage;
+import megabot.exception.MegabotException;
+
+
+class StateImageTest {
+    private Path dataFile;
+    private Path imageFile;
+    private Storage storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFile = Files.createTempFile("megabot-image", ".txt");
+        imageFile = Path.of(dataFile + Storage.IMAGE_SUFFIX);
+        storage = new Storage(dataFile.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(dataFile);
+        Files.deleteIfExists(imageFile);
+    }
+
+    private ArrayList<Task> createTasks() throws MegabotException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        ToDo todo = new ToDo("read book ✓");
+        todo.markAsDone();
+        tasks.add(todo);
+        tasks.add(new Deadline("return book", "2030-12-02 1800"));
+        // Formatting this deadline does not give the user's text back, so the text is kept
+        tasks.add(new Deadline("submit report", "2030-12-02 06:00 PM"));
+        tasks.add(new Event("project meeting", "2030-03-10 1400", "2030-03-10 1600"));
+        return tasks;
+    }
+
+    private static List<String> formatAll(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task task : tasks) {
+            lines.add(task.formatData() + " / " + task);
+        }
+        return lines;
+    }
+
+    @Test
+    void read_afterWrite_restoresEveryTask() throws IOException, MegabotException {
+        ArrayList<Task> tasks = createTasks();
+        storage.save(tasks);
+        StateImage.write(imageFile, dataFile, tasks);
+
+        ArrayList<Task> restored = StateImage.read(imageFile, dataFile);
+
+        assertEquals(formatAll(tasks), formatAll(restored));
+        assertEquals(formatAll(tasks), formatAll(storage.load()));
+    }
+
+    @Test
+    void read_sameSizeEditWithSameMtime_returnsNull() throws IOException, MegabotException {
+        ArrayList<Task> tasks = createTasks();
+        storage.save(tasks);
+        StateImage.write(imageFile, dataFile, tasks);
+        assertTrue(StateImage.isFresh(imageFile, dataFile));
+
+        // Unmark the to-do without changing the size or last modified time of the file
+        FileTime mtime = Files.getLastModifiedTime(dataFile);
+        Files.writeString(dataFile, Files.readString(dataFile).replaceFirst("T \\| 1", "T | 0"));
+        Files.setLastModifiedTime(dataFile, mtime);
+
+        assertFalse(StateImage.isFresh(imageFile, dataFile));
+        assertNull(StateImage.read(imageFile, dataFile));
+        assertFalse(storage.load().get(0).getIsDone());
+    }
+
+    @Test
+    void read_damagedRecord_returnsNull() throws IOException, MegabotException {
+        ArrayList<Task> tasks = createTasks();
+        storage.save(tasks);
+        StateImage.write(imageFile, dataFile, tasks);
+
+        try (FileChannel channel = FileChannel.open(imageFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'E'}), StateImage.HEADER_SIZE);
+        }
+
+        assertNull(StateImage.read(imageFile, dataFile));
+        assertEquals(formatAll(tasks), formatAll(storage.load()));
+    }
+
+    @Test
+    void saveImage_afterSave_nextLoadSkipsParsing() throws IOException, MegabotException {
+        storage.save(createTasks());
+        storage.saveImage(storage.load());
+        assertTrue(StateImage.isFresh(imageFile, dataFile));
+
+        // Changing the tasks through Storage makes the image stale until it is written again
+        ArrayList<Task> tasks = storage.load();
+        tasks.remove(0);
+        storage.save(tasks);
+        assertFalse(StateImage.isFresh(imageFile, dataFile));
+        assertEquals(3, storage.load().size());
+    }
+
+    @Test
+    void load_fromImage_usesStoredLineHashes() throws IOException, MegabotException {
+        ArrayList<Task> tasks = createTasks();
+        storage.save(tasks);
+        storage.saveImage(tasks);
+
+        StateImage.Contents contents = StateImage.readContents(imageFile, dataFile);
+        Storage restarted = new Storage(dataFile.toString());
+        ArrayList<Task> loaded = restarted.load();
+
+        assertArrayEquals(Storage.hashTasks(tasks), contents.getLineHashes());
+        assertEquals(formatAll(tasks), formatAll(loaded));
+        assertArrayEquals(Storage.hashTasks(loaded), restarted.getSavedLineHashes());
+        assertArrayEquals(Storage.hashTasks(loaded), restarted.getSavedTaskHashes());
+    }
+
+    @Test
+    void saveImage_fileChangedSinceLastSave_imageNotUsedForChangedFile() throws IOException, MegabotException {
+        ArrayList<Task> tasks = createTasks();
+        storage.save(tasks);
+        Files.writeString(dataFile, "T | 0 | water plants\n", StandardOpenOption.APPEND);
+
+        storage.saveImage(tasks);
+
+        assertFalse(StateImage.isFresh(imageFile, dataFile));
+        assertEquals(5, new Storage(dataFile.toString()).load().size());
+    }
+}
@@ -0,0 +1,127 @@
+package megabot.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import megabot.exception.MegabotException;
+
+
+class TaskClockTest {
+    private final TaskClock originalClock = TaskClock.getCurrent();
+    private SettableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new SettableClock(LocalDateTime.of(2024, 3, 10, 12, 0));
+        TaskClock.setCurrent(new TaskClock(clock, Duration.ofSeconds(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TaskClock.setCurrent(originalClock);
+    }
+
+    @Test
+    void now_withinOneTick_returnsSameReading() {
+        TaskClock taskClock = new TaskClock(clock, Duration.ofMinutes(1));
+        LocalDateTime first = taskClock.now();
+
+        clock.set(LocalDateTime.of(2024, 3, 10, 12, 0, 59));
+        assertSame(first, taskClock.now());
+
+        clock.set(LocalDateTime.of(2024, 3, 10, 12, 1, 30));
+        assertEquals(LocalDateTime.of(2024, 3, 10, 12, 1), taskClock.now());
+    }
+
+    @Test
+    void getDeadlineStatus_timePassesTransitions_updatesStatus() throws MegabotException {
+        Deadline deadline = new Deadline("submit report", "2024-03-12 1200");
+        assertEquals("📅 Upcoming", deadline.getDeadlineStatus());
+
+        clock.set(LocalDateTime.of(2024, 3, 11, 12, 0, 1));
+        assertEquals("⏰ Due soon", deadline.getDeadlineStatus());
+
+        clock.set(LocalDateTime.of(2024, 3, 12, 12, 0, 1));
+        assertEquals("⚠ OVERDUE", deadline.getDeadlineStatus());
+
+        deadline.markAsDone();
+        assertEquals("✓ Completed", deadline.getDeadlineStatus());
+
+        deadline.markAsUndone();
+        assertEquals("⚠ OVERDUE", deadline.getDeadlineStatus());
+    }
+
+    @Test
+    void getEventStatus_timePassesTransitions_updatesStatus() throws MegabotException {
+        Event event = new Event("project meeting", "2024-03-10 1400", "2024-03-10 1600");
+        assertEquals("📅 Upcoming", event.getEventStatus());
+
+        clock.set(LocalDateTime.of(2024, 3, 10, 15, 0));
+        assertEquals("🔄 Ongoing", event.getEventStatus());
+
+        clock.set(LocalDateTime.of(2024, 3, 10, 16, 0, 1));
+        assertEquals("⏰ Ended", event.getEventStatus());
+
+        // Going back in time is picked up too
+        clock.set(LocalDateTime.of(2024, 3, 10, 13, 0));
+        assertEquals("📅 Upcoming", event.getEventStatus());
+    }
+
+    @Test
+    void isOngoing_atEndTime_agreesWithStatus() throws MegabotException {
+        Event event = new Event("project meeting", "2024-03-10 1400", "2024-03-10 1600");
+
+        clock.set(LocalDateTime.of(2024, 3, 10, 16, 0));
+        assertTrue(event.isOngoing());
+        assertFalse(event.hasEnded());
+        assertEquals("🔄 Ongoing", event.getEventStatus());
+
+        clock.set(LocalDateTime.of(2024, 3, 10, 16, 0, 1));
+        assertFalse(event.isOngoing());
+        assertTrue(event.hasEnded());
+        assertEquals("⏰ Ended", event.getEventStatus());
+    }
+
+    /**
+     * A clock in UTC whose time is set by the test.
+     */
+    private static class SettableClock extends Clock {
+        private Instant instant;
+
+        SettableClock(LocalDateTime dateTime) {
+            set(dateTime);
+        }
+
+        void set(LocalDateTime dateTime) {
+            instant = dateTime.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
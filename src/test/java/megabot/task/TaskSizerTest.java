@@ -0,0 +1,71 @@
+package megabot.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import megabot.exception.MegabotException;
+import megabot.metrics.ObjectLayout;
+
+class TaskSizerTest {
+    private static final ObjectLayout COMPRESSED = new ObjectLayout(true, true, 8, true);
+
+    private static TaskList createTasks() throws MegabotException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new ToDo("read book"));
+        tasks.add(new Deadline("return book", "2030-03-15 1800"));
+        tasks.add(new Event("project meeting", "2030-03-15 1400", "2030-03-15 1600"));
+        return new TaskList(tasks);
+    }
+
+    @Test
+    void stringSize_latin1AndWide_countsBytesPerCharacter() {
+        // 24-byte String, plus a 16-byte array header and the characters rounded up to 8 bytes
+        assertEquals(24 + 16 + 16, COMPRESSED.stringSize("read book"));
+        assertEquals(24 + 16 + 8, COMPRESSED.stringSize("会议"));
+        assertEquals(0, COMPRESSED.stringSize(null));
+    }
+
+    @Test
+    void shallowSize_uncompressedReferences_larger() {
+        ObjectLayout uncompressed = new ObjectLayout(false, false, 8, true);
+
+        assertEquals(24, COMPRESSED.shallowSize(ToDo.class));
+        assertEquals(32, uncompressed.shallowSize(ToDo.class));
+    }
+
+    @Test
+    void measure_mixedTasks_countsEachType() throws MegabotException {
+        TaskSizer sizer = TaskSizer.measure(createTasks());
+
+        assertEquals(3, sizer.getTaskCount());
+        assertTrue(sizer.getDescriptionBytes() > 0);
+        assertTrue(sizer.getIndexBytes() > 0);
+        assertEquals(0, sizer.getCacheBytes());
+        String report = sizer.report();
+        assertTrue(report.startsWith("Here is roughly how much memory your 3 tasks take:\n"));
+        assertTrue(report.contains("\ntodo            1 "));
+        assertTrue(report.contains("\ndeadline        1 "));
+        assertTrue(report.contains("\nevent           1 "));
+    }
+
+    @Test
+    void measure_afterRendering_countsCaches() throws MegabotException {
+        TaskList tasks = createTasks();
+        long before = TaskSizer.measure(tasks).getTotalBytes();
+
+        for (Task task : tasks.getTasks()) {
+            task.toString();
+            task.formatData();
+        }
+        TaskSizer sizer = TaskSizer.measure(tasks);
+
+        assertTrue(sizer.getCacheBytes() > 0);
+        assertEquals(before + sizer.getCacheBytes(), sizer.getTotalBytes());
+        assertTrue(sizer.report().contains("Caches: 2 display texts"));
+        assertTrue(sizer.report().contains("1 event durations"));
+    }
+}
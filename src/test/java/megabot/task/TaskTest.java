@@ -6,6 +6,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
+import megabot.exception.MegabotException;
+
 class TaskTest {
 
     @Test
@@ -78,4 +80,22 @@ class TaskTest {
         assertEquals("", task.getTask());
         assertFalse(task.getIsDone());
     }
+
+    @Test
+    void formatData_markedEvent_keepsDescription() throws MegabotException {
+        Event event = new Event("project meeting", "2024-03-10 1400", "2024-03-10 1600");
+        event.markAsDone();
+        assertEquals("E | 1 | project meeting | 2024-03-10 2:00 PM to 2024-03-10 4:00 PM", event.formatData());
+    }
+
+    @Test
+    void toString_deadlineRenderedTwice_returnsSameText() throws MegabotException {
+        Deadline deadline = new Deadline("submit report", "2024-03-15 2359");
+        String first = deadline.toString();
+
+        assertTrue(first.startsWith("[D][ ] submit report (by: Mar 15 2024 11:59 PM) "));
+        assertEquals(first, deadline.toString());
+        deadline.markAsDone();
+        assertEquals("[D][X] submit report (by: Mar 15 2024 11:59 PM) ✓ Completed", deadline.toString());
+    }
 }
@@ -0,0 +1,67 @@
+package megabot.tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.tools.ReplayHarness.Mode;
+import megabot.tools.ReplayHarness.Report;
+
+
+class ReplayHarnessTest {
+
+    private static Report replay(Mode mode, int commandCount) throws IOException, MegabotException {
+        Path dataFile = Files.createTempFile("megabot-replay", ".txt");
+        try {
+            ReplayHarness harness = new ReplayHarness(mode, dataFile, 16);
+            Report report = harness.run(new CommandStreamGenerator(3, harness.getTaskCount()), commandCount);
+            harness.close();
+            return report;
+        } finally {
+            Files.deleteIfExists(dataFile);
+            Files.deleteIfExists(Path.of(dataFile + Storage.IMAGE_SUFFIX));
+        }
+    }
+
+    @Test
+    void next_sameSeed_sameCommands() {
+        CommandStreamGenerator first = new CommandStreamGenerator(5, 10);
+        CommandStreamGenerator second = new CommandStreamGenerator(5, 10);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(first.next(), second.next());
+        }
+    }
+
+    @Test
+    void run_generatedStream_noFailedCommands() throws IOException, MegabotException {
+        for (Mode mode : Mode.values()) {
+            Report report = replay(mode, 2000);
+
+            assertEquals(2000, report.getCommandCount());
+            assertEquals(0, report.getErrorCount(), mode + " had failed commands");
+            assertEquals(2000, report.getLatency().getCount());
+            assertTrue(report.getTaskCount() > 0);
+        }
+    }
+
+    @Test
+    void run_sameStream_sameTasksInEveryMode() throws IOException, MegabotException {
+        int taskCount = replay(Mode.PER_COMMAND, 1000).getTaskCount();
+
+        assertEquals(taskCount, replay(Mode.ENGINE, 1000).getTaskCount());
+        assertEquals(taskCount, replay(Mode.SCRIPT, 1000).getTaskCount());
+    }
+
+    @Test
+    void fromString_hyphenatedName_mode() {
+        assertEquals(Mode.PER_COMMAND, Mode.fromString("per-command"));
+        assertEquals(Mode.ENGINE, Mode.fromString("engine"));
+    }
+}
@@ -0,0 +1,76 @@
+package megabot.tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import megabot.Storage;
+import megabot.exception.MegabotException;
+import megabot.parser.DateTimeParser;
+import megabot.task.Task;
+
+
+class TaskFileGeneratorTest {
+
+    private static String generate(long seed, int validCount, int corruptCount) throws IOException {
+        StringWriter out = new StringWriter();
+        new TaskFileGenerator(seed).generate(out, validCount, corruptCount);
+        return out.toString();
+    }
+
+    @Test
+    void generate_sameSeed_sameOutput() throws IOException {
+        assertEquals(generate(7, 500, 5), generate(7, 500, 5));
+        assertNotEquals(generate(7, 500, 5), generate(8, 500, 5));
+    }
+
+    @Test
+    void generate_everyFormat_allValidLinesLoad() throws IOException, MegabotException {
+        File dataFile = File.createTempFile("megabot-generated", ".txt");
+        dataFile.deleteOnExit();
+        try (FileWriter out = new FileWriter(dataFile)) {
+            new TaskFileGenerator(1).generate(out, 3000, 0);
+        }
+
+        ArrayList<Task> tasks = new Storage(dataFile.getAbsolutePath()).load();
+
+        assertEquals(3000, tasks.size());
+    }
+
+    @Test
+    void generate_corruptLines_skippedOnLoad() throws IOException, MegabotException {
+        File dataFile = File.createTempFile("megabot-generated", ".txt");
+        dataFile.deleteOnExit();
+        try (FileWriter out = new FileWriter(dataFile)) {
+            new TaskFileGenerator(2).generate(out, 200, 10);
+        }
+
+        ArrayList<Task> tasks = new Storage(dataFile.getAbsolutePath()).load();
+
+        assertEquals(200, tasks.size());
+    }
+
+    @Test
+    void setFormats_singleFormat_onlyThatFormatUsed() throws IOException {
+        TaskFileGenerator generator = new TaskFileGenerator(3);
+        generator.setTypeMix(0, 1, 0);
+        generator.setDoneRatio(1);
+        generator.setFormats(0);
+        StringWriter out = new StringWriter();
+
+        generator.generate(out, 100, 0);
+
+        for (String line : out.toString().split("\n")) {
+            assertTrue(line.matches("D \\| 1 \\| .+ \\| \\d{4}-\\d{2}-\\d{2} \\d{4}"), line);
+        }
+        assertEquals(19, DateTimeParser.getFormatCount());
+    }
+}
@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+# Compares the cold start time of the headless launcher against the GUI.
+# Build both jars first: ./gradlew shadowJar headlessJar
+# The GUI is started with -Dmegabot.exitOnShow=true so that it exits once the window is shown.
+
+RUNS=${RUNS:-10}
+HEADLESS_JAR=../build/libs/megabot-headless.jar
+GUI_JAR=../build/libs/megabot.jar
+
+time_runs() {
+    local start end
+    start=$(date +%s%N)
+    for _ in $(seq "$RUNS"); do
+        "$@" > /dev/null 2>&1
+    done
+    end=$(date +%s%N)
+    echo "$(( (end - start) / RUNS / 1000000 )) ms"
+}
+
+echo "headless 'list': $(time_runs java -jar "$HEADLESS_JAR" --data ../data/megabot.txt list)"
+echo "GUI window shown: $(time_runs java -Dmegabot.exitOnShow=true -jar "$GUI_JAR")"
@@ -0,0 +1,15 @@
+#!/usr/bin/env bash
+# Replays input.txt, then a large generated command stream, through every execution mode
+# and prints throughput, latency percentiles, allocation and GC for each.
+# Build the classes first: ./gradlew classes
+
+CLASSES=../build/classes/java/main
+COMMANDS=${COMMANDS:-100000}
+TASKS=${TASKS:-10000}
+DATA=../build/replay-tasks.txt
+
+java -cp "$CLASSES" megabot.tools.ReplayHarness --commands input.txt --mode script || exit 1
+
+java -cp "$CLASSES" megabot.tools.TaskFileGenerator --out "$DATA" --count "$TASKS" || exit 1
+java -cp "$CLASSES" megabot.tools.ReplayHarness --generate "$COMMANDS" --warmup $((COMMANDS / 10)) \
+    --data "$DATA" --mode "${MODES:-per-command,engine,script}"